@@ -1,9 +1,14 @@
+import java.util.ArrayList;
+import java.util.List;
+
 public abstract class AbstractExercise {
-	private String name;
+	private ExerciseType type; // Canonical type shared by all exercises with the same name
 	private int reps;
 	private int sets;
 	private double weight;
 	private int seconds;
+	private List<Occurrence> owners; // Positions in workouts whose totals include this exercise, created on first use
+	private RenderedText rendered; // Cached text, cleared by the setters
 
 	/**
 	 * Constructor to initialize an exercise with all attributes.
@@ -22,9 +27,20 @@ public abstract class AbstractExercise {
 		setSeconds(seconds);
 	}
 
+	/**
+	 * Constructor for subclasses that keep their values outside the exercise object.
+	 * Such subclasses override the getters and the store methods.
+	 */
+	protected AbstractExercise() {
+	}
+
 	// Getters for all properties
 	public String getName() {
-		return name;
+		return getType().getName();
+	}
+
+	public ExerciseType getType() {
+		return type;
 	}
 
 	public int getReps() {
@@ -48,37 +64,186 @@ public abstract class AbstractExercise {
 		if (name == null || name.trim().isEmpty()) {
 			throw new IllegalArgumentException("Name cannot be null or empty");
 		}
-		this.name = name;
+		checkWritable();
+		storeType(ExerciseTypeRegistry.getDefault().intern(name));
+		rendered = null;
+		if (owners != null) {
+			publishOwners(); // The name is not part of any total
+		}
 	}
 
 	public void setReps(int reps) {
 		if (reps < 0) {
 			throw new IllegalArgumentException("Reps cannot be negative");
 		}
-		this.reps = reps;
+		checkWritable();
+		beforeChange();
+		try {
+			storeReps(reps);
+		} finally {
+			afterChange(); // Adds the old values back if the store rejected the change
+		}
 	}
 
 	public void setSets(int sets) {
 		if (sets < 0) {
 			throw new IllegalArgumentException("Sets cannot be negative");
 		}
-		this.sets = sets;
+		checkWritable();
+		beforeChange();
+		try {
+			storeSets(sets);
+		} finally {
+			afterChange(); // Adds the old values back if the store rejected the change
+		}
 	}
 
 	public void setWeight(double weight) {
 		if (weight < 0) {
 			throw new IllegalArgumentException("Weight cannot be negative");
 		}
-		this.weight = weight;
+		checkWritable();
+		beforeChange();
+		try {
+			storeWeight(weight);
+		} finally {
+			afterChange(); // Adds the old values back if the store rejected the change
+		}
 	}
 
 	public void setSeconds(int seconds) {
 		if (seconds < 0) {
 			throw new IllegalArgumentException("Seconds cannot be negative");
 		}
+		checkWritable();
+		beforeChange();
+		try {
+			storeSeconds(seconds);
+		} finally {
+			afterChange(); // Adds the old values back if the store rejected the change
+		}
+	}
+
+	// Called by every setter before anything changes, so storage that can no longer be written rejects
+	// the change before the owning workouts take the old values out of their totals
+	protected void checkWritable() {
+	}
+
+	// Storage hooks, called by the setters once a value has been validated
+	protected void storeType(ExerciseType type) {
+		this.type = type;
+	}
+
+	protected void storeReps(int reps) {
+		this.reps = reps;
+	}
+
+	protected void storeSets(int sets) {
+		this.sets = sets;
+	}
+
+	protected void storeWeight(double weight) {
+		this.weight = weight;
+	}
+
+	protected void storeSeconds(int seconds) {
 		this.seconds = seconds;
 	}
 
+	/**
+	 * Registers a position in a workout that keeps running totals over this exercise.
+	 * A workout holding the exercise twice is registered once per position.
+	 *
+	 * @param workout The workout the exercise was added to.
+	 * @param index The position of the exercise in the workout.
+	 */
+	void attach(AbstractWorkout workout, int index) {
+		if (owners == null) {
+			owners = new ArrayList<>(1);
+		}
+		owners.add(new Occurrence(workout, index));
+	}
+
+	/**
+	 * Unregisters the position the exercise was removed from.
+	 *
+	 * @param workout The workout the exercise was removed from.
+	 * @param index The position it had.
+	 */
+	void detach(AbstractWorkout workout, int index) {
+		if (owners != null) {
+			for (int i = 0; i < owners.size(); i++) {
+				if (owners.get(i).workout == workout && owners.get(i).index == index) {
+					owners.remove(i);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Follows the exercise to a new position after an earlier exercise was removed from the workout.
+	 *
+	 * @param workout The workout holding the exercise.
+	 * @param from The position it had.
+	 * @param to The position it has now.
+	 */
+	void moved(AbstractWorkout workout, int from, int to) {
+		if (owners != null) {
+			for (Occurrence occurrence : owners) {
+				if (occurrence.workout == workout && occurrence.index == from) {
+					occurrence.index = to;
+					return;
+				}
+			}
+		}
+	}
+
+	// Take the old values out of every owning workout before a field changes
+	private void beforeChange() {
+		if (owners != null) {
+			for (Occurrence occurrence : owners) {
+				occurrence.workout.retract(this);
+			}
+		}
+	}
+
+	// Add the new values back once the field has changed
+	private void afterChange() {
+		rendered = null;
+		if (owners != null) {
+			for (Occurrence occurrence : owners) {
+				occurrence.workout.accumulate(this); // Every occurrence, before any owner publishes
+			}
+			publishOwners();
+		}
+	}
+
+	// Has every owning workout publish a version with the new values, then tell its listeners
+	private void publishOwners() {
+		for (Occurrence occurrence : owners) {
+			occurrence.workout.exerciseChanged(this, occurrence.index);
+		}
+		for (int i = 0; i < owners.size(); i++) {
+			if (isFirstOf(i)) { // Once per workout, even if stored there twice
+				owners.get(i).workout.publish();
+			}
+		}
+		for (Occurrence occurrence : owners) {
+			occurrence.workout.exerciseModified(this, occurrence.index);
+		}
+	}
+
+	private boolean isFirstOf(int occurrence) {
+		AbstractWorkout workout = owners.get(occurrence).workout;
+		for (int i = 0; i < occurrence; i++) {
+			if (owners.get(i).workout == workout) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Calculate the exercise volume based on formula reps*weight*sets.
 	 * 
@@ -87,15 +252,110 @@ public abstract class AbstractExercise {
 	public abstract double calculateVolume();
 
 	/**
-	 * Get a detailed description of the exercise.
+	 * Get a detailed description of the exercise. The text is cached until a setter changes the exercise.
 	 * 
 	 * @return Description as a String.
 	 */
-	public abstract String getDescription();
+	public String getDescription() {
+		RenderedText current = renderedText();
+		String description = current.description;
+		if (description == null) {
+			StringBuilder sb = new StringBuilder(96);
+			appendDescriptionTo(sb);
+			description = sb.toString();
+			current.description = description;
+		}
+		return description;
+	}
 
+	/**
+	 * Appends the description returned by {@link #getDescription()}, without caching it.
+	 * 
+	 * @param sb The builder to append to.
+	 * @return The builder.
+	 */
+	public abstract StringBuilder appendDescriptionTo(StringBuilder sb);
+
+	/**
+	 * Appends the text returned by {@link #toString()}, without caching it.
+	 * 
+	 * @param sb The builder to append to.
+	 * @return The builder.
+	 */
+	public StringBuilder appendTo(StringBuilder sb) {
+		sb.append("Exercise: ").append(getName())
+				.append(", Reps: ").append(getReps())
+				.append(", Sets: ").append(getSets())
+				.append(", Weight: ");
+		TextFormat.appendFixed(sb, getWeight(), 2).append(" kg, Duration: ").append(getSeconds())
+				.append(" seconds, Volume: ");
+		return TextFormat.appendFixed(sb, calculateVolume(), 2);
+	}
+
+	/**
+	 * Returns the exercise as text. The text is cached until a setter changes the exercise.
+	 */
 	@Override
 	public String toString() {
-		return String.format("Exercise: %s, Reps: %d, Sets: %d, Weight: %.2f kg, Duration: %d seconds, Volume: %.2f",
-				name, reps, sets, weight, seconds, calculateVolume());
+		RenderedText current = renderedText();
+		String text = current.text;
+		if (text == null) {
+			StringBuilder sb = new StringBuilder(96);
+			appendTo(sb);
+			text = sb.toString();
+			current.text = text;
+		}
+		return text;
+	}
+
+	// Returns the cache for the current values. The values are compared as well, because subclasses
+	// that keep their values elsewhere can be changed without going through this object's setters.
+	private RenderedText renderedText() {
+		RenderedText current = rendered;
+		if (current == null || !current.matches(this)) {
+			current = new RenderedText(this);
+			rendered = current;
+		}
+		return current;
+	}
+
+	/**
+	 * A position of this exercise in a workout that keeps totals over it.
+	 */
+	private static final class Occurrence {
+		final AbstractWorkout workout;
+		int index;
+
+		Occurrence(AbstractWorkout workout, int index) {
+			this.workout = workout;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * Text rendered from one set of exercise values. Read without locking, so a reader may
+	 * occasionally render text again that another thread has just cached.
+	 */
+	private static final class RenderedText {
+		private final ExerciseType type;
+		private final int reps;
+		private final int sets;
+		private final long weightBits;
+		private final int seconds;
+		String text;
+		String description;
+
+		RenderedText(AbstractExercise exercise) {
+			this.type = exercise.getType();
+			this.reps = exercise.getReps();
+			this.sets = exercise.getSets();
+			this.weightBits = Double.doubleToRawLongBits(exercise.getWeight());
+			this.seconds = exercise.getSeconds();
+		}
+
+		boolean matches(AbstractExercise exercise) {
+			return type == exercise.getType() && reps == exercise.getReps() && sets == exercise.getSets()
+					&& weightBits == Double.doubleToRawLongBits(exercise.getWeight()) && seconds == exercise.getSeconds();
+		}
 	}
 }
@@ -1,20 +1,103 @@
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public abstract class AbstractWorkout implements InterfaceWorkout {
-	private List<AbstractExercise> exercises;
+	/**
+	 * Receives every version a workout publishes, on the thread that changed the workout.
+	 */
+	interface VersionListener {
+		void versionPublished(WorkoutVersion version);
+
+		/**
+		 * Called before the workout takes a new name. Throwing keeps the old name.
+		 *
+		 * @param workout The workout being renamed.
+		 * @param workoutName The new name.
+		 * @throws IllegalArgumentException if the name cannot be taken.
+		 */
+		default void checkName(AbstractWorkout workout, String workoutName) {
+		}
+
+		/**
+		 * Called when a listener checked after this one rejected a name this one accepted, so a name it
+		 * reserved in {@link #checkName} can be released. The workout keeps its old name.
+		 *
+		 * @param workout The workout that keeps its name.
+		 * @param workoutName The rejected name.
+		 */
+		default void nameRejected(AbstractWorkout workout, String workoutName) {
+		}
+	}
+
+	private VersionedList<AbstractExercise> exercises;
+	private List<AbstractExercise> exercisesView; // Read-only wrapper over exercises, created once
+	private final WorkoutChangeSupport changeSupport = new WorkoutChangeSupport();
 	private String workoutName;
+	private Instant sessionStart; // When the session took place, to the millisecond
 	private int durationMinutes; // Total duration of the workout in minutes
 
+	// Running totals, kept up to date on every add, remove and exercise edit
+	private long durationSeconds;
+	private double totalVolume;
+	private long totalSets;
+	private long totalReps;
+
+	private volatile WorkoutVersion version; // Latest published state, read by other threads
+	private final List<VersionListener> versionListeners = new CopyOnWriteArrayList<>();
+
 	/**
-	 * Constructor for initializing the workout with a name.
+	 * Constructor for initializing the workout with a name, for a session starting now.
 	 *
 	 * @param workoutName Name of the workout.
 	 */
 	public AbstractWorkout(String workoutName) {
+		this(workoutName, Instant.now());
+	}
+
+	/**
+	 * Constructor for initializing the workout with a name and the time of its session.
+	 *
+	 * @param workoutName Name of the workout.
+	 * @param sessionStart When the session started; kept to the millisecond.
+	 */
+	public AbstractWorkout(String workoutName, Instant sessionStart) {
+		this(workoutName, sessionStart, new VersionedVector<>(FrozenExercise::of));
+	}
+
+	/**
+	 * Constructor for workouts that keep their exercises in a custom list, such as a columnar store.
+	 *
+	 * @param workoutName Name of the workout.
+	 * @param storage Empty list that will hold the exercises.
+	 */
+	protected AbstractWorkout(String workoutName, VersionedList<AbstractExercise> storage) {
+		this(workoutName, Instant.now(), storage);
+	}
+
+	/**
+	 * Constructor for workouts with a custom exercise list and a given session time.
+	 *
+	 * @param workoutName Name of the workout.
+	 * @param sessionStart When the session started; kept to the millisecond.
+	 * @param storage Empty list that will hold the exercises.
+	 */
+	protected AbstractWorkout(String workoutName, Instant sessionStart, VersionedList<AbstractExercise> storage) {
+		if (sessionStart == null) {
+			throw new IllegalArgumentException("Session start cannot be null");
+		}
 		this.workoutName = workoutName;
-		this.exercises = new ArrayList<>();
+		this.sessionStart = sessionStart.truncatedTo(ChronoUnit.MILLIS);
+		this.exercises = storage;
+		this.exercisesView = Collections.unmodifiableList(exercises);
 		this.durationMinutes = 0; // Initialize to zero until exercises are added
+		publish();
 	}
 
 	// Getters
@@ -24,22 +107,131 @@ public abstract class AbstractWorkout implements InterfaceWorkout {
 
 	public List<AbstractExercise> getExercises() {
 		return new ArrayList<>(exercises);
-	} 
+	}
+
+	public Instant getSessionStart() {
+		return sessionStart;
+	}
 
 	public int getDurationMinutes() {
 		return durationMinutes;
 	}
 
-	// Setter for workout name with validation
+	public long getDurationSeconds() {
+		return durationSeconds;
+	}
+
+	public double getTotalVolume() {
+		return totalVolume;
+	}
+
+	public long getTotalSets() {
+		return totalSets;
+	}
+
+	public long getTotalReps() {
+		return totalReps;
+	}
+
+	/**
+	 * Returns the latest published state of the workout in constant time.
+	 * The result never changes and can be read on any thread while the workout is being edited.
+	 *
+	 * @return The current version.
+	 */
+	public WorkoutVersion snapshot() {
+		return version;
+	}
+
+	@Override
+	public List<AbstractExercise> exercisesView() {
+		return exercisesView;
+	}
+
+	@Override
+	public int exerciseCount() {
+		return exercises.size();
+	}
+
+	@Override
+	public void forEachExercise(Consumer<? super AbstractExercise> action) {
+		for (int i = 0; i < exercises.size(); i++) {
+			action.accept(exercises.get(i));
+		}
+	}
+
+	// Setter for workout name with validation; a log holding the workout may reject a name it already has
 	public void setWorkoutName(String workoutName) {
 		if (workoutName == null || workoutName.trim().isEmpty()) {
 			throw new IllegalArgumentException("Workout name cannot be empty");
 		}
+		String previousName = this.workoutName;
+		boolean renamed = !workoutName.equals(previousName);
+		if (renamed) {
+			VersionListener[] listeners = versionListeners.toArray(new VersionListener[0]);
+			int accepted = 0;
+			try {
+				for (VersionListener listener : listeners) {
+					listener.checkName(this, workoutName);
+					accepted++;
+				}
+			} catch (RuntimeException e) {
+				for (int i = accepted - 1; i >= 0; i--) {
+					listeners[i].nameRejected(this, workoutName);
+				}
+				throw e;
+			}
+		}
 		this.workoutName = workoutName;
+		publish();
+		if (renamed) {
+			changeSupport.fireWorkoutModified(this, version, previousName);
+		}
+	}
+
+	/**
+	 * Moves the session to another time. A logger indexing workouts by time re-indexes the workout, and
+	 * listeners are told through {@link WorkoutChangeListener#workoutModified} with the unchanged name.
+	 *
+	 * @param sessionStart When the session started; kept to the millisecond.
+	 */
+	public void setSessionStart(Instant sessionStart) {
+		if (sessionStart == null) {
+			throw new IllegalArgumentException("Session start cannot be null");
+		}
+		Instant previousStart = this.sessionStart;
+		this.sessionStart = sessionStart.truncatedTo(ChronoUnit.MILLIS);
+		publish();
+		if (!this.sessionStart.equals(previousStart)) {
+			changeSupport.fireWorkoutModified(this, version, workoutName);
+		}
+	}
+
+	/**
+	 * Registers a listener that is told about exercises added to, removed from or changed in this workout.
+	 *
+	 * @param listener The listener to add.
+	 */
+	@Override
+	public void addChangeListener(WorkoutChangeListener listener) {
+		changeSupport.addChangeListener(listener);
+	}
+
+	@Override
+	public void removeChangeListener(WorkoutChangeListener listener) {
+		changeSupport.removeChangeListener(listener);
+	}
+
+	void addVersionListener(VersionListener listener) {
+		versionListeners.add(listener);
+	}
+
+	void removeVersionListener(VersionListener listener) {
+		versionListeners.remove(listener);
 	}
 
 	/**
-	 * Adds an exercise to the workout and updates the duration.
+	 * Adds an exercise to the workout and updates the running totals.
 	 *
 	 * @param exercise The exercise to add.
 	 */
@@ -48,32 +240,181 @@ public abstract class AbstractWorkout implements InterfaceWorkout {
 		if (exercise == null) {
 			throw new IllegalArgumentException("Exercise cannot be null");
 		}
+		long start = WorkoutMetrics.start();
 		exercises.add(exercise);
-		updateDuration();
+		int index = exercises.size() - 1;
+		AbstractExercise stored = exercises.get(index);
+		if (stored == exercise) {
+			stored.attach(this, index); // Storage that copies values hands out views that are already attached
+		}
+		accumulate(stored);
+		publish();
+		changeSupport.fireExerciseAdded(this, version, stored, index);
+		WorkoutMetrics.record(WorkoutMetrics.Operation.WORKOUT_ADD_EXERCISE, start);
 	}
 
 	/**
-	 * Recursive helper method to recalculate the duration of the workout. 
+	 * Adds several exercises in one step. Every exercise is checked before any is added, so a
+	 * rejected batch leaves the workout unchanged. The running totals are updated with the new
+	 * exercises only and a single new version is published; listeners are still told about each
+	 * added exercise.
+	 *
+	 * @param batch The exercises to add, in order.
 	 */
-	
+	@Override
+	public void addExercises(Collection<? extends AbstractExercise> batch) {
+		if (batch == null) {
+			throw new IllegalArgumentException("Exercises cannot be null");
+		}
+		AbstractExercise[] added = batch.toArray(new AbstractExercise[0]);
+		for (AbstractExercise exercise : added) {
+			if (exercise == null) {
+				throw new IllegalArgumentException("Exercise cannot be null");
+			}
+		}
+		if (added.length == 0) {
+			return;
+		}
+		long start = WorkoutMetrics.start();
+		int first = exercises.size();
+		exercises.addAll(Arrays.asList(added));
+		for (int i = first; i < exercises.size(); i++) {
+			AbstractExercise stored = exercises.get(i);
+			if (stored == added[i - first]) {
+				stored.attach(this, i);
+			}
+			accumulate(stored);
+		}
+		publish();
+		if (changeSupport.hasListeners()) {
+			for (int i = first; i < exercises.size(); i++) {
+				changeSupport.fireExerciseAdded(this, version, exercises.get(i), i);
+			}
+		}
+		WorkoutMetrics.record(WorkoutMetrics.Operation.WORKOUT_ADD_EXERCISES, start);
+	}
 
-	
-	private int calculateDurationRecursively(int index) {
+	/**
+	 * Removes the first occurrence of an exercise and takes it out of the running totals.
+	 *
+	 * @param exercise The exercise to remove.
+	 * @return true if the exercise was part of this workout.
+	 */
+	protected boolean removeStoredExercise(AbstractExercise exercise) {
+		long start = WorkoutMetrics.start();
+		int index = exercises.indexOf(exercise);
 		if (index < 0) {
-			return 0;
-		} else {
-			return exercises.get(index).getSeconds() / 60 + calculateDurationRecursively(index - 1);
+			return false;
 		}
+		AbstractExercise stored = exercises.remove(index);
+		retract(stored);
+		stored.detach(this, index);
+		if (exercises.holdsElements()) {
+			for (int i = index; i < exercises.size(); i++) {
+				exercises.get(i).moved(this, i + 1, i); // Removal is linear in the storage anyway
+			}
+		}
+		publish();
+		changeSupport.fireExerciseRemoved(this, version, stored, index);
+		WorkoutMetrics.record(WorkoutMetrics.Operation.WORKOUT_REMOVE_EXERCISE, start);
+		return true;
 	}
-	
+
+	/**
+	 * Tells the storage that the exercise at a position was edited in place, so the next version holds its
+	 * new values. The caller publishes once every position of the exercise was reported.
+	 *
+	 * @param exercise The changed exercise, already accumulated into the running totals.
+	 * @param index The position of the exercise.
+	 */
+	void exerciseChanged(AbstractExercise exercise, int index) {
+		exercises.elementChanged(index, exercise);
+	}
+
+	/**
+	 * Tells listeners that a field of a stored exercise changed. Called once for every position the
+	 * exercise is stored at, with the position it keeps, so the storage is not searched.
+	 *
+	 * @param exercise The changed exercise.
+	 * @param index The position of the exercise.
+	 */
+	void exerciseModified(AbstractExercise exercise, int index) {
+		if (changeSupport.hasListeners()) {
+			changeSupport.fireExerciseModified(this, version, exercise, index);
+		}
+	}
+
+	/**
+	 * Adds an exercise's values to the running totals.
+	 *
+	 * @param exercise The exercise whose values are added.
+	 */
+	void accumulate(AbstractExercise exercise) {
+		durationSeconds += exercise.getSeconds();
+		durationMinutes += exercise.getSeconds() / 60;
+		totalVolume += exercise.calculateVolume();
+		totalSets += exercise.getSets();
+		totalReps += exercise.getReps();
+	}
+
+	/**
+	 * Subtracts an exercise's values from the running totals.
+	 * Once the last exercise is gone the totals are reset to exactly zero.
+	 *
+	 * @param exercise The exercise whose values are removed.
+	 */
+	void retract(AbstractExercise exercise) {
+		if (exercises.isEmpty()) {
+			durationSeconds = 0; // Drops the rounding error left by adding and subtracting volumes
+			durationMinutes = 0;
+			totalVolume = 0;
+			totalSets = 0;
+			totalReps = 0;
+			return;
+		}
+		durationSeconds -= exercise.getSeconds();
+		durationMinutes -= exercise.getSeconds() / 60;
+		totalVolume -= exercise.calculateVolume();
+		totalSets -= exercise.getSets();
+		totalReps -= exercise.getReps();
+	}
+
+	/**
+	 * Recalculates every running total from the stored exercises in one pass.
+	 * Adding and removing exercises keep the totals current on their own, so this is only
+	 * needed after the exercise list was changed in bulk.
+	 */
 	protected void updateDuration() {
-	    durationMinutes = calculateDurationRecursively(exercises.size() - 1);
+		durationSeconds = 0;
+		durationMinutes = 0;
+		totalVolume = 0;
+		totalSets = 0;
+		totalReps = 0;
+		for (AbstractExercise exercise : exercises) {
+			accumulate(exercise);
+		}
+		publish();
 	}
 
+	/**
+	 * Publishes the current name, exercises and totals as a new immutable version.
+	 * Called after every complete change, never between retracting and accumulating an edited exercise.
+	 */
+	void publish() {
+		WorkoutVersion next = new WorkoutVersion(this, workoutName, sessionStart, exercises.snapshot(), durationMinutes,
+				durationSeconds, totalVolume, totalSets, totalReps);
+		version = next;
+		for (VersionListener listener : versionListeners) {
+			listener.versionPublished(next);
+		}
+	}
 
+	/**
+	 * Returns the workout as text. The text is cached in the current version, so it is rendered
+	 * again only after the workout changes.
+	 */
 	@Override
 	public String toString() {
-		return String.format("Workout Name: %s, Duration: %d minutes, Exercises: %d", workoutName, durationMinutes,
-				exercises.size());
+		return version.toString();
 	}
 }
@@ -0,0 +1,338 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bookkeeping shared by the workout logs that are changed on one thread: the index of logged workouts by
+ * name, the published {@link WorkoutLogVersion}, the position of each workout in it, and the change
+ * listeners. Subclasses decide what is kept for a logged workout and keep their own indexes current
+ * through the hooks, which are called on the thread that changes the log.
+ */
+public abstract class AbstractWorkoutLogger implements InterfaceWorkoutLogger {
+	private static final int MIN_COMPACTED_SLOTS = 32; // Fewer empty slots are never worth a compaction
+
+	private final Map<String, AbstractWorkout> workouts = new HashMap<>(); // Workouts keyed by their current name
+	private List<AbstractWorkout> loggedView; // Cached read-only list, rebuilt only after a change
+	private final WorkoutChangeSupport changeSupport = new WorkoutChangeSupport();
+	private final WorkoutChangeListener relay = new ExerciseRelay(); // Passes exercise changes of logged workouts on
+	private volatile WorkoutLogVersion version = WorkoutLogVersion.empty(); // Latest published state of the log
+	private final Map<AbstractWorkout, Integer> positions = new IdentityHashMap<>(); // Slot of each workout in version
+	private final AbstractWorkout.VersionListener versionTracker = new VersionTracker();
+
+	/**
+	 * Logs a new workout, adding it to the list of workouts.
+	 * A workout whose name is already logged is ignored.
+	 *
+	 * @param workout The workout to be logged.
+	 */
+	@Override
+	public void logWorkout(AbstractWorkout workout) {
+		if (workout == null) {
+			throw new IllegalArgumentException("Workout cannot be null");
+		}
+		long start = WorkoutMetrics.start();
+		if (!workouts.containsKey(workout.getWorkoutName())) {
+			AbstractWorkout logged = adopt(workout);
+			workouts.put(logged.getWorkoutName(), logged);
+			loggedView = null;
+			positions.put(logged, version.slotCount());
+			WorkoutVersion loggedVersion = logged.snapshot();
+			version = version.plus(loggedVersion);
+			workoutLogged(logged, loggedVersion);
+			logged.addVersionListener(versionTracker);
+			logged.addChangeListener(relay);
+			changeSupport.fireWorkoutLogged(logged, loggedVersion);
+		}
+		WorkoutMetrics.record(WorkoutMetrics.Operation.LOG_WORKOUT, start);
+	}
+
+	/**
+	 * Logs several workouts in one step. Every workout is checked before any is logged. Workouts whose
+	 * name is already logged, or that repeat a name earlier in the batch, are ignored. The log version
+	 * is replaced once for the whole batch; listeners are still told about each logged workout.
+	 *
+	 * @param batch The workouts to log, in order.
+	 * @return The number of workouts that were logged.
+	 */
+	@Override
+	public int logWorkouts(Collection<? extends AbstractWorkout> batch) {
+		if (batch == null) {
+			throw new IllegalArgumentException("Workouts cannot be null");
+		}
+		for (AbstractWorkout workout : batch) {
+			if (workout == null) {
+				throw new IllegalArgumentException("Workout cannot be null");
+			}
+		}
+		long start = WorkoutMetrics.start();
+		List<AbstractWorkout> added = new ArrayList<>();
+		for (AbstractWorkout workout : batch) {
+			if (!workouts.containsKey(workout.getWorkoutName())) {
+				AbstractWorkout logged = adopt(workout);
+				workouts.put(logged.getWorkoutName(), logged);
+				positions.put(logged, version.slotCount() + added.size());
+				added.add(logged);
+			}
+		}
+		if (added.isEmpty()) {
+			WorkoutMetrics.record(WorkoutMetrics.Operation.LOG_WORKOUTS, start);
+			return 0;
+		}
+		loggedView = null;
+		List<WorkoutVersion> addedVersions = new ArrayList<>(added.size());
+		for (AbstractWorkout logged : added) {
+			addedVersions.add(logged.snapshot());
+		}
+		version = version.plusAll(addedVersions);
+		for (int i = 0; i < added.size(); i++) {
+			AbstractWorkout logged = added.get(i);
+			workoutLogged(logged, addedVersions.get(i));
+			logged.addVersionListener(versionTracker);
+			logged.addChangeListener(relay);
+		}
+		for (int i = 0; i < added.size(); i++) {
+			changeSupport.fireWorkoutLogged(added.get(i), addedVersions.get(i));
+		}
+		WorkoutMetrics.record(WorkoutMetrics.Operation.LOG_WORKOUTS, start);
+		return added.size();
+	}
+
+	/**
+	 * Registers a listener that is told about logged and removed workouts, and about
+	 * exercises added to or removed from any logged workout.
+	 *
+	 * @param listener The listener to add.
+	 */
+	@Override
+	public void addChangeListener(WorkoutChangeListener listener) {
+		changeSupport.addChangeListener(listener);
+	}
+
+	@Override
+	public void removeChangeListener(WorkoutChangeListener listener) {
+		changeSupport.removeChangeListener(listener);
+	}
+
+	/**
+	 * Looks up a logged workout by its name.
+	 *
+	 * @param workoutName The name of the workout.
+	 * @return The workout, or null if no workout with that name is logged.
+	 */
+	@Override
+	public AbstractWorkout findWorkout(String workoutName) {
+		return workoutName == null ? null : workouts.get(workoutName);
+	}
+
+	/**
+	 * Retrieves all logged workouts.
+	 *
+	 * @return An unmodifiable list of logged workouts to ensure data integrity.
+	 */
+	@Override
+	public List<AbstractWorkout> getLoggedWorkouts() {
+		if (loggedView == null) {
+			// The copy is shared until the next change, so callers never see a list that is being modified
+			List<AbstractWorkout> logged = new ArrayList<>(workouts.size());
+			for (WorkoutVersion workoutVersion : version.getWorkouts()) {
+				logged.add(workoutVersion.getWorkout()); // In logging order, which renames do not change
+			}
+			loggedView = Collections.unmodifiableList(logged);
+		}
+		return loggedView;
+	}
+
+	/**
+	 * Removes a workout from the log. The workout leaves an empty slot in the log version, and the slots are
+	 * compacted once they outnumber the logged workouts, so removal takes amortized O(log n).
+	 *
+	 * @param workout The workout to remove.
+	 * @return true if the workout was logged here and is now removed.
+	 */
+	@Override
+	public boolean removeWorkout(AbstractWorkout workout) {
+		if (workout == null) {
+			return false;
+		}
+		long start = WorkoutMetrics.start();
+		boolean removed = workouts.remove(workout.getWorkoutName(), workout);
+		if (removed) {
+			loggedView = null;
+			workout.removeVersionListener(versionTracker);
+			version = version.without(positions.remove(workout));
+			if (version.emptySlots() >= MIN_COMPACTED_SLOTS && version.emptySlots() > version.getNumberOfWorkouts()) {
+				compact();
+			}
+			workoutRemoved(workout);
+			workout.removeChangeListener(relay);
+			changeSupport.fireWorkoutRemoved(workout, workout.snapshot());
+		}
+		WorkoutMetrics.record(WorkoutMetrics.Operation.REMOVE_WORKOUT, start);
+		return removed;
+	}
+
+	/**
+	 * Returns the current state of the log in constant time. The snapshot never changes, so it can be
+	 * aggregated or exported on another thread while workouts keep being logged and edited.
+	 *
+	 * @return The latest log version.
+	 */
+	@Override
+	public WorkoutLogVersion snapshot() {
+		return version;
+	}
+
+	/**
+	 * Method to get the number of workouts.
+	 *
+	 * @return The number of logged workouts.
+	 */
+	@Override
+	public int getNumberOfWorkouts() {
+		return workouts.size();
+	}
+
+	// Drops the empty slots and moves every workout to its new slot
+	private void compact() {
+		version = version.compacted();
+		for (int slot = 0; slot < version.slotCount(); slot++) {
+			positions.put(version.slot(slot).getWorkout(), slot);
+		}
+	}
+
+	/**
+	 * Returns the workout to keep in the log for a workout that is being logged.
+	 *
+	 * @param workout A workout whose name is not logged yet.
+	 * @return The workout itself, or a copy that the log keeps instead.
+	 */
+	protected AbstractWorkout adopt(AbstractWorkout workout) {
+		return workout;
+	}
+
+	/**
+	 * Called once a workout is part of the log version, before listeners are told about it.
+	 *
+	 * @param workout The logged workout.
+	 * @param workoutVersion Its version in the log.
+	 */
+	protected void workoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+	}
+
+	/**
+	 * Called once a workout has left the log version, before listeners are told about it.
+	 *
+	 * @param workout The removed workout.
+	 */
+	protected void workoutRemoved(AbstractWorkout workout) {
+	}
+
+	/**
+	 * Called after a logged workout published a new version and the log version took it in.
+	 *
+	 * @param workoutVersion The new version.
+	 */
+	protected void workoutChanged(WorkoutVersion workoutVersion) {
+	}
+
+	/**
+	 * Called when an exercise was added to a logged workout, before listeners are told about it.
+	 *
+	 * @param workout The workout that changed.
+	 * @param exercise The stored exercise.
+	 * @param index The position of the exercise in the workout.
+	 */
+	protected void exerciseAdded(AbstractWorkout workout, AbstractExercise exercise, int index) {
+	}
+
+	/**
+	 * Called when an exercise was removed from a logged workout, before listeners are told about it.
+	 *
+	 * @param workout The workout that changed.
+	 * @param exercise The removed exercise.
+	 * @param index The position the exercise had.
+	 */
+	protected void exerciseRemoved(AbstractWorkout workout, AbstractExercise exercise, int index) {
+	}
+
+	/**
+	 * Called when an exercise of a logged workout changed, before listeners are told about it.
+	 *
+	 * @param workout The workout holding the exercise.
+	 * @param exercise The changed exercise.
+	 * @param index The position of the exercise in the workout.
+	 */
+	protected void exerciseModified(AbstractWorkout workout, AbstractExercise exercise, int index) {
+	}
+
+	// Keeps the log version and the name index in step with the logged workouts
+	private class VersionTracker implements AbstractWorkout.VersionListener {
+		// Swaps the new version of a logged workout into the log version, moving it to its new name if it was renamed
+		@Override
+		public void versionPublished(WorkoutVersion workoutVersion) {
+			AbstractWorkout workout = workoutVersion.getWorkout();
+			Integer slot = positions.get(workout);
+			if (slot == null) {
+				return;
+			}
+			String previousName = version.slot(slot).getWorkoutName();
+			if (!previousName.equals(workoutVersion.getWorkoutName())) {
+				workouts.remove(previousName, workout);
+				workouts.put(workoutVersion.getWorkoutName(), workout);
+				loggedView = null;
+			}
+			version = version.with(slot, workoutVersion);
+			workoutChanged(workoutVersion);
+		}
+
+		@Override
+		public void checkName(AbstractWorkout workout, String workoutName) {
+			AbstractWorkout holder = workouts.get(workoutName);
+			if (holder != null && holder != workout) {
+				throw new IllegalArgumentException("A workout named " + workoutName + " is already logged");
+			}
+		}
+	}
+
+	// Applies exercise changes from logged workouts through the hooks, then passes them and renames on to this logger's listeners
+	private class ExerciseRelay implements WorkoutChangeListener {
+		@Override
+		public void workoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+		}
+
+		@Override
+		public void workoutRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+		}
+
+		@Override
+		public void exerciseAdded(AbstractWorkout workout, WorkoutVersion workoutVersion,
+				AbstractExercise exercise, int index) {
+			AbstractWorkoutLogger.this.exerciseAdded(workout, exercise, index);
+			changeSupport.fireExerciseAdded(workout, workoutVersion, exercise, index);
+		}
+
+		@Override
+		public void exerciseRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion,
+				AbstractExercise exercise, int index) {
+			AbstractWorkoutLogger.this.exerciseRemoved(workout, exercise, index);
+			changeSupport.fireExerciseRemoved(workout, workoutVersion, exercise, index);
+		}
+
+		@Override
+		public void exerciseModified(AbstractWorkout workout, WorkoutVersion workoutVersion,
+				AbstractExercise exercise, int index) {
+			AbstractWorkoutLogger.this.exerciseModified(workout, exercise, index);
+			changeSupport.fireExerciseModified(workout, workoutVersion, exercise, index);
+		}
+
+		// The name index was moved when the renamed workout published its version
+		@Override
+		public void workoutModified(AbstractWorkout workout, WorkoutVersion workoutVersion, String previousName) {
+			changeSupport.fireWorkoutModified(workout, workoutVersion, previousName);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/**
+ * Flyweight exercise that reads and writes one row of an {@link ExerciseColumns} store. A view remembers
+ * how many removals the store had seen when it was taken and throws once another removal has moved the rows.
+ */
+public class ColumnarExercise extends ConcreteExercise {
+    private final ExerciseColumns columns;
+    private final int index;
+    private final int removals; // Removals from the store before this view was taken
+
+    /**
+     * Constructs a view over a row.
+     * @param columns The store holding the values.
+     * @param index The row index.
+     */
+    ColumnarExercise(ExerciseColumns columns, int index) {
+        super();
+        this.columns = columns;
+        this.index = index;
+        this.removals = columns.removals();
+    }
+
+    ExerciseColumns columns() {
+        return columns;
+    }
+
+    int index() {
+        return index;
+    }
+
+    int removals() {
+        return removals;
+    }
+
+    @Override
+    public ExerciseType getType() {
+        columns.checkView(index, removals);
+        return columns.type(index);
+    }
+
+    @Override
+    public int getReps() {
+        columns.checkView(index, removals);
+        return columns.reps(index);
+    }
+
+    @Override
+    public int getSets() {
+        columns.checkView(index, removals);
+        return columns.sets(index);
+    }
+
+    @Override
+    public double getWeight() {
+        columns.checkView(index, removals);
+        return columns.weight(index);
+    }
+
+    @Override
+    public int getSeconds() {
+        columns.checkView(index, removals);
+        return columns.seconds(index);
+    }
+
+    /**
+     * Rejects changes through a view over rows that are no longer the workout's, such as the cached rows of
+     * a stored workout that was evicted since the view was taken, and through a view that went stale.
+     */
+    @Override
+    protected void checkWritable() {
+        columns.checkWritable();
+        columns.checkView(index, removals);
+    }
+
+    @Override
+    protected void storeType(ExerciseType type) {
+        columns.setType(index, type);
+    }
+
+    @Override
+    protected void storeReps(int reps) {
+        columns.setReps(index, reps);
+    }
+
+    @Override
+    protected void storeSets(int sets) {
+        columns.setSets(index, sets);
+    }
+
+    @Override
+    protected void storeWeight(double weight) {
+        columns.setWeight(index, weight);
+    }
+
+    @Override
+    protected void storeSeconds(int seconds) {
+        columns.setSeconds(index, seconds);
+    }
+
+    /**
+     * Two views are equal when they were taken between the same removals and point at the same row of the
+     * same store.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ColumnarExercise)) {
+            return false;
+        }
+        ColumnarExercise other = (ColumnarExercise) o;
+        return columns == other.columns && index == other.index && removals == other.removals;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(columns) * 31 + index;
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Workout that keeps its exercises in an {@link ExerciseColumns} store instead of one object per exercise.
+ * Suited to large imported histories; exercises handed out are views over the store.
+ */
+public class ColumnarWorkout extends AbstractWorkout {
+    private final ExerciseColumns columns;
+
+    public ColumnarWorkout(String workoutName) {
+        this(workoutName, new ExerciseColumns());
+    }
+
+    private ColumnarWorkout(String workoutName, ExerciseColumns columns) {
+        super(workoutName, columns);
+        this.columns = columns;
+        columns.setOwner(this);
+    }
+
+    /**
+     * Removes the row matching the exercise, either a view over this workout or an exercise with the same values.
+     *
+     * @param exercise The exercise to remove.
+     * @return true if a matching row was removed.
+     */
+    @Override
+    public boolean removeExercise(AbstractExercise exercise) {
+        return removeStoredExercise(exercise);
+    }
+
+    /**
+     * Sums the volume of every row of one exercise in a primitive loop.
+     *
+     * @param exerciseName The exercise name.
+     * @return The total volume for that exercise.
+     */
+    public double volumeOf(String exerciseName) {
+        return columns.volumeOf(exerciseName);
+    }
+
+    /**
+     * Returns the underlying store, for scans that work on the primitive columns directly.
+     *
+     * @return The exercise store.
+     */
+    public ExerciseColumns getColumns() {
+        return columns;
+    }
+}
@@ -12,6 +12,13 @@ public class ConcreteExercise extends AbstractExercise {
         super(name, reps, sets, weight, seconds);
     }
 
+    /**
+     * Constructs an exercise whose values are kept elsewhere by a subclass.
+     */
+    protected ConcreteExercise() {
+        super();
+    }
+
     /**
      * Calculate the exercise volume as the product of weight, reps, and sets.
      * @return The calculated volume of the exercise.
@@ -22,12 +29,17 @@ public class ConcreteExercise extends AbstractExercise {
     }
 
     /**
-     * Provides a detailed description of the exercise, formatting it for readability.
-     * @return A formatted string describing the exercise.
+     * Appends a detailed description of the exercise, formatted for readability.
+     * @param sb The builder to append to.
+     * @return The builder.
      */
     @Override
-    public String getDescription() {
-        return String.format("Exercise %s: Perform %d sets of %d reps at %.2f kg for %d seconds each.",
-                             getName(), getSets(), getReps(), getWeight(), getSeconds());
+    public StringBuilder appendDescriptionTo(StringBuilder sb) {
+        sb.append("Exercise ").append(getName())
+          .append(": Perform ").append(getSets())
+          .append(" sets of ").append(getReps())
+          .append(" reps at ");
+        return TextFormat.appendFixed(sb, getWeight(), 2)
+          .append(" kg for ").append(getSeconds()).append(" seconds each.");
     }
 }
@@ -10,11 +10,13 @@ import java.awt.event.ActionEvent;
 public class ConcreteGui extends JFrame implements InterfaceGui {
     private static final long serialVersionUID = 1L;
 
-    private JTextArea displayArea;
+    private JTable workoutTable;
+    private WorkoutTableModel tableModel; // Rows are read lazily and updated by change events
     private JTextField nameField, repsField, setsField, weightField, secondsField;
-    private JButton addButton, clearButton, displayWorkoutsButton, exportDataButton, viewStatsButton, addWorkoutButton;
+    private JButton addButton, clearButton, displayWorkoutsButton, exportDataButton, importDataButton, viewStatsButton, addWorkoutButton;
     private Controller controller;
     private JComboBox<String> workoutList;
+    private JProgressBar progressBar;
 
     /**
      * Constructor for ConcreteGui. Initializes the controller and sets the frame title.
@@ -42,18 +44,27 @@ public class ConcreteGui extends JFrame implements InterfaceGui {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
 
-        displayArea = new JTextArea();
-        displayArea.setEditable(false);
-        JScrollPane scrollPane = new JScrollPane(displayArea);
+        tableModel = new WorkoutTableModel();
+        workoutTable = new JTable(tableModel);
+        workoutTable.setFillsViewportHeight(true);
+        JScrollPane scrollPane = new JScrollPane(workoutTable);
 
         JPanel formPanel = createFormPanel();
         JPanel buttonPanel = createButtonPanel();
 
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.add(buttonPanel, BorderLayout.CENTER);
+        southPanel.add(progressBar, BorderLayout.SOUTH);
+
         add(scrollPane, BorderLayout.CENTER);
         add(formPanel, BorderLayout.NORTH);
-        add(buttonPanel, BorderLayout.SOUTH);
+        add(southPanel, BorderLayout.SOUTH);
 
         setVisible(true);
+        controller.subscribe(tableModel);
     }
 
     /**
@@ -70,8 +81,9 @@ public class ConcreteGui extends JFrame implements InterfaceGui {
             int seconds = parseIntField(secondsField.getText(), "Seconds");
 
             AbstractExercise exercise = new ConcreteExercise(name, reps, sets, weight, seconds);
-            controller.addExercise(exercise);
-            JOptionPane.showMessageDialog(this, "Exercise added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+            // The controller reports a failure itself; success is confirmed once the exercise is really added
+            controller.addExercise(exercise).thenRun(() -> SwingUtilities.invokeLater(() ->
+                    JOptionPane.showMessageDialog(this, "Exercise added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE)));
         } catch (IllegalArgumentException iae) {
             JOptionPane.showMessageDialog(this, iae.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
         } catch (Exception ex) {
@@ -126,7 +138,7 @@ public class ConcreteGui extends JFrame implements InterfaceGui {
 	    JPanel formPanel = new JPanel(new GridLayout(6, 2)); 
 
 	    formPanel.add(new JLabel("Select Workout:"));  
-	    workoutList = new JComboBox<>();  
+	    workoutList = new JComboBox<>(tableModel.getWorkoutNames());
 
 	    formPanel.add(workoutList); 
 
@@ -134,6 +146,8 @@ public class ConcreteGui extends JFrame implements InterfaceGui {
 	    nameField = new JTextField();  
 
 	    nameField.setText("");  
+	    // Suggests names already logged, so the same exercise is not logged under several spellings
+	    new ExerciseNameCompleter(nameField, (prefix, limit) -> controller.suggestExerciseNames(prefix, limit));
 
 	    formPanel.add(nameField);  
 
@@ -265,6 +279,7 @@ public class ConcreteGui extends JFrame implements InterfaceGui {
 	    clearButton = new JButton("Clear");
 	    displayWorkoutsButton = new JButton("Display Workouts");
 	    exportDataButton = new JButton("Export Data");
+	    importDataButton = new JButton("Import Data");
 	    viewStatsButton = new JButton("View Stats");
 
 	    // Add action listeners to buttons
@@ -273,6 +288,7 @@ public class ConcreteGui extends JFrame implements InterfaceGui {
 	    clearButton.addActionListener(e -> clear());
 	    displayWorkoutsButton.addActionListener(this::displayWorkoutsActionPerformed);
 	    exportDataButton.addActionListener(e -> controller.exportWorkoutData());
+	    importDataButton.addActionListener(e -> importDataAction());
 	    viewStatsButton.addActionListener(e -> controller.displayStatistics());
 
 	    // Add buttons to the panel
@@ -281,11 +297,23 @@ public class ConcreteGui extends JFrame implements InterfaceGui {
 	    buttonPanel.add(clearButton);
 	    buttonPanel.add(displayWorkoutsButton);
 	    buttonPanel.add(exportDataButton);
+	    buttonPanel.add(importDataButton);
 	    buttonPanel.add(viewStatsButton);
 
 	    return buttonPanel;  
 	}
 
+	/**
+	 * Lets the user pick a CSV or JSON-lines file and hands it to the controller for import.
+	 * The import runs in the background; the display is refreshed once it completes.
+	 */
+	private void importDataAction() {
+	    JFileChooser chooser = new JFileChooser();
+	    if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+	        controller.importWorkoutData(chooser.getSelectedFile());
+	    }
+	}
+
 	/**
 	 * Responds to the display workouts button action by calling the controller's method to display all workouts.
 	 * This method is typically called when the user clicks the 'Display Workouts' button.
@@ -306,17 +334,15 @@ public class ConcreteGui extends JFrame implements InterfaceGui {
 
 	/**
 	 * Updates the GUI components with current data from the controller.
-	 * This includes updating the text in the display area and refreshing the workout list dropdown.
-	 * It is called whenever the underlying data changes that need to be reflected in the GUI.
+	 * The table applies each batch of changes itself, so this only repaints the visible rows.
 	 */
 	@Override
 	public void update() {
-	    displayArea.setText(controller.getWorkoutsDisplayText());  
-
-	    workoutList.removeAllItems();  
-	    for (String workoutName : controller.getWorkoutNames()) {  
-	        workoutList.addItem(workoutName); 
+	    if (!SwingUtilities.isEventDispatchThread()) {
+	        SwingUtilities.invokeLater(this::update);
+	        return;
 	    }
+	    workoutTable.repaint();
 	}
 	/**
 	 * Displays a message to the user using a dialog box.
@@ -326,13 +352,36 @@ public class ConcreteGui extends JFrame implements InterfaceGui {
 
 	@Override
 	public void showMessage(String message) {
+	    if (!SwingUtilities.isEventDispatchThread()) {
+	        SwingUtilities.invokeLater(() -> showMessage(message));
+	        return;
+	    }
 	    JOptionPane.showMessageDialog(this, message);  
 	}
 
 	/**
-	 * Clears all the user input fields and the display area in the GUI.
+	 * Shows the progress of a background task in the progress bar below the buttons.
+	 * The bar is hidden again once the task reports completion. Safe to call from any thread.
+	 * @param task a short description of the task
+	 * @param completed units of work completed so far
+	 * @param total total units of work
+	 */
+	@Override
+	public void showProgress(String task, int completed, int total) {
+	    if (!SwingUtilities.isEventDispatchThread()) {
+	        SwingUtilities.invokeLater(() -> showProgress(task, completed, total));
+	        return;
+	    }
+	    progressBar.setMaximum(Math.max(total, 1));
+	    progressBar.setValue(completed);
+	    progressBar.setString(task + " " + completed + " / " + total);
+	    progressBar.setVisible(completed < total);
+	}
+
+	/**
+	 * Clears all the user input fields and the table selection in the GUI.
 	 * This method resets the text fields for name, reps, sets, weight, and seconds to empty strings,
-	 * and clears any text displayed in the main display area.
+	 * and clears any rows selected in the workout table.
 	 */
 	@Override
 	public void clear() {
@@ -341,6 +390,6 @@ public class ConcreteGui extends JFrame implements InterfaceGui {
 		setsField.setText("");
 		weightField.setText("");
 		secondsField.setText("");
-		displayArea.setText("");
+		workoutTable.clearSelection();
 	}
 }
@@ -1,3 +1,4 @@
+import java.time.Instant;
 import java.util.List;
 
 public class ConcreteWorkout extends AbstractWorkout implements InterfaceWorkout {
@@ -6,6 +7,10 @@ public class ConcreteWorkout extends AbstractWorkout implements InterfaceWorkout
         super(workoutName);
     }
 
+    public ConcreteWorkout(String workoutName, Instant sessionStart) {
+        super(workoutName, sessionStart);
+    }
+
     /**
      * Adds an exercise to the workout. Overrides to include specific behavior if needed.
      *
@@ -20,11 +25,7 @@ public class ConcreteWorkout extends AbstractWorkout implements InterfaceWorkout
    
     @Override
     public boolean removeExercise(AbstractExercise exercise) {
-        boolean removed = getExercises().remove(exercise);
-        if (removed) {
-            updateDuration();  // Recalculate duration if exercise is removed
-        }
-        return removed;
+        return removeStoredExercise(exercise);  // Totals are adjusted for the removed exercise only
     }
 
     //Getters Setters
@@ -0,0 +1,422 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe workout log for several producers logging at once.
+ *
+ * Workouts are spread over lock stripes by name, so writers to different stripes do not block each other.
+ * Renaming a logged workout moves it to the stripe of its new name in two steps, each holding both stripe
+ * locks: checking the name reserves it, or rejects the rename if the name is logged already, and the
+ * version published under the new name completes the move. A rename rejected by another log holding the
+ * same workout releases the reservation, so the workout stays under its old name. A reserved name cannot
+ * be logged but is not found either. Each logged workout gets a sequence number that fixes the logging
+ * order. {@link #getLoggedWorkouts()} takes every stripe lock for the duration of a copy, so it returns the
+ * exact set of workouts logged at one instant; the copy is reused until the log changes again.
+ *
+ * Listeners are notified outside the locks, one notification at a time and in the order the changes were
+ * made: each change queues its notification while it still holds its lock, and whichever writer finds the
+ * queue idle delivers everything queued. A notification may therefore run on another writer's thread, and
+ * a writer may return before its own notification has been delivered by a writer that is already
+ * delivering. A listener may change the log; its notifications are delivered after the current one. Each
+ * notification carries the workout version taken when it was queued, not when it is delivered.
+ */
+public class ConcurrentWorkoutLogger implements InterfaceWorkoutLogger {
+    private static final int STRIPES = 16; // Power of two
+
+    private final Stripe[] stripes;
+    private final AtomicLong sequence = new AtomicLong(); // Next logging position
+    private final AtomicLong version = new AtomicLong(); // Bumped on every change
+    private final AtomicInteger count = new AtomicInteger();
+    private volatile Snapshot snapshot; // Last copy handed out by getLoggedWorkouts
+    private final WorkoutChangeSupport changeSupport = new WorkoutChangeSupport();
+    private final WorkoutChangeListener relay = new ExerciseRelay();
+    private final AbstractWorkout.VersionListener renamer = new Renamer();
+    private final Map<AbstractWorkout, String> renaming = new ConcurrentHashMap<>(); // Old name of each reserved rename
+    private final Queue<Runnable> notifications = new ConcurrentLinkedQueue<>(); // Queued in the order of the changes
+    private final AtomicBoolean delivering = new AtomicBoolean(); // Set while one thread delivers notifications
+
+    /**
+     * Constructs an empty log.
+     */
+    public ConcurrentWorkoutLogger() {
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.snapshot = new Snapshot(0, Collections.emptyList());
+    }
+
+    /**
+     * Logs a workout unless a workout with the same name is already logged.
+     *
+     * @param workout The workout to be logged.
+     */
+    @Override
+    public void logWorkout(AbstractWorkout workout) {
+        if (workout == null) {
+            throw new IllegalArgumentException("Workout cannot be null");
+        }
+        long start = WorkoutMetrics.start();
+        insert(workout);
+        WorkoutMetrics.record(WorkoutMetrics.Operation.LOG_WORKOUT, start);
+    }
+
+    // Logs a workout unless its name is taken and notifies listeners; returns true if it was logged
+    private boolean insert(AbstractWorkout workout) {
+        String name = workout.getWorkoutName();
+        Stripe stripe = stripeFor(name);
+        synchronized (stripe) {
+            if (stripe.workouts.containsKey(name)) {
+                return false;
+            }
+            stripe.workouts.put(name, new Entry(workout, sequence.getAndIncrement()));
+            count.incrementAndGet();
+            version.incrementAndGet();
+            workout.addVersionListener(renamer);
+            workout.addChangeListener(relay); // Under the lock, so exercise changes queue after the logging
+            WorkoutVersion loggedVersion = workout.snapshot(); // Before any exercise change the relay queues after it
+            notifications.add(() -> changeSupport.fireWorkoutLogged(workout, loggedVersion));
+        }
+        deliverNotifications();
+        return true;
+    }
+
+    /**
+     * Logs several workouts. Every workout is checked before any is logged; workouts whose name is
+     * already logged are ignored. Other threads may see the batch partly logged.
+     *
+     * @param batch The workouts to log, in order.
+     * @return The number of workouts that were logged.
+     */
+    @Override
+    public int logWorkouts(Collection<? extends AbstractWorkout> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Workouts cannot be null");
+        }
+        for (AbstractWorkout workout : batch) {
+            if (workout == null) {
+                throw new IllegalArgumentException("Workout cannot be null");
+            }
+        }
+        long start = WorkoutMetrics.start();
+        int logged = 0;
+        for (AbstractWorkout workout : batch) {
+            if (insert(workout)) {
+                logged++;
+            }
+        }
+        WorkoutMetrics.record(WorkoutMetrics.Operation.LOG_WORKOUTS, start);
+        return logged;
+    }
+
+    @Override
+    public AbstractWorkout findWorkout(String workoutName) {
+        if (workoutName == null) {
+            return null;
+        }
+        Stripe stripe = stripeFor(workoutName);
+        synchronized (stripe) {
+            Entry entry = stripe.workouts.get(workoutName);
+            return entry == null || workoutName.equals(entry.reserved) ? null : entry.workout;
+        }
+    }
+
+    @Override
+    public boolean removeWorkout(AbstractWorkout workout) {
+        if (workout == null) {
+            return false;
+        }
+        long start = WorkoutMetrics.start();
+        boolean removed;
+        String name;
+        do {
+            name = workout.getWorkoutName();
+            removed = removeFrom(name, workout);
+        } while (!removed && !name.equals(workout.getWorkoutName())); // Renamed on another thread meanwhile
+        if (removed) {
+            deliverNotifications();
+        }
+        WorkoutMetrics.record(WorkoutMetrics.Operation.REMOVE_WORKOUT, start);
+        return removed;
+    }
+
+    /**
+     * Returns the workouts logged at one instant, in logging order.
+     *
+     * @return An unmodifiable list that does not change when the log does.
+     */
+    @Override
+    public List<AbstractWorkout> getLoggedWorkouts() {
+        Snapshot current = snapshot;
+        if (current.version == version.get()) {
+            return current.workouts;
+        }
+        List<Entry> entries = new ArrayList<>();
+        long copiedVersion = lockAllAndCopy(entries, 0, false);
+        entries.sort(Comparator.comparingLong(entry -> entry.sequence));
+        List<AbstractWorkout> workouts = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            workouts.add(entry.workout);
+        }
+        current = new Snapshot(copiedVersion, Collections.unmodifiableList(workouts));
+        snapshot = current;
+        return current.workouts;
+    }
+
+    /**
+     * Returns the state of every logged workout at one instant. Unlike {@link WorkoutLogger#snapshot()}
+     * this is not constant time: the versions are gathered while every stripe lock is held.
+     *
+     * @return An immutable log version.
+     */
+    @Override
+    public WorkoutLogVersion snapshot() {
+        List<Entry> entries = new ArrayList<>();
+        lockAllAndCopy(entries, 0, true);
+        entries.sort(Comparator.comparingLong(entry -> entry.sequence));
+        WorkoutLogVersion result = WorkoutLogVersion.empty();
+        for (Entry entry : entries) {
+            result = result.plus(entry.version);
+        }
+        return result;
+    }
+
+    @Override
+    public int getNumberOfWorkouts() {
+        return count.get();
+    }
+
+    @Override
+    public void addChangeListener(WorkoutChangeListener listener) {
+        changeSupport.addChangeListener(listener);
+    }
+
+    @Override
+    public void removeChangeListener(WorkoutChangeListener listener) {
+        changeSupport.removeChangeListener(listener);
+    }
+
+    // Holds stripes index..STRIPES-1 locked while copying; returns the version seen with all of them held.
+    // With versions set, each copied entry also records the workout version current at that instant.
+    private long lockAllAndCopy(List<Entry> entries, int index, boolean versions) {
+        if (index == STRIPES) {
+            return version.get();
+        }
+        synchronized (stripes[index]) {
+            long copiedVersion = lockAllAndCopy(entries, index + 1, versions);
+            for (Map.Entry<String, Entry> mapping : stripes[index].workouts.entrySet()) {
+                Entry entry = mapping.getValue();
+                if (mapping.getKey().equals(entry.reserved)) {
+                    continue; // Also filed under its current name
+                }
+                entries.add(versions ? new Entry(entry.workout, entry.sequence, entry.workout.snapshot()) : entry);
+            }
+            return copiedVersion;
+        }
+    }
+
+    // Renames keep every workout under its current name, so the workout is found by name. A name reserved
+    // for a rename in progress is released as well.
+    private boolean removeFrom(String name, AbstractWorkout workout) {
+        Stripe stripe = stripeFor(name);
+        Entry entry;
+        String otherName;
+        synchronized (stripe) {
+            entry = stripe.workouts.get(name);
+            if (entry == null || entry.workout != workout) {
+                return false;
+            }
+            stripe.workouts.remove(name);
+            otherName = name.equals(entry.reserved) ? renaming.get(workout) : entry.reserved;
+            count.decrementAndGet();
+            version.incrementAndGet();
+            workout.removeVersionListener(renamer);
+            workout.removeChangeListener(relay);
+            WorkoutVersion removedVersion = workout.snapshot();
+            notifications.add(() -> changeSupport.fireWorkoutRemoved(workout, removedVersion));
+        }
+        renaming.remove(workout);
+        if (otherName != null) {
+            Stripe other = stripeFor(otherName);
+            synchronized (other) {
+                other.workouts.remove(otherName, entry);
+            }
+        }
+        return true;
+    }
+
+    // Files a logged workout under its new name as well, holding both stripe locks in index order as
+    // lockAllAndCopy does; throws if another workout holds the name
+    private void reserve(AbstractWorkout workout, String newName) {
+        String oldName = workout.getWorkoutName();
+        int from = stripeIndex(oldName);
+        int to = stripeIndex(newName);
+        synchronized (stripes[Math.min(from, to)]) {
+            synchronized (stripes[Math.max(from, to)]) {
+                Entry entry = stripes[from].workouts.get(oldName);
+                if (entry == null || entry.workout != workout) {
+                    return; // Removed meanwhile
+                }
+                Entry holder = stripes[to].workouts.get(newName);
+                if (holder != null && holder != entry) {
+                    throw new IllegalArgumentException("A workout named " + newName + " is already logged");
+                }
+                stripes[to].workouts.put(newName, entry); // Keeps its sequence, so the logging order holds
+                entry.reserved = newName;
+                renaming.put(workout, oldName);
+            }
+        }
+    }
+
+    // Completes a reserved rename by dropping one of the workout's two names: the old one once the workout
+    // took the new name, or the reserved one if the rename was rejected
+    private void release(AbstractWorkout workout, String newName, boolean renamed) {
+        String oldName = renaming.remove(workout);
+        if (oldName == null) {
+            return; // Nothing reserved, or removed meanwhile
+        }
+        int from = stripeIndex(oldName);
+        int to = stripeIndex(newName);
+        synchronized (stripes[Math.min(from, to)]) {
+            synchronized (stripes[Math.max(from, to)]) {
+                Entry entry = stripes[to].workouts.get(newName);
+                if (entry == null || entry.workout != workout || !newName.equals(entry.reserved)) {
+                    return;
+                }
+                entry.reserved = null;
+                if (renamed) {
+                    stripes[from].workouts.remove(oldName, entry);
+                } else {
+                    stripes[to].workouts.remove(newName);
+                }
+            }
+        }
+    }
+
+    // Delivers queued notifications unless another thread is already doing so. The queue is checked again
+    // after delivery stops, so a notification queued just as the other thread finished is not left behind.
+    private void deliverNotifications() {
+        while (!notifications.isEmpty() && delivering.compareAndSet(false, true)) {
+            try {
+                Runnable notification;
+                while ((notification = notifications.poll()) != null) {
+                    notification.run();
+                }
+            } finally {
+                delivering.set(false);
+            }
+        }
+    }
+
+    private Stripe stripeFor(String name) {
+        return stripes[stripeIndex(name)];
+    }
+
+    private static int stripeIndex(String name) {
+        int hash = name.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static final class Stripe {
+        final Map<String, Entry> workouts = new HashMap<>();
+    }
+
+    private static final class Entry {
+        final AbstractWorkout workout;
+        final long sequence;
+        final WorkoutVersion version; // Only set on entries copied by snapshot()
+        String reserved; // New name of a rename in progress; guarded by the locks of both names' stripes
+
+        Entry(AbstractWorkout workout, long sequence) {
+            this(workout, sequence, null);
+        }
+
+        Entry(AbstractWorkout workout, long sequence, WorkoutVersion version) {
+            this.workout = workout;
+            this.sequence = sequence;
+            this.version = version;
+        }
+    }
+
+    private static final class Snapshot {
+        final long version;
+        final List<AbstractWorkout> workouts;
+
+        Snapshot(long version, List<AbstractWorkout> workouts) {
+            this.version = version;
+            this.workouts = workouts;
+        }
+    }
+
+    // Moves a logged workout when it is renamed. The new name is reserved when it is checked, before the
+    // workout takes it, so no other thread can log that name in between; the old name is dropped once the
+    // workout publishes under the new one, and the reservation is dropped if another log rejects the name.
+    private class Renamer implements AbstractWorkout.VersionListener {
+        @Override
+        public void versionPublished(WorkoutVersion workoutVersion) {
+            // Versions themselves are gathered when a snapshot is taken; only a reserved rename is completed here
+            if (!renaming.isEmpty()) {
+                release(workoutVersion.getWorkout(), workoutVersion.getWorkoutName(), true);
+            }
+        }
+
+        @Override
+        public void checkName(AbstractWorkout workout, String workoutName) {
+            reserve(workout, workoutName);
+        }
+
+        @Override
+        public void nameRejected(AbstractWorkout workout, String workoutName) {
+            release(workout, workoutName, false);
+        }
+    }
+
+    // Queues exercise changes and renames of logged workouts for this logger's listeners
+    private class ExerciseRelay implements WorkoutChangeListener {
+        @Override
+        public void workoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        }
+
+        @Override
+        public void workoutRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        }
+
+        @Override
+        public void exerciseAdded(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                  AbstractExercise exercise, int index) {
+            notifications.add(() -> changeSupport.fireExerciseAdded(workout, workoutVersion, exercise, index));
+            deliverNotifications();
+        }
+
+        @Override
+        public void exerciseRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                    AbstractExercise exercise, int index) {
+            notifications.add(() -> changeSupport.fireExerciseRemoved(workout, workoutVersion, exercise, index));
+            deliverNotifications();
+        }
+
+        @Override
+        public void exerciseModified(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                     AbstractExercise exercise, int index) {
+            notifications.add(() -> changeSupport.fireExerciseModified(workout, workoutVersion, exercise, index));
+            deliverNotifications();
+        }
+
+        @Override
+        public void workoutModified(AbstractWorkout workout, WorkoutVersion workoutVersion, String previousName) {
+            notifications.add(() -> changeSupport.fireWorkoutModified(workout, workoutVersion, previousName));
+            deliverNotifications();
+        }
+    }
+}
@@ -1,17 +1,112 @@
 import java.io.*;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
 
+/**
+ * Connects the workout log to the GUI.
+ *
+ * Every operation returns a future. A controller made with the constructor runs operations on the
+ * calling thread, except exports and the parsing of imports, so the futures are usually complete on return.
+ * It expects to be called on the event dispatch thread, where the parsed import is then added to the log.
+ * A controller made with {@link #asynchronous} runs every change to the log on a single model thread,
+ * builds display text and statistics from log snapshots on worker threads and hands the results to the
+ * GUI on the event dispatch thread. A display request that is superseded by a newer one of the same
+ * kind is cancelled, and its result is never shown.
+ *
+ * Changes to the log reach the GUI through a {@link WorkoutEventBus}: views subscribe with
+ * {@link #subscribe}, and {@link InterfaceGui#update()} is called once per delivered batch, not once per change.
+ */
 public class Controller {
     private InterfaceWorkoutLogger workoutLogger; // Model to log workouts
     private InterfaceGui gui; // View to interact with the user
+    private final ExecutorService modelExecutor; // Runs every change to the log, one at a time; null runs them inline
+    private final ExecutorService backgroundExecutor; // Runs exports and parses imports
+    private final Executor importExecutor; // Adds parsed imports to the log on the thread that changes it; null imports inline
+    private final Executor readExecutor; // Builds display text and statistics from snapshots
+    private final Executor uiExecutor; // Runs GUI updates
+    private final Map<String, CompletableFuture<?>> latestRequests = new ConcurrentHashMap<>(); // Newest request per kind
+    private final WorkoutExporter exporter = new WorkoutExporter(); // Used by one export at a time
+    private final WorkoutEventBus eventBus; // Delivers batches of changes, on the event dispatch thread unless headless
+    private final ExerciseNameIndex exerciseNames = new ExerciseNameIndex(); // Logged names for completion
 
     /**
      * Constructor to initialize the Controller with its dependencies.
      */
     public Controller(InterfaceWorkoutLogger workoutLogger, InterfaceGui gui) {
+        this(workoutLogger, gui, false, SwingUtilities::invokeLater, SwingUtilities::invokeLater);
+    }
+
+    private Controller(InterfaceWorkoutLogger workoutLogger, InterfaceGui gui, boolean asynchronous,
+                       Executor eventExecutor, Executor changeThread) {
         this.workoutLogger = workoutLogger;
         this.gui = gui;
+        if (asynchronous) {
+            this.modelExecutor = Executors.newSingleThreadExecutor(daemonThreads("workout-model"));
+            this.backgroundExecutor = Executors.newCachedThreadPool(daemonThreads("workout-worker"));
+            this.readExecutor = backgroundExecutor;
+            this.uiExecutor = eventExecutor;
+            this.importExecutor = modelExecutor;
+        } else {
+            this.modelExecutor = null;
+            this.backgroundExecutor = Executors.newSingleThreadExecutor(daemonThreads("workout-background"));
+            this.readExecutor = Runnable::run;
+            this.uiExecutor = Runnable::run;
+            this.importExecutor = changeThread;
+        }
+        this.eventBus = new WorkoutEventBus(eventExecutor, WorkoutEventBus.DEFAULT_FRAME_MILLIS);
+        workoutLogger.addChangeListener(eventBus);
+        workoutLogger.addChangeListener(exerciseNames);
+        exerciseNames.addAll(workoutLogger.getLoggedWorkouts()); // Workouts restored before the controller existed
+        eventBus.subscribe(new WorkoutEventBus.Subscriber() {
+            @Override
+            public void initialState(WorkoutLogVersion logVersion) {
+            }
+
+            @Override
+            public void eventsDelivered(List<WorkoutEvent> events) {
+                gui.update();
+            }
+        }, workoutLogger.snapshot());
+    }
+
+    /**
+     * Creates a controller that keeps all work off the calling thread, which is normally the event dispatch thread.
+     *
+     * @param workoutLogger The log; from now on it is only changed on the controller's model thread.
+     * @param gui The view; it is only updated on the event dispatch thread.
+     * @return The controller.
+     */
+    public static Controller asynchronous(InterfaceWorkoutLogger workoutLogger, InterfaceGui gui) {
+        return new Controller(workoutLogger, gui, true, SwingUtilities::invokeLater, null);
+    }
+
+    /**
+     * Creates a synchronous controller that never touches AWT, for running without a display.
+     * Batches of changes are delivered to subscribers on the event bus's own thread.
+     *
+     * @param workoutLogger The log.
+     * @param gui The view, usually a {@link HeadlessGui}.
+     * @return The controller.
+     */
+    public static Controller headless(InterfaceWorkoutLogger workoutLogger, InterfaceGui gui) {
+        return new Controller(workoutLogger, gui, false, Runnable::run, null);
     }
 
     /**
@@ -25,111 +120,360 @@ public class Controller {
 
     /**
      * Adds a workout with the specified name.
+     *
+     * @return A future completed once the workout is logged.
      */
-    public void addWorkout(String name) {
-        try {
-            ConcreteWorkout workout = new ConcreteWorkout(name);
-            workoutLogger.logWorkout(workout);
-            gui.update();
-        } catch (Exception e) {
-            gui.showMessage("Failed to add workout: " + e.getMessage());
-        }
+    public CompletableFuture<Void> addWorkout(String name) {
+        long start = WorkoutMetrics.start();
+        CompletableFuture<Void> result = onModel(() -> workoutLogger.logWorkout(new ConcreteWorkout(name)))
+            .whenComplete((ignored, error) -> {
+                if (error != null) {
+                    gui.showMessage("Failed to add workout: " + causeOf(error).getMessage());
+                }
+            });
+        return WorkoutMetrics.timed(WorkoutMetrics.Operation.ADD_WORKOUT, start, result);
     }
 
     /**
-     * Adds an exercise to the current workout.
+     * Adds an exercise to the current workout, which is the workout selected when this is called.
+     *
+     * @return A future completed once the exercise is added, or failed if it could not be added.
      */
-    public void addExercise(AbstractExercise exercise) {
-        try {
-            ConcreteWorkout workout = getCurrentWorkout();
-            workout.addExercise(exercise);
-            workoutLogger.logWorkout(workout);
-            gui.update();
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
-            gui.showMessage("Failed to add exercise: " + e.getMessage());
-        }
+    public CompletableFuture<Void> addExercise(AbstractExercise exercise) {
+        long start = WorkoutMetrics.start();
+        String workoutName = gui.getSelectedWorkout();
+        CompletableFuture<Void> result = onModel(() -> findWorkout(workoutName).addExercise(exercise))
+            .whenComplete((ignored, error) -> {
+                if (error != null) {
+                    gui.showMessage("Failed to add exercise: " + causeOf(error).getMessage());
+                }
+            });
+        return WorkoutMetrics.timed(WorkoutMetrics.Operation.ADD_EXERCISE, start, result);
     }
 
     /**
-     * Retrieves the currently selected workout based on GUI selection.
+     * Adds several exercises to the current workout in one change, such as the sets of a workout template.
+     * The workout totals are updated once and the GUI is refreshed once for the whole batch.
+     *
+     * @return A future completed once the exercises are added, or failed if none could be added.
      */
-    private ConcreteWorkout getCurrentWorkout() {
+    public CompletableFuture<Void> addExercises(Collection<? extends AbstractExercise> exercises) {
+        long start = WorkoutMetrics.start();
         String workoutName = gui.getSelectedWorkout();
+        CompletableFuture<Void> result = onModel(() -> findWorkout(workoutName).addExercises(exercises))
+            .whenComplete((ignored, error) -> {
+                if (error != null) {
+                    gui.showMessage("Failed to add exercises: " + causeOf(error).getMessage());
+                }
+            });
+        return WorkoutMetrics.timed(WorkoutMetrics.Operation.ADD_EXERCISES, start, result);
+    }
 
-        for (AbstractWorkout workout : workoutLogger.getLoggedWorkouts()) {
-            if (workout.getWorkoutName().equals(workoutName)) {
-                return (ConcreteWorkout) workout;
-            }
+    /**
+     * Retrieves a logged workout by the name selected in the GUI.
+     */
+    private AbstractWorkout findWorkout(String workoutName) {
+        AbstractWorkout workout = workoutLogger.findWorkout(workoutName);
+        if (workout == null) {
+            throw new IllegalArgumentException("Workout not found");
         }
-        throw new IllegalArgumentException("Workout not found");
+        return workout;
     }
 
     /**
      * Displays all logged workouts in the GUI.
+     *
+     * @return A future completed with the text shown.
      */
-    public void displayWorkouts() {
-        StringBuilder workoutsDisplay = new StringBuilder();
-        for (AbstractWorkout workout : workoutLogger.getLoggedWorkouts()) {
-            workoutsDisplay.append(workout.toString()).append("\n");
-        }
-        gui.showMessage(workoutsDisplay.toString());
+    public CompletableFuture<String> displayWorkouts() {
+        long start = WorkoutMetrics.start();
+        CompletableFuture<String> result = latest("displayWorkouts", (logVersion, stale) -> {
+            StringBuilder workoutsDisplay = new StringBuilder();
+            List<WorkoutVersion> workouts = logVersion.getWorkouts();
+            for (int i = 0; i < workouts.size(); i++) {
+                checkCurrent(i, stale);
+                workoutsDisplay.append(workouts.get(i).toString()).append("\n");
+            }
+            return workoutsDisplay.toString();
+        }, gui::showMessage);
+        return WorkoutMetrics.timed(WorkoutMetrics.Operation.DISPLAY_WORKOUTS, start, result);
+    }
+
+    /**
+     * Exports all logged workouts and their exercises to a CSV file in the background.
+     */
+    public CompletableFuture<Long> exportWorkoutData() {
+        return exportWorkoutData(new File("WorkoutData" + WorkoutExporter.Format.CSV.getExtension()),
+                                 WorkoutExporter.Format.CSV, false);
+    }
+
+    /**
+     * Exports all logged workouts and their exercises in the background, reporting progress to the GUI.
+     * The log is snapshotted when the export is requested; changes made while it runs are not included.
+     *
+     * @return A future completed with the number of rows written.
+     */
+    public CompletableFuture<Long> exportWorkoutData(File file, WorkoutExporter.Format format, boolean gzip) {
+        long start = WorkoutMetrics.start();
+        CompletableFuture<Long> result = snapshot().thenApplyAsync(logVersion -> {
+            try {
+                long rows;
+                synchronized (exporter) {
+                    rows = exporter.export(logVersion, file.toPath(), format, gzip,
+                            (completed, total) -> gui.showProgress("Exporting", completed, total));
+                }
+                gui.showMessage("Data exported successfully to " + file.getAbsolutePath());
+                return rows;
+            } catch (IOException e) {
+                gui.showMessage("Failed to export data: " + e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        }, backgroundExecutor);
+        return WorkoutMetrics.timed(WorkoutMetrics.Operation.EXPORT, start, result);
     }
 
     /**
-     * Exports all logged workout data to a text file.
+     * Imports workouts and exercises from a CSV or JSON-lines file. The file is parsed in the background and
+     * added to the log in one step on the thread that changes it: the model thread, the event dispatch thread
+     * for a controller made with the constructor, or inline, parse included, for a headless controller.
+     *
+     * @return A future completed with the number of exercises imported.
      */
-    public void exportWorkoutData() {
-        File file = new File("WorkoutData.txt");
-        try (PrintWriter out = new PrintWriter(file)) {
-            workoutLogger.getLoggedWorkouts().forEach(workout -> out.println(workout.toString()));
-            gui.showMessage("Data exported successfully to " + file.getAbsolutePath());
-        } catch (FileNotFoundException e) {
-            gui.showMessage("Failed to export data: " + e.getMessage());
+    public CompletableFuture<Long> importWorkoutData(File file) {
+        long start = WorkoutMetrics.start();
+        CompletableFuture<WorkoutImporter.ParsedImport> parsed = importExecutor == null
+                ? supplyInline(() -> parseImport(file))
+                : CompletableFuture.supplyAsync(() -> parseImport(file), backgroundExecutor);
+        CompletableFuture<Long> result = parsed.thenApplyAsync(parsedImport -> {
+            try {
+                long imported = parsedImport.mergeInto(workoutLogger);
+                gui.showMessage("Imported " + imported + " exercises from " + file.getAbsolutePath());
+                return imported;
+            } catch (IllegalArgumentException e) {
+                gui.showMessage("Failed to import data: " + e.getMessage());
+                throw e;
+            }
+        }, importExecutor == null ? Runnable::run : importExecutor);
+        return WorkoutMetrics.timed(WorkoutMetrics.Operation.IMPORT, start, result);
+    }
+
+    // Reads an import file without touching the log
+    private WorkoutImporter.ParsedImport parseImport(File file) {
+        try {
+            return new WorkoutImporter().parse(file.toPath());
+        } catch (IOException e) {
+            gui.showMessage("Failed to import data: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        } catch (IllegalArgumentException e) {
+            gui.showMessage("Failed to import data: " + e.getMessage());
+            throw e;
         }
     }
 
+    /**
+     * Saves the complete workout log to a binary snapshot file.
+     *
+     * @return A future completed once the file is written.
+     */
+    public CompletableFuture<Void> saveSnapshot(Path file) {
+        long start = WorkoutMetrics.start();
+        CompletableFuture<Void> result = snapshot().thenAcceptAsync(logVersion -> {
+            try {
+                WorkoutSnapshot.write(logVersion, file, 0);
+                gui.showMessage("Snapshot saved to " + file.toAbsolutePath());
+            } catch (IOException e) {
+                gui.showMessage("Failed to save snapshot: " + e.getMessage());
+            }
+        }, readExecutor);
+        return WorkoutMetrics.timed(WorkoutMetrics.Operation.SAVE_SNAPSHOT, start, result);
+    }
+
+    /**
+     * Loads the workouts of a binary snapshot file into the log. Workouts whose names are already logged are skipped.
+     *
+     * @return A future completed once the workouts are logged.
+     */
+    public CompletableFuture<Void> loadSnapshot(Path file) {
+        long start = WorkoutMetrics.start();
+        CompletableFuture<Void> result = onModel(() -> {
+            try (WorkoutSnapshot snapshot = WorkoutSnapshot.open(file)) {
+                snapshot.loadInto(workoutLogger);
+            } catch (IOException e) {
+                gui.showMessage("Failed to load snapshot: " + e.getMessage());
+            }
+        });
+        return WorkoutMetrics.timed(WorkoutMetrics.Operation.LOAD_SNAPSHOT, start, result);
+    }
+
     /**
      * Displays workout statistics in the GUI.
+     *
+     * @return A future completed with the text shown.
      */
-    public void displayStatistics() {
-        int totalWorkouts = workoutLogger.getNumberOfWorkouts();
-        double totalVolume = workoutLogger.getLoggedWorkouts().stream()
-            .flatMap(workout -> workout.getExercises().stream())
-            .mapToDouble(AbstractExercise::calculateVolume)
-            .sum();
-        double averageDuration = workoutLogger.getLoggedWorkouts().stream()
-            .mapToInt(AbstractWorkout::getDurationMinutes)
-            .average()
-            .orElse(0);
-        String stats = String.format("Total Workouts: %d\nTotal Volume: %.2f kg\nAverage Workout Duration: %.2f minutes",
-                                     totalWorkouts, totalVolume, averageDuration);
-        gui.showMessage(stats);
-    }
-
-    /**
-     * Compiles and returns a formatted string of all workouts and their exercises.
-     */
-    public String getWorkoutsDisplayText() {
-        StringBuilder sb = new StringBuilder();
-        List<AbstractWorkout> workouts = workoutLogger.getLoggedWorkouts();
-        for (AbstractWorkout workout : workouts) {
-            sb.append(workout.toString()).append("\n");
-            for (AbstractExercise exercise : workout.getExercises()) {
-                sb.append("   - ").append((ConcreteExercise)exercise).append("\n");
+    public CompletableFuture<String> displayStatistics() {
+        long start = WorkoutMetrics.start();
+        // Totals are kept current in every log version, so this reads no workouts
+        CompletableFuture<String> result = latest("displayStatistics", (logVersion, stale) -> String.format(
+                "Total Workouts: %d\nTotal Volume: %.2f kg\nAverage Workout Duration: %.2f minutes",
+                logVersion.getNumberOfWorkouts(), logVersion.getTotalVolume(), logVersion.getAverageDurationMinutes()),
+                gui::showMessage);
+        return WorkoutMetrics.timed(WorkoutMetrics.Operation.DISPLAY_STATISTICS, start, result);
+    }
+
+    /**
+     * Compiles a formatted string of all workouts and their exercises.
+     * An earlier request for this text that is still running is cancelled.
+     *
+     * @return A future completed with the text, on the event dispatch thread in asynchronous mode.
+     */
+    public CompletableFuture<String> getWorkoutsDisplayText() {
+        long start = WorkoutMetrics.start();
+        CompletableFuture<String> result = latest("workoutsDisplayText", (logVersion, stale) -> {
+            StringBuilder sb = new StringBuilder();
+            List<WorkoutVersion> workouts = logVersion.getWorkouts();
+            for (int i = 0; i < workouts.size(); i++) {
+                checkCurrent(i, stale);
+                WorkoutVersion workout = workouts.get(i);
+                sb.append(workout.toString()).append("\n");
+                for (AbstractExercise exercise : workout.getExercises()) {
+                    sb.append("   - ").append(exercise).append("\n");
+                }
             }
-        }
-        return sb.toString();
+            return sb.toString();
+        }, text -> { });
+        return WorkoutMetrics.timed(WorkoutMetrics.Operation.WORKOUTS_DISPLAY_TEXT, start, result);
+    }
+
+    /**
+     * Subscribes a view to batches of changes to the log, delivered on the event dispatch thread.
+     * The current log version is taken on the model thread, so no change is missed or seen twice.
+     *
+     * @param subscriber Receives the current log version, then every later batch of events.
+     * @return A future completed once the subscription is queued.
+     */
+    public CompletableFuture<Void> subscribe(WorkoutEventBus.Subscriber subscriber) {
+        return onModel(() -> eventBus.subscribe(subscriber, workoutLogger.snapshot()));
     }
 
     /**
-     * Returns a list of names of all logged workouts.
+     * Returns a list of names of all logged workouts. Reads the latest snapshot, so it may be called from any thread.
      */
     public List<String> getWorkoutNames() {
-        List<String> workoutNames = new ArrayList<>();
-        for (AbstractWorkout workout : workoutLogger.getLoggedWorkouts()) {
+        List<WorkoutVersion> workouts = workoutLogger.snapshot().getWorkouts();
+        List<String> workoutNames = new ArrayList<>(workouts.size());
+        for (WorkoutVersion workout : workouts) {
             workoutNames.add(workout.getWorkoutName());
         }
         return workoutNames;
     }
+
+    /**
+     * Returns the logged exercise names that start with the typed text, most frequently logged first.
+     * Reads an index kept current as exercises are logged, so it is cheap and may be called from any thread.
+     *
+     * @param prefix The typed text; matched ignoring case.
+     * @param limit The largest number of names to return, at most {@link ExerciseNameIndex#MAX_SUGGESTIONS}.
+     * @return The suggested names.
+     */
+    public List<String> suggestExerciseNames(String prefix, int limit) {
+        return exerciseNames.suggest(prefix, limit);
+    }
+
+    /**
+     * Stops the controller's threads once the changes already submitted have been made, and only then closes
+     * the event bus, which would reject the events of a change still running.
+     */
+    public void shutdown() {
+        backgroundExecutor.shutdown(); // Imports parsed in the background still queue their changes below
+        try {
+            backgroundExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            if (modelExecutor != null) {
+                modelExecutor.shutdown();
+                modelExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        eventBus.close();
+    }
+
+    // Runs a change to the log on the model thread, or inline when there is none
+    private CompletableFuture<Void> onModel(Runnable change) {
+        if (modelExecutor == null) {
+            try {
+                change.run();
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.runAsync(change, modelExecutor);
+    }
+
+    // Runs work on the calling thread, returning its outcome as a future
+    private static <T> CompletableFuture<T> supplyInline(Supplier<T> work) {
+        try {
+            return CompletableFuture.completedFuture(work.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Takes a snapshot that includes every change submitted so far
+    private CompletableFuture<WorkoutLogVersion> snapshot() {
+        if (modelExecutor == null) {
+            return CompletableFuture.completedFuture(workoutLogger.snapshot());
+        }
+        return CompletableFuture.supplyAsync(workoutLogger::snapshot, modelExecutor);
+    }
+
+    /**
+     * Runs a read of the log as the newest request of its kind, cancelling the previous one.
+     * The work receives a snapshot and a check that turns true once a newer request supersedes it.
+     * The result is passed to show on the UI executor, unless the request was superseded first.
+     */
+    private <T> CompletableFuture<T> latest(String kind, SnapshotReader<T> work, Consumer<T> show) {
+        CompletableFuture<T> request = new CompletableFuture<>();
+        CompletableFuture<?> previous = latestRequests.put(kind, request);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        BooleanSupplier stale = request::isDone;
+        snapshot().thenApplyAsync(logVersion -> work.read(logVersion, stale), readExecutor)
+            .whenCompleteAsync((result, error) -> {
+                if (error != null) {
+                    request.completeExceptionally(causeOf(error));
+                } else if (request.complete(result)) {
+                    show.accept(result);
+                }
+            }, uiExecutor);
+        return request;
+    }
+
+    // Gives up a superseded read, checked every 256 workouts
+    private static void checkCurrent(int index, BooleanSupplier stale) {
+        if ((index & 255) == 0 && stale.getAsBoolean()) {
+            throw new CancellationException("Superseded by a newer request");
+        }
+    }
+
+    private static Throwable causeOf(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Builds a result from a log snapshot, giving up once the request is superseded.
+     */
+    private interface SnapshotReader<T> {
+        T read(WorkoutLogVersion logVersion, BooleanSupplier stale);
+    }
 }
@@ -0,0 +1,266 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Workout log that keeps only workout headers on the heap: the name, session time, exercise count and
+ * running totals of each workout. Exercise lists live in an {@link ExerciseFile} and are loaded on demand
+ * into a cache holding at most a given number of exercises, so heap use stays flat however long the
+ * history grows.
+ *
+ * The cache evicts the least recently used lists first. An evicted list that changed since it was loaded is
+ * written back to free space in the file, and the space it took before is reused once no snapshot reads it.
+ * The file is deleted when the logger is closed, since the journal is what keeps the log across runs. Hits,
+ * misses, evictions and write-backs are counted in {@link #getCacheStats()}; copying a workout in when it is
+ * logged counts as none of them. Loads and evictions are timed in {@link WorkoutMetrics}.
+ *
+ * Logged workouts are copied into {@link StoredWorkout}s: after logging a workout, change the one returned
+ * by {@link #findWorkout(String)}. Like {@link WorkoutLogger}, the log must only be changed on one thread;
+ * snapshots may be read on any thread and read evicted exercises straight from the file.
+ */
+public class DiskWorkoutLogger extends AbstractWorkoutLogger implements Closeable {
+
+    /**
+     * Counters of the exercise cache at one point in time.
+     */
+    public static final class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long writeBacks;
+        private final int cachedWorkouts;
+        private final long cachedExercises;
+        private final long maxCachedExercises;
+        private final long fileBytes;
+
+        CacheStats(long hits, long misses, long evictions, long writeBacks, int cachedWorkouts, long cachedExercises,
+                   long maxCachedExercises, long fileBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.writeBacks = writeBacks;
+            this.cachedWorkouts = cachedWorkouts;
+            this.cachedExercises = cachedExercises;
+            this.maxCachedExercises = maxCachedExercises;
+            this.fileBytes = fileBytes;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Returns how many evictions had to write changed exercises to the file.
+         * @return The number of write-backs.
+         */
+        public long getWriteBacks() {
+            return writeBacks;
+        }
+
+        public int getCachedWorkouts() {
+            return cachedWorkouts;
+        }
+
+        public long getCachedExercises() {
+            return cachedExercises;
+        }
+
+        public long getMaxCachedExercises() {
+            return maxCachedExercises;
+        }
+
+        public long getFileBytes() {
+            return fileBytes;
+        }
+
+        /**
+         * Returns the share of exercise list uses that found the list cached.
+         * @return The hit ratio, or 0 before the first use.
+         */
+        public double getHitRatio() {
+            long uses = hits + misses;
+            return uses == 0 ? 0 : (double) hits / uses;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(160).append("Cache: ").append(cachedWorkouts).append(" workouts, ")
+                .append(cachedExercises).append(" / ").append(maxCachedExercises).append(" exercises, hit ratio ");
+            TextFormat.appendFixed(sb, getHitRatio(), 3).append(", ").append(misses).append(" misses, ")
+                .append(evictions).append(" evictions, ").append(writeBacks).append(" write-backs, ")
+                .append(fileBytes).append(" file bytes");
+            return sb.toString();
+        }
+    }
+
+    private final ExerciseFile file;
+
+    // Cached exercise lists, most recently used first
+    private final long maxCachedExercises;
+    private StoredExercises newest;
+    private StoredExercises oldest;
+    private StoredExercises adopting; // The list being filled by adopt, which does not count as a use
+
+    // Only changed on the thread that changes the log, read by getCacheStats from any thread
+    private volatile int cachedWorkouts;
+    private volatile long cachedExercises;
+    private volatile long hits;
+    private volatile long misses;
+    private volatile long evictions;
+    private volatile long writeBacks;
+
+    /**
+     * Constructs an empty log.
+     *
+     * @param directory Where to create the exercise file.
+     * @param maxCachedExercises The most exercises kept in memory; a single workout larger than this is still
+     *                           loaded whole while it is used.
+     * @throws IOException if the exercise file cannot be created.
+     */
+    public DiskWorkoutLogger(Path directory, long maxCachedExercises) throws IOException {
+        if (maxCachedExercises < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxCachedExercises = maxCachedExercises;
+        this.file = ExerciseFile.create(directory);
+    }
+
+    /**
+     * Returns the cache counters. May be called from any thread; the counters are read one at a time.
+     * @return The counters.
+     */
+    public CacheStats getCacheStats() {
+        return new CacheStats(hits, misses, evictions, writeBacks, cachedWorkouts, cachedExercises,
+                              maxCachedExercises, file.length());
+    }
+
+    /**
+     * Closes and deletes the exercise file. Snapshots of evicted workouts cannot be read afterwards.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * Makes an exercise list the most recently used, loading it from the file if it was evicted, then evicts
+     * the least recently used lists until the cache fits again.
+     *
+     * @param exercises The list about to be used.
+     */
+    void use(StoredExercises exercises) {
+        if (exercises == adopting) {
+            return;
+        }
+        if (exercises.isCached()) {
+            hits++;
+            if (newest != exercises) {
+                unlink(exercises);
+                linkNewest(exercises);
+            }
+        } else {
+            long start = WorkoutMetrics.start();
+            exercises.load();
+            misses++;
+            cachedExercises += exercises.size();
+            linkNewest(exercises);
+            WorkoutMetrics.record(WorkoutMetrics.Operation.STORE_LOAD, start);
+        }
+        evictAllBut(exercises);
+    }
+
+    /**
+     * Accounts for exercises added to or removed from a cached list.
+     * @param delta The change in size.
+     */
+    void resized(int delta) {
+        cachedExercises += delta;
+    }
+
+    /**
+     * Copies a workout into a new stored workout whose exercises start out cached.
+     */
+    @Override
+    protected AbstractWorkout adopt(AbstractWorkout workout) {
+        StoredExercises exercises = new StoredExercises(this, file);
+        linkNewest(exercises);
+        StoredWorkout stored = new StoredWorkout(workout.getWorkoutName(), workout.getSessionStart(), exercises);
+        adopting = exercises;
+        try {
+            stored.addExercises(workout.exercisesView());
+        } finally {
+            adopting = null;
+        }
+        evictAllBut(exercises);
+        return stored;
+    }
+
+    // Evicts the least recently used lists until the cache fits again, keeping the one in use
+    private void evictAllBut(StoredExercises exercises) {
+        while (cachedExercises > maxCachedExercises && oldest != exercises) {
+            evict(oldest);
+        }
+    }
+
+    private void evict(StoredExercises exercises) {
+        long start = WorkoutMetrics.start();
+        unlink(exercises);
+        cachedExercises -= exercises.size();
+        if (exercises.evict()) {
+            writeBacks++;
+        }
+        evictions++;
+        WorkoutMetrics.record(WorkoutMetrics.Operation.STORE_EVICT, start);
+    }
+
+    /**
+     * Loads the exercises of a removed workout back into memory, so it stays complete for the caller
+     * without counting against the cache.
+     */
+    @Override
+    protected void workoutRemoved(AbstractWorkout workout) {
+        StoredExercises exercises = ((StoredWorkout) workout).storage();
+        use(exercises);
+        unlink(exercises);
+        cachedExercises -= exercises.size();
+        exercises.release();
+    }
+
+    private void linkNewest(StoredExercises exercises) {
+        exercises.older = newest;
+        exercises.newer = null;
+        if (newest != null) {
+            newest.newer = exercises;
+        } else {
+            oldest = exercises;
+        }
+        newest = exercises;
+        cachedWorkouts++;
+    }
+
+    private void unlink(StoredExercises exercises) {
+        if (exercises.newer != null) {
+            exercises.newer.older = exercises.older;
+        } else {
+            newest = exercises.older;
+        }
+        if (exercises.older != null) {
+            exercises.older.newer = exercises.newer;
+        } else {
+            oldest = exercises.newer;
+        }
+        exercises.newer = null;
+        exercises.older = null;
+        cachedWorkouts--;
+    }
+}
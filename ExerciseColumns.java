@@ -0,0 +1,393 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Struct-of-arrays exercise storage. Each exercise is one row across parallel primitive arrays,
+ * and names are stored as {@link ExerciseType} ids from the default registry.
+ * Elements are handed out as {@link ColumnarExercise} views over a row, so adding an exercise
+ * copies its values and later changes to the original object are not seen by the store.
+ *
+ * Snapshots share the column arrays and fix which rows exist and in what order. Appends write past the
+ * end of every snapshot and need no copy; the first removal after a snapshot copies the arrays before
+ * shifting rows, and the first edit of a value after a snapshot copies that value's column, so a snapshot
+ * never sees later changes.
+ *
+ * Views are positional, so a removal makes every view taken before it stale: reading or changing a stale
+ * view throws instead of reaching the row that moved into its place. A store whose rows moved elsewhere,
+ * as when a stored workout is evicted, is detached: its views keep reading the values it held but can no
+ * longer change them.
+ */
+public class ExerciseColumns extends AbstractList<AbstractExercise> implements VersionedList<AbstractExercise>, RandomAccess {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] typeIds;
+    private int[] reps;
+    private int[] sets;
+    private int[] seconds;
+    private double[] weight;
+    private int size;
+    private int removals; // Bumped by every removal, which moves the rows views point at
+
+    private AbstractWorkout owner; // Workout whose totals cover these rows, attached to every view
+    private final boolean frozen; // True for snapshots, which reject every change
+    private boolean detached; // True once the rows live elsewhere; changes are rejected
+    private static final int TYPES = 1;
+    private static final int REPS = 2;
+    private static final int SETS = 4;
+    private static final int SECONDS = 8;
+    private static final int WEIGHT = 16;
+    private static final int ALL_COLUMNS = TYPES | REPS | SETS | SECONDS | WEIGHT;
+
+    private int shared; // Bits of the columns a snapshot still reads
+    private ExerciseColumns lastSnapshot; // Returned again until the next change
+
+    /**
+     * Constructs an empty store.
+     */
+    public ExerciseColumns() {
+        this.typeIds = new int[INITIAL_CAPACITY];
+        this.reps = new int[INITIAL_CAPACITY];
+        this.sets = new int[INITIAL_CAPACITY];
+        this.seconds = new int[INITIAL_CAPACITY];
+        this.weight = new double[INITIAL_CAPACITY];
+        this.frozen = false;
+    }
+
+    // Read-only snapshot over the first size rows of shared arrays
+    private ExerciseColumns(ExerciseColumns source) {
+        this.typeIds = source.typeIds;
+        this.reps = source.reps;
+        this.sets = source.sets;
+        this.seconds = source.seconds;
+        this.weight = source.weight;
+        this.size = source.size;
+        this.frozen = true;
+    }
+
+    /**
+     * Sets the workout that keeps running totals over this store.
+     * @param owner The owning workout.
+     */
+    void setOwner(AbstractWorkout owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Rejects every later change, for a store whose rows are no longer the workout's. Views handed out
+     * earlier throw on their setters instead of changing rows the workout no longer reads.
+     */
+    void detach() {
+        detached = true;
+        owner = null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an immutable copy of the current rows in constant time.
+     * @return A read-only store sharing the current arrays.
+     */
+    @Override
+    public List<AbstractExercise> snapshot() {
+        if (frozen) {
+            return this;
+        }
+        if (lastSnapshot == null) {
+            lastSnapshot = new ExerciseColumns(this);
+            shared = ALL_COLUMNS;
+        }
+        return lastSnapshot;
+    }
+
+    /**
+     * Returns a view over the row at the given index. The view is positional, so it goes stale at the
+     * next removal from this store.
+     * @param index The row index.
+     * @return A flyweight exercise view.
+     */
+    @Override
+    public AbstractExercise get(int index) {
+        checkIndex(index);
+        ColumnarExercise view = new ColumnarExercise(this, index);
+        if (owner != null) {
+            view.attach(owner, index);
+        }
+        return view;
+    }
+
+    /**
+     * Appends a row holding the exercise's current values.
+     * @param exercise The exercise to copy.
+     * @return Always true.
+     */
+    @Override
+    public boolean add(AbstractExercise exercise) {
+        checkWritable();
+        lastSnapshot = null;
+        if (size == reps.length) {
+            grow();
+        }
+        typeIds[size] = exercise.getType().getId();
+        reps[size] = exercise.getReps();
+        sets[size] = exercise.getSets();
+        seconds[size] = exercise.getSeconds();
+        weight[size] = exercise.getWeight();
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes a row and returns a detached copy of its values.
+     * @param index The row index.
+     * @return A standalone exercise with the removed values.
+     */
+    @Override
+    public AbstractExercise remove(int index) {
+        checkIndex(index);
+        beforeRemove();
+        AbstractExercise removed = new ConcreteExercise(type(index).getName(), reps[index], sets[index],
+                                                        weight[index], seconds[index]);
+        int moved = size - index - 1;
+        System.arraycopy(typeIds, index + 1, typeIds, index, moved);
+        System.arraycopy(reps, index + 1, reps, index, moved);
+        System.arraycopy(sets, index + 1, sets, index, moved);
+        System.arraycopy(seconds, index + 1, seconds, index, moved);
+        System.arraycopy(weight, index + 1, weight, index, moved);
+        size--;
+        removals++;
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Finds a row without creating views. A view over this store matches its own row,
+     * any other exercise matches the first row with the same values.
+     * @param o The exercise to look for.
+     * @return The row index, or -1 if there is no match.
+     * @throws IllegalStateException If o is a stale view over this store.
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (o instanceof ColumnarExercise && ((ColumnarExercise) o).columns() == this) {
+            ColumnarExercise view = (ColumnarExercise) o;
+            checkView(view.index(), view.removals());
+            return view.index();
+        }
+        if (!(o instanceof AbstractExercise)) {
+            return -1;
+        }
+        AbstractExercise exercise = (AbstractExercise) o;
+        int id = exercise.getType().getId();
+        for (int i = 0; i < size; i++) {
+            if (typeIds[i] == id && reps[i] == exercise.getReps() && sets[i] == exercise.getSets()
+                    && seconds[i] == exercise.getSeconds() && weight[i] == exercise.getWeight()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Sums reps*weight*sets over all rows.
+     * @return The total volume.
+     */
+    public double totalVolume() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += weight[i] * reps[i] * sets[i];
+        }
+        return total;
+    }
+
+    /**
+     * Sums reps*weight*sets over the rows of one exercise name.
+     * @param name The exercise name.
+     * @return The total volume for that name, 0 if it was never logged here.
+     */
+    public double volumeOf(String name) {
+        ExerciseType type = ExerciseTypeRegistry.getDefault().find(name);
+        return type == null ? 0 : volumeOf(type);
+    }
+
+    /**
+     * Sums reps*weight*sets over the rows of one exercise type.
+     * @param type The exercise type.
+     * @return The total volume for that type.
+     */
+    public double volumeOf(ExerciseType type) {
+        int id = type.getId();
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            if (typeIds[i] == id) {
+                total += weight[i] * reps[i] * sets[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sums the duration of all rows.
+     * @return The total duration in seconds.
+     */
+    public long totalSeconds() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += seconds[i];
+        }
+        return total;
+    }
+
+    /**
+     * Appends a row from raw values, as read back from a file.
+     * @param typeId The exercise type id in the default registry.
+     * @param reps The reps.
+     * @param sets The sets.
+     * @param weight The weight.
+     * @param seconds The duration in seconds.
+     */
+    void addRow(int typeId, int reps, int sets, double weight, int seconds) {
+        checkWritable();
+        lastSnapshot = null;
+        if (size == this.reps.length) {
+            grow();
+        }
+        typeIds[size] = typeId;
+        this.reps[size] = reps;
+        this.sets[size] = sets;
+        this.seconds[size] = seconds;
+        this.weight[size] = weight;
+        size++;
+        modCount++;
+    }
+
+    int removals() {
+        return removals;
+    }
+
+    // Rejects a view taken before the last removal, whose row may now hold another exercise or be gone
+    void checkView(int index, int removalsSeen) {
+        if (removalsSeen != removals) {
+            throw new IllegalStateException("An exercise was removed since this view was taken; get the exercise from its workout again");
+        }
+        checkIndex(index);
+    }
+
+    // Row accessors used by ColumnarExercise
+    int typeId(int index) {
+        return typeIds[index];
+    }
+
+    ExerciseType type(int index) {
+        return ExerciseTypeRegistry.getDefault().byId(typeIds[index]);
+    }
+
+    int reps(int index) {
+        return reps[index];
+    }
+
+    int sets(int index) {
+        return sets[index];
+    }
+
+    int seconds(int index) {
+        return seconds[index];
+    }
+
+    double weight(int index) {
+        return weight[index];
+    }
+
+    // Row setters used by ColumnarExercise; each copies its column first if a snapshot still reads it
+    void setType(int index, ExerciseType type) {
+        if (beforeEdit(TYPES)) {
+            typeIds = typeIds.clone();
+        }
+        typeIds[index] = type.getId();
+    }
+
+    void setReps(int index, int value) {
+        if (beforeEdit(REPS)) {
+            reps = reps.clone();
+        }
+        reps[index] = value;
+    }
+
+    void setSets(int index, int value) {
+        if (beforeEdit(SETS)) {
+            sets = sets.clone();
+        }
+        sets[index] = value;
+    }
+
+    void setSeconds(int index, int value) {
+        if (beforeEdit(SECONDS)) {
+            seconds = seconds.clone();
+        }
+        seconds[index] = value;
+    }
+
+    void setWeight(int index, double value) {
+        if (beforeEdit(WEIGHT)) {
+            weight = weight.clone();
+        }
+        weight[index] = value;
+    }
+
+    // Returns true if the column must be copied before it is written, and counts it as copied
+    private boolean beforeEdit(int column) {
+        checkWritable();
+        lastSnapshot = null;
+        boolean copy = (shared & column) != 0;
+        shared &= ~column;
+        return copy;
+    }
+
+    // Copies the arrays if a snapshot still reads them, so shifting rows does not change the snapshot
+    private void beforeRemove() {
+        checkWritable();
+        lastSnapshot = null;
+        if (shared != 0) {
+            copyArrays(reps.length);
+            shared = 0;
+        }
+    }
+
+    void checkWritable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Exercise snapshot is read-only");
+        }
+        if (detached) {
+            throw new IllegalStateException("Exercise rows were evicted from memory; get the exercise from its workout again");
+        }
+    }
+
+    private void grow() {
+        copyArrays(reps.length * 2);
+        shared = 0;
+    }
+
+    private void copyArrays(int capacity) {
+        typeIds = Arrays.copyOf(typeIds, capacity);
+        reps = Arrays.copyOf(reps, capacity);
+        sets = Arrays.copyOf(sets, capacity);
+        seconds = Arrays.copyOf(seconds, capacity);
+        weight = Arrays.copyOf(weight, capacity);
+    }
+
+    void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
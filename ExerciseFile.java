@@ -0,0 +1,280 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * File of exercise rows that a {@link DiskWorkoutLogger} moves evicted exercise lists to.
+ *
+ * Every row takes {@link #ROW_BYTES} bytes: type id, reps, sets and seconds as ints, then the weight.
+ * A list is written as one run of rows and found again by the offset of its first row. A run never changes
+ * while it has holders: the list that wrote it, until the list is written elsewhere, and every snapshot
+ * reading it, until the snapshot is garbage collected. Once the last holder lets go, the run's space is
+ * merged with free neighbours and reused by later writes, so the file stays about as large as the rows
+ * still read rather than growing with every write-back. Type ids come from the default registry of this
+ * process, so the file is scratch space: it is deleted when closed and never read by another run.
+ *
+ * Writes happen on the thread that changes the log; reads may run on any thread, and snapshots let go of
+ * their runs on a cleaner thread. The last few runs read as exercises are kept, so a view reading one cell
+ * at a time does not read the file for every cell.
+ */
+class ExerciseFile implements Closeable {
+    static final int ROW_BYTES = 24;
+    /** Offset of a run without rows, which takes no room in the file. */
+    static final long NO_RUN = -1;
+    private static final int RECENT_RUNS = 64;
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final FileChannel channel;
+    // Run bookkeeping, guarded by runs
+    private final Map<Long, Run> runs = new HashMap<>(); // Runs with holders, by offset
+    private final TreeMap<Long, Integer> freeRows = new TreeMap<>(); // Free space by offset, in rows, never adjacent
+    private long end; // Offset after the last row ever written
+    private final Map<Long, List<AbstractExercise>> recentRuns = new LinkedHashMap<>(RECENT_RUNS * 2, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<AbstractExercise>> eldest) {
+            return size() > RECENT_RUNS;
+        }
+    }; // Runs by offset, least recently read first; guarded by itself
+
+    private ExerciseFile(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Creates a new, empty file in a directory.
+     *
+     * @param directory Where to create the file; created if it does not exist.
+     * @return The file.
+     * @throws IOException if the file cannot be created.
+     */
+    static ExerciseFile create(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path path = Files.createTempFile(directory, "exercises-", ".dat");
+        return new ExerciseFile(FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                                 StandardOpenOption.DELETE_ON_CLOSE));
+    }
+
+    /**
+     * Returns the length of the file, including free space waiting to be reused.
+     * @return The file length.
+     */
+    long length() {
+        synchronized (runs) {
+            return end;
+        }
+    }
+
+    /**
+     * Writes every row of a list into free space, or at the end of the file if no free space is large enough.
+     * The caller is the first holder of the new run.
+     *
+     * @param columns The rows.
+     * @return The offset of the first row, or {@link #NO_RUN} if there are no rows.
+     */
+    long write(ExerciseColumns columns) {
+        int rows = columns.size();
+        if (rows == 0) {
+            return NO_RUN;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(rows * ROW_BYTES);
+        for (int i = 0; i < rows; i++) {
+            buffer.putInt(columns.typeId(i)).putInt(columns.reps(i)).putInt(columns.sets(i))
+                  .putInt(columns.seconds(i)).putDouble(columns.weight(i));
+        }
+        buffer.flip();
+        long offset;
+        synchronized (runs) {
+            offset = allocate(rows);
+            runs.put(offset, new Run(rows));
+        }
+        try {
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write exercises", e);
+        }
+        return offset;
+    }
+
+    /**
+     * Lets go of a run for the list that wrote it; its space is reused once no snapshot reads it either.
+     * @param offset The offset of the run, or {@link #NO_RUN}.
+     */
+    void release(long offset) {
+        if (offset == NO_RUN) {
+            return;
+        }
+        synchronized (runs) {
+            Run run = runs.get(offset);
+            if (--run.holders > 0) {
+                return;
+            }
+            runs.remove(offset);
+            synchronized (recentRuns) {
+                recentRuns.remove(offset); // Before the space can be reused, as the next run there has other rows
+            }
+            free(offset, run.rows);
+        }
+    }
+
+    /**
+     * Holds a run for as long as a reader can reach it, and lets go of it once the reader is garbage collected.
+     *
+     * @param reader The reader of the run; it must not be reachable from a cleaning action.
+     * @param offset The offset of the run, or {@link #NO_RUN}.
+     */
+    void holdFor(Object reader, long offset) {
+        if (offset == NO_RUN) {
+            return;
+        }
+        synchronized (runs) {
+            runs.get(offset).holders++;
+        }
+        CLEANER.register(reader, () -> release(offset));
+    }
+
+    /**
+     * Returns the number of bytes of runs that are still held.
+     * @return The bytes in use.
+     */
+    long heldBytes() {
+        synchronized (runs) {
+            long rows = 0;
+            for (Run run : runs.values()) {
+                rows += run.rows;
+            }
+            return rows * ROW_BYTES;
+        }
+    }
+
+    /**
+     * Reads a run of rows into a list.
+     *
+     * @param offset The offset of the first row.
+     * @param rows The number of rows.
+     * @param into The list to append the rows to.
+     */
+    void read(long offset, int rows, ExerciseColumns into) {
+        ByteBuffer buffer = readBytes(offset, rows * ROW_BYTES);
+        for (int at = 0; at < rows * ROW_BYTES; at += ROW_BYTES) {
+            into.addRow(buffer.getInt(at), buffer.getInt(at + 4), buffer.getInt(at + 8), buffer.getDouble(at + 16),
+                        buffer.getInt(at + 12));
+        }
+    }
+
+    /**
+     * Reads a run of rows as read-only exercises, or returns it from the recently read runs.
+     *
+     * @param offset The offset of the first row.
+     * @param rows The number of rows.
+     * @return The exercises, in order, in an unmodifiable list shared with other readers of the run.
+     */
+    List<AbstractExercise> readExercises(long offset, int rows) {
+        if (rows == 0) {
+            return Collections.emptyList(); // Takes no room, so the next run starts at the same offset
+        }
+        synchronized (recentRuns) {
+            List<AbstractExercise> recent = recentRuns.get(offset);
+            if (recent != null) {
+                return recent;
+            }
+        }
+        ByteBuffer buffer = readBytes(offset, rows * ROW_BYTES);
+        AbstractExercise[] exercises = new AbstractExercise[rows];
+        for (int i = 0; i < rows; i++) {
+            exercises[i] = exerciseAt(buffer, i * ROW_BYTES);
+        }
+        List<AbstractExercise> run = Collections.unmodifiableList(Arrays.asList(exercises));
+        synchronized (recentRuns) {
+            recentRuns.put(offset, run); // A run never changes once written, so a race only reads it twice
+        }
+        return run;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Takes the first free space that fits, or grows the file; called holding runs
+    private long allocate(int rows) {
+        for (Map.Entry<Long, Integer> space : freeRows.entrySet()) {
+            if (space.getValue() >= rows) {
+                long offset = space.getKey();
+                int left = space.getValue() - rows;
+                freeRows.remove(offset);
+                if (left > 0) {
+                    freeRows.put(offset + rows * (long) ROW_BYTES, left);
+                }
+                return offset;
+            }
+        }
+        long offset = end;
+        end += rows * (long) ROW_BYTES;
+        return offset;
+    }
+
+    // Returns a run's space, merged with the free space on either side; called holding runs
+    private void free(long offset, int rows) {
+        Map.Entry<Long, Integer> before = freeRows.lowerEntry(offset);
+        if (before != null && before.getKey() + before.getValue() * (long) ROW_BYTES == offset) {
+            freeRows.remove(before.getKey());
+            offset = before.getKey();
+            rows += before.getValue();
+        }
+        Integer after = freeRows.remove(offset + rows * (long) ROW_BYTES);
+        if (after != null) {
+            rows += after;
+        }
+        freeRows.put(offset, rows);
+    }
+
+    private static AbstractExercise exerciseAt(ByteBuffer buffer, int at) {
+        return new FrozenExercise(ExerciseTypeRegistry.getDefault().byId(buffer.getInt(at)), buffer.getInt(at + 4),
+                                  buffer.getInt(at + 8), buffer.getDouble(at + 16), buffer.getInt(at + 12));
+    }
+
+    private ByteBuffer readBytes(long offset, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Exercise file ends at " + position);
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read exercises", e);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static final class Run {
+        final int rows;
+        int holders = 1; // The list that wrote it
+
+        Run(int rows) {
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Inverted index from exercise type to every place the exercise occurs in the logged workouts.
+ *
+ * Each type keeps its occurrences together with running totals, so the history of an exercise is read in
+ * time proportional to its length and its totals and frequency in constant time. Occurrences are ordered
+ * by a sequence number taken when they were logged, so an edit never moves one in its history.
+ * Every occurrence remembers the values it was counted with, so an edited exercise has its totals adjusted
+ * in place, or, when its type changed, is taken out of its old type and added to its new one at its place
+ * in logging order, without rescanning anything.
+ *
+ * The index is kept current by the logger that owns it and, like the logger, must only be used on the
+ * thread that changes the log.
+ */
+public class ExerciseIndex implements WorkoutChangeListener {
+
+    /**
+     * One exercise at one position of a logged workout.
+     */
+    public static final class Occurrence {
+        private final AbstractWorkout workout;
+        private final long sequence; // Logging order
+        private AbstractExercise exercise;
+        // Values the occurrence is counted with in its type's totals
+        private ExerciseType type;
+        private double volume;
+        private int sets;
+        private int reps;
+
+        Occurrence(AbstractWorkout workout, long sequence, AbstractExercise exercise) {
+            this.workout = workout;
+            this.sequence = sequence;
+            this.exercise = exercise;
+        }
+
+        public AbstractWorkout getWorkout() {
+            return workout;
+        }
+
+        public AbstractExercise getExercise() {
+            return exercise;
+        }
+
+        @Override
+        public String toString() {
+            return workout.getWorkoutName() + ": " + exercise;
+        }
+    }
+
+    /**
+     * Totals over every occurrence of one exercise type.
+     */
+    public static final class ExerciseTotals {
+        private final ExerciseType type;
+        private final int occurrences;
+        private final int workouts;
+        private final double totalVolume;
+        private final long totalSets;
+        private final long totalReps;
+
+        ExerciseTotals(ExerciseType type, int occurrences, int workouts, double totalVolume, long totalSets,
+                       long totalReps) {
+            this.type = type;
+            this.occurrences = occurrences;
+            this.workouts = workouts;
+            this.totalVolume = totalVolume;
+            this.totalSets = totalSets;
+            this.totalReps = totalReps;
+        }
+
+        public ExerciseType getType() {
+            return type;
+        }
+
+        /**
+         * Returns how often the exercise was logged, counting every position in every workout.
+         * @return The number of occurrences.
+         */
+        public int getOccurrences() {
+            return occurrences;
+        }
+
+        /**
+         * Returns the number of logged workouts that contain the exercise.
+         * @return The number of workouts.
+         */
+        public int getWorkouts() {
+            return workouts;
+        }
+
+        public double getTotalVolume() {
+            return totalVolume;
+        }
+
+        public long getTotalSets() {
+            return totalSets;
+        }
+
+        public long getTotalReps() {
+            return totalReps;
+        }
+    }
+
+    // Occurrences and running totals of one type
+    private static final class Entry {
+        final ExerciseType type;
+        final NavigableSet<Occurrence> occurrences = new TreeSet<>(BY_SEQUENCE);
+        final Map<AbstractWorkout, Integer> workouts = new IdentityHashMap<>(); // Occurrences per workout
+        double totalVolume;
+        long totalSets;
+        long totalReps;
+
+        Entry(ExerciseType type) {
+            this.type = type;
+        }
+
+        ExerciseTotals totals() {
+            return new ExerciseTotals(type, occurrences.size(), workouts.size(), totalVolume, totalSets, totalReps);
+        }
+    }
+
+    private static final Comparator<Occurrence> BY_SEQUENCE = Comparator.comparingLong(occurrence -> occurrence.sequence);
+
+    private Entry[] entries = new Entry[64]; // Indexed by type id
+    private final Map<AbstractWorkout, List<Occurrence>> byWorkout = new IdentityHashMap<>(); // In exercise order
+    private long nextSequence;
+
+    /**
+     * Returns every occurrence of an exercise, in the order they were logged.
+     *
+     * @param exerciseName The exercise name.
+     * @return The occurrences; empty if the exercise was never logged.
+     */
+    public List<Occurrence> getOccurrences(String exerciseName) {
+        return getOccurrences(ExerciseTypeRegistry.getDefault().find(exerciseName));
+    }
+
+    /**
+     * Returns every occurrence of an exercise type, in the order they were logged.
+     *
+     * @param type The exercise type.
+     * @return The occurrences; empty if the type was never logged.
+     */
+    public List<Occurrence> getOccurrences(ExerciseType type) {
+        Entry entry = entryOf(type);
+        return entry == null ? Collections.emptyList() : new ArrayList<>(entry.occurrences);
+    }
+
+    /**
+     * Returns the totals of an exercise over all logged workouts, in constant time.
+     *
+     * @param exerciseName The exercise name.
+     * @return The totals; all zero if the exercise was never logged.
+     */
+    public ExerciseTotals getTotals(String exerciseName) {
+        ExerciseType type = ExerciseTypeRegistry.getDefault().find(exerciseName);
+        Entry entry = entryOf(type);
+        return entry == null ? new ExerciseTotals(type, 0, 0, 0, 0, 0) : entry.totals();
+    }
+
+    /**
+     * Returns the totals of the exercises logged most often, most frequent first.
+     *
+     * @param limit The largest number of exercises to return.
+     * @return The totals of at most limit exercise types.
+     */
+    public List<ExerciseTotals> mostFrequent(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        List<ExerciseTotals> totals = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry != null && !entry.occurrences.isEmpty()) {
+                totals.add(entry.totals());
+            }
+        }
+        totals.sort(Comparator.comparingInt(ExerciseTotals::getOccurrences).reversed());
+        return totals.size() > limit ? new ArrayList<>(totals.subList(0, limit)) : totals;
+    }
+
+    @Override
+    public void workoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        List<Occurrence> occurrences = new ArrayList<>(workout.exerciseCount());
+        byWorkout.put(workout, occurrences);
+        List<AbstractExercise> exercises = workout.exercisesView();
+        for (int i = 0; i < exercises.size(); i++) {
+            Occurrence occurrence = new Occurrence(workout, nextSequence++, exercises.get(i));
+            occurrences.add(occurrence);
+            count(occurrence);
+        }
+    }
+
+    @Override
+    public void workoutRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        List<Occurrence> occurrences = byWorkout.remove(workout);
+        if (occurrences != null) {
+            for (Occurrence occurrence : occurrences) {
+                uncount(occurrence);
+            }
+        }
+    }
+
+    @Override
+    public void exerciseAdded(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                              AbstractExercise exercise, int index) {
+        List<Occurrence> occurrences = byWorkout.get(workout);
+        if (occurrences != null) {
+            Occurrence occurrence = new Occurrence(workout, nextSequence++, exercise);
+            occurrences.add(index, occurrence);
+            count(occurrence);
+            rebind(workout, occurrences, index + 1);
+        }
+    }
+
+    @Override
+    public void exerciseRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                AbstractExercise exercise, int index) {
+        List<Occurrence> occurrences = byWorkout.get(workout);
+        if (occurrences != null) {
+            uncount(occurrences.remove(index));
+            rebind(workout, occurrences, 0);
+        }
+    }
+
+    // Points the occurrences from an index on at the exercises now stored there. A columnar workout hands out
+    // views over row numbers, and a removal makes all of them stale, not only those behind the removed row.
+    private static void rebind(AbstractWorkout workout, List<Occurrence> occurrences, int from) {
+        List<AbstractExercise> exercises = workout.exercisesView();
+        for (int i = from; i < occurrences.size(); i++) {
+            occurrences.get(i).exercise = exercises.get(i);
+        }
+    }
+
+    @Override
+    public void exerciseModified(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                 AbstractExercise exercise, int index) {
+        List<Occurrence> occurrences = byWorkout.get(workout);
+        if (occurrences != null) {
+            Occurrence occurrence = occurrences.get(index);
+            if (exercise.getType() != occurrence.type) {
+                uncount(occurrence);
+                occurrence.exercise = exercise;
+                count(occurrence); // Keeps its sequence, so it joins the new type at its place in logging order
+                return;
+            }
+            occurrence.exercise = exercise;
+            Entry entry = entries[occurrence.type.getId()];
+            entry.totalVolume -= occurrence.volume;
+            entry.totalSets -= occurrence.sets;
+            entry.totalReps -= occurrence.reps;
+            addValues(entry, occurrence);
+        }
+    }
+
+    // Adds an occurrence to its type with the exercise's current values
+    private void count(Occurrence occurrence) {
+        occurrence.type = occurrence.exercise.getType();
+        Entry entry = entryFor(occurrence.type);
+        entry.occurrences.add(occurrence);
+        entry.workouts.merge(occurrence.workout, 1, Integer::sum);
+        addValues(entry, occurrence);
+    }
+
+    // Records the exercise's current values in the occurrence and adds them to the totals of its type
+    private static void addValues(Entry entry, Occurrence occurrence) {
+        AbstractExercise exercise = occurrence.exercise;
+        occurrence.volume = exercise.calculateVolume();
+        occurrence.sets = exercise.getSets();
+        occurrence.reps = exercise.getReps();
+        entry.totalVolume += occurrence.volume;
+        entry.totalSets += occurrence.sets;
+        entry.totalReps += occurrence.reps;
+    }
+
+    // Takes an occurrence out of its type with the values it was counted with
+    private void uncount(Occurrence occurrence) {
+        Entry entry = entries[occurrence.type.getId()];
+        entry.occurrences.remove(occurrence);
+        entry.workouts.computeIfPresent(occurrence.workout, (workout, count) -> count == 1 ? null : count - 1);
+        if (entry.occurrences.isEmpty()) {
+            entry.totalVolume = 0; // Drops the rounding error left by adding and subtracting volumes
+            entry.totalSets = 0;
+            entry.totalReps = 0;
+        } else {
+            entry.totalVolume -= occurrence.volume;
+            entry.totalSets -= occurrence.sets;
+            entry.totalReps -= occurrence.reps;
+        }
+    }
+
+    private Entry entryOf(ExerciseType type) {
+        return type == null || type.getId() >= entries.length ? null : entries[type.getId()];
+    }
+
+    private Entry entryFor(ExerciseType type) {
+        int id = type.getId();
+        if (id >= entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(entries.length * 2, id + 1));
+        }
+        if (entries[id] == null) {
+            entries[id] = new Entry(type);
+        }
+        return entries[id];
+    }
+}
@@ -0,0 +1,236 @@
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.Dimension;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Drop-down of suggested exercise names under a text field, refreshed on every keystroke.
+ * Up and down move through the suggestions, enter or a click takes one and escape closes the list.
+ *
+ * Suggestions are looked up on the event dispatch thread while the median time of the recent lookups stays
+ * within {@link #LATENCY_BUDGET_NANOS}. While it is over, lookups run on a background thread and only the
+ * result for the latest keystroke is shown, so typing never waits for the index. Background lookups are
+ * timed as well, so once they are back under budget lookups return to the event dispatch thread; a single
+ * slow lookup, such as the first one through a cold index, moves nothing.
+ */
+class ExerciseNameCompleter {
+    /** Longest the median lookup may block the event dispatch thread before lookups move off it. */
+    static final long LATENCY_BUDGET_NANOS = 1_000_000;
+    private static final int LATENCY_SAMPLES = 9; // Odd, so the median is one of them
+    private static final int MIN_LATENCY_SAMPLES = 3; // Fewer, and one slow lookup would be the median
+    private static final int VISIBLE_SUGGESTIONS = 8;
+
+    /**
+     * Looks up the names to suggest for typed text. Must be safe to call from any thread.
+     */
+    interface Source {
+        List<String> suggest(String prefix, int limit);
+    }
+
+    private final JTextField field;
+    private final Source source;
+    private final DefaultListModel<String> suggestions = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(suggestions);
+    private final JPopupMenu popup = new JPopupMenu();
+    private volatile long latestRequest; // Numbers the keystrokes; a result for an older one is dropped
+    private ExecutorService lookupExecutor; // Created the first time lookups go over budget
+    private final long[] latencies = new long[LATENCY_SAMPLES]; // Recent lookup times in nanoseconds, oldest overwritten
+    private int latencyCount;
+    private int nextLatency;
+    private boolean applying; // Set while a taken suggestion is written to the field
+
+    /**
+     * Attaches a drop-down to a text field.
+     *
+     * @param field The field the user types the name into.
+     * @param source Where suggestions come from.
+     */
+    ExerciseNameCompleter(JTextField field, Source source) {
+        this.field = field;
+        this.source = source;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setBorder(null);
+        popup.add(scrollPane);
+        popup.setFocusable(false); // Keeps the caret in the field while the list is open
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                refresh();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                refresh();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (popup.isVisible()) {
+                    handleKey(e);
+                }
+            }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                hide();
+            }
+        });
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    accept(suggestions.get(index));
+                }
+            }
+        });
+    }
+
+    private void handleKey(KeyEvent e) {
+        int selected = list.getSelectedIndex();
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN:
+                select(selected + 1 < suggestions.size() ? selected + 1 : 0);
+                e.consume();
+                break;
+            case KeyEvent.VK_UP:
+                select(selected > 0 ? selected - 1 : suggestions.size() - 1);
+                e.consume();
+                break;
+            case KeyEvent.VK_ENTER:
+                if (selected >= 0) {
+                    accept(suggestions.get(selected));
+                    e.consume();
+                }
+                break;
+            case KeyEvent.VK_ESCAPE:
+                hide();
+                e.consume();
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Looks up the suggestions for the field's current text
+    private void refresh() {
+        if (applying) {
+            return;
+        }
+        long request = ++latestRequest;
+        String prefix = field.getText().trim();
+        if (prefix.isEmpty()) {
+            hide();
+            return;
+        }
+        if (medianLatency() > LATENCY_BUDGET_NANOS) {
+            if (lookupExecutor == null) {
+                lookupExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "exercise-name-lookup");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            lookupExecutor.execute(() -> {
+                if (request == latestRequest) { // Skips keystrokes that were already typed over
+                    long start = System.nanoTime();
+                    List<String> names = source.suggest(prefix, VISIBLE_SUGGESTIONS);
+                    long latency = System.nanoTime() - start;
+                    SwingUtilities.invokeLater(() -> {
+                        recordLatency(latency);
+                        show(request, prefix, names);
+                    });
+                }
+            });
+            return;
+        }
+        long start = System.nanoTime();
+        List<String> names = source.suggest(prefix, VISIBLE_SUGGESTIONS);
+        recordLatency(System.nanoTime() - start);
+        show(request, prefix, names);
+    }
+
+    // Only called on the event dispatch thread, like medianLatency
+    private void recordLatency(long nanos) {
+        latencies[nextLatency] = nanos;
+        nextLatency = (nextLatency + 1) % LATENCY_SAMPLES;
+        latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+    }
+
+    private long medianLatency() {
+        if (latencyCount < MIN_LATENCY_SAMPLES) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        return sorted[latencyCount / 2];
+    }
+
+    private void show(long request, String prefix, List<String> names) {
+        if (request != latestRequest || !field.isShowing()) {
+            return;
+        }
+        if (names.isEmpty() || (names.size() == 1 && names.get(0).equals(prefix))) {
+            hide(); // Nothing to add to what was typed
+            return;
+        }
+        suggestions.clear();
+        suggestions.addAll(names);
+        list.setVisibleRowCount(names.size());
+        popup.setPreferredSize(null);
+        Dimension size = popup.getPreferredSize();
+        popup.setPopupSize(Math.max(field.getWidth(), size.width), size.height);
+        if (popup.isVisible()) {
+            popup.pack();
+        } else {
+            popup.show(field, 0, field.getHeight());
+        }
+    }
+
+    private void select(int index) {
+        list.setSelectedIndex(index);
+        list.ensureIndexIsVisible(index);
+    }
+
+    private void accept(String name) {
+        applying = true;
+        try {
+            field.setText(name);
+        } finally {
+            applying = false;
+        }
+        latestRequest++; // Drops a lookup still running for the replaced text
+        hide();
+    }
+
+    private void hide() {
+        popup.setVisible(false);
+        suggestions.clear();
+    }
+}
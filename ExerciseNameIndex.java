@@ -0,0 +1,412 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prefix index of the exercise names in the logged workouts, ranked by how often each name was logged,
+ * for completing names as they are typed.
+ *
+ * Names are kept in a trie keyed by their lower-case characters. Every node caches the most frequent names
+ * below it, so a suggestion only walks the typed prefix and copies that node's list: O(prefix length),
+ * whatever the number of names. Logging an exercise updates the lists along the path of its name in
+ * O(name length * {@link #MAX_SUGGESTIONS}); removing one rebuilds them from the children's lists.
+ *
+ * For each workout the index only keeps how many of its exercises have each type, not a copy of every
+ * name, so its size follows the number of distinct types per workout rather than the number of sets. An
+ * edited exercise may have been renamed, which a count cannot tell: the workout is set aside with the
+ * version its last change carried and counted again from that version before the next query, so a burst
+ * of edits costs one count of the workout.
+ *
+ * The index listens to the log and may be queried from any thread.
+ */
+public class ExerciseNameIndex implements WorkoutChangeListener {
+    /** The largest number of suggestions a query can return. */
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Name[] NO_NAMES = new Name[0];
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    // A distinct name and how many exercises in the log have it
+    private static final class Name {
+        final String name;
+        int count;
+
+        Name(String name) {
+            this.name = name;
+        }
+
+        // Orders the most frequent name first, then alphabetically
+        boolean before(Name other) {
+            return count != other.count ? count > other.count : name.compareTo(other.name) < 0;
+        }
+    }
+
+    private static final class Node {
+        final Node parent;
+        final char key;
+        char[] keys = NO_KEYS; // Sorted, parallel to children
+        Node[] children = NO_CHILDREN;
+        Name[] names = NO_NAMES; // Names ending here; several when they differ only in case
+        Name[] top = NO_NAMES; // The most frequent names below this node, best first
+
+        Node(Node parent, char key) {
+            this.parent = parent;
+            this.key = key;
+        }
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node addChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            i = -i - 1;
+            Node child = new Node(this, c);
+            keys = insert(keys, i, c);
+            Node[] grown = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(children, i, grown, i + 1, children.length - i);
+            grown[i] = child;
+            children = grown;
+            return child;
+        }
+
+        void removeChild(Node child) {
+            int i = Arrays.binarySearch(keys, child.key);
+            char[] shrunkKeys = new char[keys.length - 1];
+            System.arraycopy(keys, 0, shrunkKeys, 0, i);
+            System.arraycopy(keys, i + 1, shrunkKeys, i, shrunkKeys.length - i);
+            keys = shrunkKeys;
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, i);
+            System.arraycopy(children, i + 1, shrunk, i, shrunk.length - i);
+            children = shrunk;
+        }
+
+        private static char[] insert(char[] array, int index, char value) {
+            char[] grown = new char[array.length + 1];
+            System.arraycopy(array, 0, grown, 0, index);
+            grown[index] = value;
+            System.arraycopy(array, index, grown, index + 1, array.length - index);
+            return grown;
+        }
+    }
+
+    // How many exercises of a workout have each type, in the order the types first appeared
+    private static final class TypeCounts {
+        ExerciseType[] types = new ExerciseType[4];
+        int[] counts = new int[4];
+        int size;
+
+        static TypeCounts of(WorkoutVersion workoutVersion) {
+            TypeCounts counts = new TypeCounts();
+            for (AbstractExercise exercise : workoutVersion.getExercises()) {
+                counts.add(exercise.getType(), 1);
+            }
+            return counts;
+        }
+
+        int get(ExerciseType type) {
+            for (int i = 0; i < size; i++) {
+                if (types[i] == type) {
+                    return counts[i];
+                }
+            }
+            return 0;
+        }
+
+        void add(ExerciseType type, int delta) {
+            for (int i = 0; i < size; i++) {
+                if (types[i] == type) {
+                    counts[i] += delta;
+                    return;
+                }
+            }
+            if (size == types.length) {
+                types = Arrays.copyOf(types, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            types[size] = type;
+            counts[size++] = delta;
+        }
+    }
+
+    private final Node root = new Node(null, '\0');
+    private final Map<AbstractWorkout, TypeCounts> byWorkout = new IdentityHashMap<>(); // What the trie counts
+    private final Map<AbstractWorkout, WorkoutVersion> edited = new IdentityHashMap<>(); // To be counted again
+    private int size; // Distinct names
+
+    /**
+     * Returns the logged exercise names that start with a prefix, ignoring case, most frequent first.
+     *
+     * @param prefix The typed text.
+     * @param limit The largest number of names to return, at most {@link #MAX_SUGGESTIONS}.
+     * @return The names; empty if none starts with the prefix.
+     */
+    public synchronized List<String> suggest(String prefix, int limit) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Prefix cannot be null");
+        }
+        if (limit < 0 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limit must be between 0 and " + MAX_SUGGESTIONS);
+        }
+        recountEdited();
+        Node node = find(prefix.toLowerCase(Locale.ROOT));
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        int n = Math.min(limit, node.top.length);
+        List<String> names = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            names.add(node.top[i].name);
+        }
+        return names;
+    }
+
+    /**
+     * Returns how many exercises in the log have a name.
+     *
+     * @param name The exact exercise name.
+     * @return The number of exercises.
+     */
+    public synchronized int count(String name) {
+        recountEdited();
+        Node node = find(name.toLowerCase(Locale.ROOT));
+        Name entry = node == null ? null : nameAt(node, name);
+        return entry == null ? 0 : entry.count;
+    }
+
+    /**
+     * Returns the number of distinct names in the index.
+     * @return The number of names.
+     */
+    public synchronized int size() {
+        recountEdited();
+        return size;
+    }
+
+    /**
+     * Adds the exercises of workouts that were logged before this index started listening.
+     * Workouts that are already indexed are skipped.
+     *
+     * @param workouts The logged workouts.
+     */
+    public synchronized void addAll(Iterable<? extends AbstractWorkout> workouts) {
+        for (AbstractWorkout workout : workouts) {
+            workoutLogged(workout, workout.snapshot());
+        }
+    }
+
+    @Override
+    public synchronized void workoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        if (byWorkout.containsKey(workout)) {
+            return;
+        }
+        TypeCounts counts = TypeCounts.of(workoutVersion);
+        for (int i = 0; i < counts.size; i++) {
+            add(counts.types[i].getName(), counts.counts[i]);
+        }
+        byWorkout.put(workout, counts);
+    }
+
+    @Override
+    public synchronized void workoutRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        edited.remove(workout); // Its edits were never counted
+        TypeCounts counts = byWorkout.remove(workout);
+        if (counts != null) {
+            for (int i = 0; i < counts.size; i++) {
+                add(counts.types[i].getName(), -counts.counts[i]);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void exerciseAdded(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                           AbstractExercise exercise, int index) {
+        changed(workout, workoutVersion, exercise.getType(), 1);
+    }
+
+    @Override
+    public synchronized void exerciseRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                             AbstractExercise exercise, int index) {
+        changed(workout, workoutVersion, exercise.getType(), -1);
+    }
+
+    @Override
+    public synchronized void exerciseModified(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                              AbstractExercise exercise, int index) {
+        if (byWorkout.containsKey(workout)) {
+            edited.put(workout, workoutVersion);
+        }
+    }
+
+    // Counts an added or removed exercise, unless the workout is waiting to be counted again anyway
+    private void changed(AbstractWorkout workout, WorkoutVersion workoutVersion, ExerciseType type, int delta) {
+        TypeCounts counts = byWorkout.get(workout);
+        if (counts == null) {
+            return;
+        }
+        if (edited.containsKey(workout)) {
+            edited.put(workout, workoutVersion); // A removed exercise may have been renamed since it was counted
+            return;
+        }
+        counts.add(type, delta);
+        add(type.getName(), delta);
+    }
+
+    // Counts edited workouts again from the last version their changes carried, and moves the names that differ
+    private void recountEdited() {
+        for (Map.Entry<AbstractWorkout, WorkoutVersion> entry : edited.entrySet()) {
+            TypeCounts before = byWorkout.get(entry.getKey());
+            TypeCounts after = TypeCounts.of(entry.getValue());
+            for (int i = 0; i < after.size; i++) {
+                add(after.types[i].getName(), after.counts[i] - before.get(after.types[i]));
+            }
+            for (int i = 0; i < before.size; i++) {
+                if (after.get(before.types[i]) == 0) {
+                    add(before.types[i].getName(), -before.counts[i]);
+                }
+            }
+            byWorkout.put(entry.getKey(), after);
+        }
+        edited.clear();
+    }
+
+    private void add(String name, int delta) {
+        if (delta > 0) {
+            increment(name, delta);
+        } else if (delta < 0) {
+            decrement(name, -delta);
+        }
+    }
+
+    private void increment(String name, int by) {
+        String key = name.toLowerCase(Locale.ROOT);
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.addChild(key.charAt(i));
+        }
+        Name entry = nameAt(node, name);
+        if (entry == null) {
+            entry = new Name(name);
+            node.names = Arrays.copyOf(node.names, node.names.length + 1);
+            node.names[node.names.length - 1] = entry;
+            size++;
+        }
+        entry.count += by;
+        // The name only moved up, so each list on the path at most takes it in or moves it forward
+        for (; node != null; node = node.parent) {
+            node.top = promote(node.top, entry);
+        }
+    }
+
+    private void decrement(String name, int by) {
+        Node node = find(name.toLowerCase(Locale.ROOT));
+        Name entry = node == null ? null : nameAt(node, name);
+        if (entry == null) {
+            return;
+        }
+        entry.count -= by;
+        if (entry.count == 0) {
+            Name[] remaining = new Name[node.names.length - 1];
+            for (int i = 0, j = 0; i < node.names.length; i++) {
+                if (node.names[i] != entry) {
+                    remaining[j++] = node.names[i];
+                }
+            }
+            node.names = remaining;
+            size--;
+        }
+        // Another name may now rank above this one, and only the children's lists can say which
+        for (; node != null; node = node.parent) {
+            if (node != root && node.names.length == 0 && node.children.length == 0) {
+                node.parent.removeChild(node);
+            } else if (contains(node.top, entry)) {
+                node.top = rebuild(node);
+            }
+        }
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    private static Name nameAt(Node node, String name) {
+        for (Name entry : node.names) {
+            if (entry.name.equals(name)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static boolean contains(Name[] top, Name entry) {
+        for (Name name : top) {
+            if (name == entry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Moves a name whose count went up to its place in a list, taking it in if it now ranks high enough
+    private static Name[] promote(Name[] top, Name entry) {
+        int at = 0;
+        while (at < top.length && top[at] != entry) {
+            at++;
+        }
+        if (at == top.length) {
+            if (top.length < MAX_SUGGESTIONS) {
+                top = Arrays.copyOf(top, top.length + 1);
+            } else if (entry.before(top[at - 1])) {
+                at--; // Pushes out the last name
+            } else {
+                return top;
+            }
+        }
+        while (at > 0 && entry.before(top[at - 1])) {
+            top[at] = top[at - 1];
+            at--;
+        }
+        top[at] = entry;
+        return top;
+    }
+
+    // The best names among those ending at a node and the lists of its children
+    private static Name[] rebuild(Node node) {
+        Name[] best = new Name[MAX_SUGGESTIONS];
+        int n = 0;
+        n = merge(best, n, node.names);
+        for (Node child : node.children) {
+            n = merge(best, n, child.top);
+        }
+        return n == best.length ? best : Arrays.copyOf(best, n);
+    }
+
+    private static int merge(Name[] best, int n, Name[] names) {
+        for (Name name : names) {
+            if (n == best.length && !name.before(best[n - 1])) {
+                continue;
+            }
+            int at = n == best.length ? n - 1 : n++;
+            while (at > 0 && name.before(best[at - 1])) {
+                best[at] = best[at - 1];
+                at--;
+            }
+            best[at] = name;
+        }
+        return n;
+    }
+}
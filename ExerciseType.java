@@ -0,0 +1,30 @@
+/**
+ * Canonical description of an exercise kind, shared by every exercise with the same name.
+ * Instances are created only by {@link ExerciseTypeRegistry}, so two types are equal exactly when they are the same object.
+ */
+public final class ExerciseType {
+    private final int id;
+    private final String name;
+
+    ExerciseType(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * Small dense id, usable as an array index.
+     * @return The id assigned by the registry.
+     */
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
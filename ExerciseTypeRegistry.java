@@ -0,0 +1,87 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns exercise names into canonical {@link ExerciseType} objects with dense integer ids.
+ * Lookups of known names are lock-free; registering a new name is synchronized.
+ */
+public class ExerciseTypeRegistry {
+    private static final ExerciseTypeRegistry DEFAULT = new ExerciseTypeRegistry();
+
+    private final Map<String, ExerciseType> byName;
+    private volatile ExerciseType[] byId; // Indexed by type id, replaced when it grows
+    private int size;
+
+    /**
+     * Constructs an empty registry.
+     */
+    public ExerciseTypeRegistry() {
+        this.byName = new ConcurrentHashMap<>();
+        this.byId = new ExerciseType[64];
+        this.size = 0;
+    }
+
+    /**
+     * Returns the registry shared by all exercises.
+     * @return The default registry.
+     */
+    public static ExerciseTypeRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the canonical type for a name, registering it on first use.
+     * @param name The exercise name.
+     * @return The type for that name.
+     */
+    public ExerciseType intern(String name) {
+        ExerciseType type = byName.get(name);
+        return type != null ? type : register(name);
+    }
+
+    /**
+     * Looks up a type without registering it.
+     * @param name The exercise name.
+     * @return The type, or null if the name was never registered.
+     */
+    public ExerciseType find(String name) {
+        return name == null ? null : byName.get(name);
+    }
+
+    /**
+     * Returns the type with the given id.
+     * @param id A type id.
+     * @return The type.
+     * @throws IllegalArgumentException if no type has that id.
+     */
+    public ExerciseType byId(int id) {
+        ExerciseType[] types = byId;
+        ExerciseType type = id >= 0 && id < types.length ? types[id] : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown exercise type id: " + id);
+        }
+        return type;
+    }
+
+    /**
+     * Returns the number of registered types; ids run from 0 to size - 1.
+     * @return The number of types.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized ExerciseType register(String name) {
+        ExerciseType type = byName.get(name);
+        if (type == null) {
+            if (size == byId.length) {
+                byId = Arrays.copyOf(byId, size * 2);
+            }
+            type = new ExerciseType(size, name);
+            byId[size++] = type;
+            byName.put(name, type);
+        }
+        return type;
+    }
+}
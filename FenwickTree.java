@@ -0,0 +1,128 @@
+import java.util.Arrays;
+
+/**
+ * Growable list of non-negative counts with O(log n) prefix sums (a binary indexed tree).
+ * Used to map a flat row number to the entry that contains it, when every entry spans several rows.
+ */
+public class FenwickTree {
+    private int[] tree = new int[16]; // 1-based; tree[i] holds the sum of the lowbit(i) counts ending at i - 1
+    private int size;
+
+    /**
+     * Returns the number of counts.
+     * @return The number of counts.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends a count in O(log n).
+     * @param count The count to append.
+     */
+    public void append(int count) {
+        if (size + 1 == tree.length) {
+            tree = Arrays.copyOf(tree, tree.length * 2);
+        }
+        int node = ++size;
+        tree[node] = count + prefixSum(node - 1) - prefixSum(node - (node & -node));
+    }
+
+    /**
+     * Changes the count at an index.
+     * @param index The index of the count.
+     * @param delta The amount to add.
+     */
+    public void add(int index, int delta) {
+        checkIndex(index);
+        for (int node = index + 1; node <= size; node += node & -node) {
+            tree[node] += delta;
+        }
+    }
+
+    /**
+     * Returns the count at an index.
+     * @param index The index of the count.
+     * @return The count.
+     */
+    public int get(int index) {
+        checkIndex(index);
+        return prefixSum(index + 1) - prefixSum(index);
+    }
+
+    /**
+     * Returns the sum of the counts before an index.
+     * @param index The number of leading counts to add up.
+     * @return The sum of counts 0 to index - 1.
+     */
+    public int prefixSum(int index) {
+        int sum = 0;
+        for (int node = index; node > 0; node -= node & -node) {
+            sum += tree[node];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sum of all counts.
+     * @return The total.
+     */
+    public int total() {
+        return prefixSum(size);
+    }
+
+    /**
+     * Finds the index whose range contains a position, that is the index i with
+     * prefixSum(i) &lt;= position &lt; prefixSum(i + 1). Entries with a count of zero are skipped.
+     *
+     * @param position A position between 0 and total() - 1.
+     * @return The index containing the position.
+     */
+    public int find(int position) {
+        if (position < 0 || position >= total()) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Total: " + total());
+        }
+        int node = 0;
+        int remaining = position;
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+            int next = node + step;
+            if (next <= size && tree[next] <= remaining) {
+                node = next;
+                remaining -= tree[next];
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Removes the count at an index, shifting later counts down. Takes O(n).
+     * @param index The index to remove.
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        int[] counts = new int[size - 1];
+        for (int i = 0, j = 0; i < size; i++) {
+            if (i != index) {
+                counts[j++] = get(i);
+            }
+        }
+        clear();
+        for (int count : counts) {
+            append(count);
+        }
+    }
+
+    /**
+     * Removes every count.
+     */
+    public void clear() {
+        Arrays.fill(tree, 0, size + 1, 0);
+        size = 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Read-only copy of an exercise's values, as held by published {@link WorkoutVersion}s. Editing the
+ * original exercise later does not change the copy; the copy's own setters throw.
+ */
+final class FrozenExercise extends ConcreteExercise {
+    private final ExerciseType type;
+    private final int reps;
+    private final int sets;
+    private final double weight;
+    private final int seconds;
+    private final double volume; // Taken from the original, whose class may compute it differently
+
+    /**
+     * Copies the current values of an exercise.
+     * @param source The exercise to copy.
+     */
+    FrozenExercise(AbstractExercise source) {
+        super();
+        this.type = source.getType();
+        this.reps = source.getReps();
+        this.sets = source.getSets();
+        this.weight = source.getWeight();
+        this.seconds = source.getSeconds();
+        this.volume = source.calculateVolume();
+    }
+
+    /**
+     * Constructs a read-only exercise from stored values.
+     * @param type The exercise type.
+     * @param reps The reps.
+     * @param sets The sets.
+     * @param weight The weight.
+     * @param seconds The duration in seconds.
+     */
+    FrozenExercise(ExerciseType type, int reps, int sets, double weight, int seconds) {
+        super();
+        this.type = type;
+        this.reps = reps;
+        this.sets = sets;
+        this.weight = weight;
+        this.seconds = seconds;
+        this.volume = weight * reps * sets;
+    }
+
+    /**
+     * Returns a read-only copy of an exercise, or the exercise itself if it cannot change.
+     * @param exercise The exercise to freeze.
+     * @return An exercise whose values never change.
+     */
+    static AbstractExercise of(AbstractExercise exercise) {
+        return exercise instanceof FrozenExercise ? exercise : new FrozenExercise(exercise);
+    }
+
+    @Override
+    public ExerciseType getType() {
+        return type;
+    }
+
+    @Override
+    public int getReps() {
+        return reps;
+    }
+
+    @Override
+    public int getSets() {
+        return sets;
+    }
+
+    @Override
+    public double getWeight() {
+        return weight;
+    }
+
+    @Override
+    public int getSeconds() {
+        return seconds;
+    }
+
+    @Override
+    public double calculateVolume() {
+        return volume;
+    }
+
+    @Override
+    protected void storeType(ExerciseType type) {
+        throw readOnly();
+    }
+
+    @Override
+    protected void storeReps(int reps) {
+        throw readOnly();
+    }
+
+    @Override
+    protected void storeSets(int sets) {
+        throw readOnly();
+    }
+
+    @Override
+    protected void storeWeight(double weight) {
+        throw readOnly();
+    }
+
+    @Override
+    protected void storeSeconds(int seconds) {
+        throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Exercise snapshot is read-only");
+    }
+}
@@ -0,0 +1,54 @@
+import java.io.PrintStream;
+
+/**
+ * View without a window, for running the tracker on servers and in scripts. Messages are printed to a
+ * stream, and the selected workout is whichever one was last passed to {@link #select}. Nothing in it
+ * loads AWT or Swing.
+ */
+public class HeadlessGui implements InterfaceGui {
+    private final PrintStream out;
+    private volatile String selectedWorkout;
+
+    /**
+     * Constructs a headless view.
+     * @param out Receives every message shown.
+     */
+    public HeadlessGui(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void initialize() {
+    }
+
+    @Override
+    public void update() {
+    }
+
+    @Override
+    public void showMessage(String message) {
+        out.println(message);
+    }
+
+    @Override
+    public void showProgress(String task, int completed, int total) {
+    }
+
+    @Override
+    public void clear() {
+        selectedWorkout = null;
+    }
+
+    /**
+     * Selects the workout that exercises are added to.
+     * @param workoutName The name of the workout.
+     */
+    public void select(String workoutName) {
+        this.selectedWorkout = workoutName;
+    }
+
+    @Override
+    public String getSelectedWorkout() {
+        return selectedWorkout;
+    }
+}
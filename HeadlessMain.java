@@ -0,0 +1,254 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Runs the tracker without a window, reading commands from a file or standard input.
+ *
+ * Usage: java HeadlessMain [--data-dir directory] [command-file]
+ *
+ * With --data-dir, workouts are restored from and journaled to that directory like the GUI does;
+ * otherwise the log only lives as long as the run. As with the GUI, -Dfitness.maxCachedExercises=N keeps at
+ * most N exercises in memory and the rest in a scratch file. Commands, one per line:
+ * <pre>
+ *   workout NAME                              logs a workout and selects it
+ *   select NAME                               selects a logged workout
+ *   exercise REPS SETS WEIGHT SECONDS NAME    adds an exercise to the selected workout
+ *   stats                                     prints the workout statistics
+ *   list                                      prints every workout and its exercises
+ *   suggest PREFIX                            prints logged exercise names starting with PREFIX
+ *   export FILE [csv|jsonl] [gzip]            exports the log and waits for the export to finish
+ * </pre>
+ * Blank lines and lines starting with # are skipped. A command that fails is reported on standard error
+ * with its line number and the run goes on; the exit status is 1 if any command failed.
+ */
+public class HeadlessMain {
+    private final InterfaceWorkoutLogger workoutLogger;
+    private final HeadlessGui gui;
+    private final Controller controller;
+    private final PrintStream out;
+
+    // Position in the line being parsed
+    private String line;
+    private int position;
+
+    HeadlessMain(InterfaceWorkoutLogger workoutLogger, HeadlessGui gui, Controller controller, PrintStream out) {
+        this.workoutLogger = workoutLogger;
+        this.gui = gui;
+        this.controller = controller;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dataDirectory = null;
+        Path commandFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--data-dir") && i + 1 < args.length) {
+                dataDirectory = Paths.get(args[++i]);
+            } else if (commandFile == null && !args[i].startsWith("--")) {
+                commandFile = Paths.get(args[i]);
+            } else {
+                System.err.println("Usage: java HeadlessMain [--data-dir directory] [command-file]");
+                System.exit(2);
+            }
+        }
+
+        long maxCachedExercises = Long.getLong("fitness.maxCachedExercises", 0);
+        DiskWorkoutLogger diskLogger = maxCachedExercises > 0
+                ? new DiskWorkoutLogger(Paths.get(System.getProperty("java.io.tmpdir")), maxCachedExercises) : null;
+        InterfaceWorkoutLogger workoutLogger = diskLogger != null ? diskLogger : new WorkoutLogger();
+        WorkoutJournal journal = null;
+        if (dataDirectory != null) {
+            try {
+                journal = WorkoutJournal.open(dataDirectory, workoutLogger,
+                                              Long.getLong("fitness.fsyncIntervalMillis", 100));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to open journal, changes will not be saved: " + e);
+            }
+        }
+        // Output is flushed at the end rather than after every line
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16),
+                                          false, StandardCharsets.UTF_8);
+        HeadlessGui gui = new HeadlessGui(out);
+        Controller controller = Controller.headless(workoutLogger, gui);
+
+        int failed;
+        try (BufferedReader in = commandFile == null
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedReader(commandFile, StandardCharsets.UTF_8)) {
+            failed = new HeadlessMain(workoutLogger, gui, controller, out).run(in);
+        } finally {
+            controller.shutdown();
+            if (journal != null) {
+                journal.close();
+            }
+            if (diskLogger != null) {
+                System.err.println(diskLogger.getCacheStats());
+                diskLogger.close();
+            }
+            out.flush();
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs every command read from a reader.
+     *
+     * @param in The commands.
+     * @return The number of commands that failed.
+     * @throws IOException If the commands cannot be read.
+     */
+    int run(BufferedReader in) throws IOException {
+        int failed = 0;
+        long lineNumber = 0;
+        String next;
+        while ((next = in.readLine()) != null) {
+            lineNumber++;
+            try {
+                execute(next);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                failed++;
+                System.err.println("line " + lineNumber + ": " + e.getMessage());
+            } catch (CompletionException e) {
+                failed++;
+                System.err.println("line " + lineNumber + ": " + e.getCause().getMessage());
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Runs one command line.
+     *
+     * @param commandLine The line.
+     * @throws IllegalArgumentException If the command is unknown or its arguments are invalid.
+     */
+    void execute(String commandLine) {
+        line = commandLine;
+        position = 0;
+        String command = nextToken();
+        if (command == null || command.startsWith("#")) {
+            return;
+        }
+        switch (command) {
+            case "workout": {
+                String name = rest("workout name");
+                controller.addWorkout(name).join();
+                gui.select(name);
+                break;
+            }
+            case "select": {
+                String name = rest("workout name");
+                if (workoutLogger.findWorkout(name) == null) {
+                    throw new IllegalArgumentException("Workout not found: " + name);
+                }
+                gui.select(name);
+                break;
+            }
+            case "exercise": {
+                int reps = parseInt(requireToken("reps"));
+                int sets = parseInt(requireToken("sets"));
+                double weight = parseDouble(requireToken("weight"));
+                int seconds = parseInt(requireToken("seconds"));
+                String name = rest("exercise name");
+                if (gui.getSelectedWorkout() == null) {
+                    throw new IllegalStateException("No workout selected");
+                }
+                controller.addExercise(new ConcreteExercise(name, reps, sets, weight, seconds)).join();
+                break;
+            }
+            case "stats":
+                controller.displayStatistics().join(); // Shown as a message
+                break;
+            case "list":
+                out.print(controller.getWorkoutsDisplayText().join());
+                break;
+            case "suggest":
+                for (String name : controller.suggestExerciseNames(rest("prefix"), ExerciseNameIndex.MAX_SUGGESTIONS)) {
+                    out.println(name);
+                }
+                break;
+            case "export": {
+                File file = new File(requireToken("file"));
+                WorkoutExporter.Format format = parseFormat(nextToken());
+                String option = nextToken();
+                if (option != null && !option.equals("gzip")) {
+                    throw new IllegalArgumentException("Unknown export option: " + option);
+                }
+                controller.exportWorkoutData(file, format, option != null).join();
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    private String nextToken() {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+        if (position == line.length()) {
+            return null;
+        }
+        int start = position;
+        while (position < line.length() && !Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+        return line.substring(start, position);
+    }
+
+    private String requireToken(String what) {
+        String token = nextToken();
+        if (token == null) {
+            throw new IllegalArgumentException("Missing " + what);
+        }
+        return token;
+    }
+
+    // The rest of the line, so names may contain spaces
+    private String rest(String what) {
+        String rest = line.substring(position).trim();
+        if (rest.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + what);
+        }
+        return rest;
+    }
+
+    private static int parseInt(String token) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a whole number: " + token);
+        }
+    }
+
+    private static double parseDouble(String token) {
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + token);
+        }
+    }
+
+    private static WorkoutExporter.Format parseFormat(String token) {
+        if (token == null || token.equals("csv")) {
+            return WorkoutExporter.Format.CSV;
+        }
+        if (token.equals("jsonl")) {
+            return WorkoutExporter.Format.JSON_LINES;
+        }
+        throw new IllegalArgumentException("Unknown export format: " + token);
+    }
+}
@@ -11,11 +11,19 @@ public interface InterfaceGui {
     void update();
 
     /**
-     * Shows a message or alert to the user.
+     * Shows a message or alert to the user. May be called from any thread.
      * @param message The message to display.
      */
     void showMessage(String message);
 
+    /**
+     * Shows the progress of a long-running task. May be called from any thread.
+     * @param task A short description of the task.
+     * @param completed Units of work completed so far.
+     * @param total Total units of work.
+     */
+    void showProgress(String task, int completed, int total);
+
     /**
      * Clears or resets the GUI components to their default state.
      */
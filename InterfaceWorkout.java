@@ -1,15 +1,30 @@
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface InterfaceWorkout {
     // Add an exercise to the workout
     void addExercise(AbstractExercise exercise);
 
+    // Add several exercises at once, with a single update of the totals
+    void addExercises(Collection<? extends AbstractExercise> exercises);
+
     // Remove an exercise from the workout
     boolean removeExercise(AbstractExercise exercise);
 
-    // Get a list of all exercises in the workout
+    // Get a list of all exercises in the workout (a new copy on every call)
     List<AbstractExercise> getExercises();
 
+    // Get a read-only live view of the exercises, without copying them
+    List<AbstractExercise> exercisesView();
+
+    // Get the number of exercises in the workout
+    int exerciseCount();
+
+    // Visit every exercise in order, without copying the list
+    void forEachExercise(Consumer<? super AbstractExercise> action);
+
     // Get the total duration of the workout in minutes
     int getDurationMinutes();
 
@@ -18,4 +33,14 @@ public interface InterfaceWorkout {
 
    //Set the name of the workout
     void setWorkoutName(String workoutName);
+
+    // Get and set when the session took place
+    Instant getSessionStart();
+
+    void setSessionStart(Instant sessionStart);
+
+    // Be told about exercises added to, removed from or changed in the workout
+    void addChangeListener(WorkoutChangeListener listener);
+
+    void removeChangeListener(WorkoutChangeListener listener);
 }
@@ -1,9 +1,15 @@
+import java.util.Collection;
 import java.util.List;
 
 public interface InterfaceWorkoutLogger {
     void logWorkout(AbstractWorkout workout);  // Method to log a new workout
+    int logWorkouts(Collection<? extends AbstractWorkout> workouts);  // Method to log several workouts at once, returns how many were new
+    AbstractWorkout findWorkout(String workoutName);  // Method to look up a logged workout by name, null if absent
+    boolean removeWorkout(AbstractWorkout workout);  // Method to remove a logged workout
     List<AbstractWorkout> getLoggedWorkouts();  // Method to retrieve all logged workouts
     int getNumberOfWorkouts();
+    WorkoutLogVersion snapshot();  // Method to get an immutable view of the whole log at one instant
+    void addChangeListener(WorkoutChangeListener listener);  // Method to be told about logged, removed and changed workouts
+    void removeChangeListener(WorkoutChangeListener listener);
 
 }
-
@@ -1,54 +1,216 @@
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class LinkedListWorkouts {
+public class LinkedListWorkouts implements Iterable<AbstractWorkout> {
 	private Node head; // Head of the linked list
+	private Node tail; // Last node, where new workouts are appended
+	private long size; // Number of workouts across all nodes
 
 	public LinkedListWorkouts() {
 		this.head = null;
+		this.tail = null;
+		this.size = 0;
 	}
 
 	/**
-	 * Logs a workout using a recursive method to add it to the linked list.
-	 * 
+	 * Logs a workout by appending it to the last node, starting a new node when it is full.
+	 *
 	 * @param workout The workout to log.
 	 */
 	public void logWorkout(AbstractWorkout workout) {
 		if (workout == null) {
 			throw new IllegalArgumentException("Workout cannot be null");
 		}
-		head = addWorkoutRecursively(head, workout);
+		if (tail == null) {
+			head = tail = new Node(workout);
+		} else if (!tail.add(workout)) {
+			tail.next = new Node(workout);
+			tail = tail.next;
+		}
+		size++;
 	}
 
 	/**
-	 * Helper method to recursively add a workout to the linked list.
-	 * 
-	 * @param current The current node in the linked list.
-	 * @param workout The workout to add.
-	 * @return The node after adding the workout.
+	 * Returns the number of logged workouts.
+	 *
+	 * @return The number of workouts in the list.
 	 */
-	private Node addWorkoutRecursively(Node current, AbstractWorkout workout) {
-		if (current == null) {
-			return new Node(workout);
-		} else {
-			current.next = addWorkoutRecursively(current.next, workout);
-			return current;
-		}
+	public long size() {
+		return size;
 	}
 
 	/**
-	 * Retrieves all workouts in the linked list.
-	 * 
+	 * Retrieves all workouts in the linked list as a new list.
+	 * Prefer iterating or streaming the list directly, which does not copy it.
+	 *
 	 * @return A list of all workouts.
 	 */
 	public List<AbstractWorkout> getAllWorkouts() {
-		List<AbstractWorkout> workouts = new ArrayList<>();
-		Node current = head;
-		while (current != null) {
-			workouts.add(current.workout);
-			current = current.next;
-		}
+		List<AbstractWorkout> workouts = new ArrayList<>((int) Math.min(size, Integer.MAX_VALUE));
+		forEach(workouts::add);
 		return workouts;
 	}
 
+	/**
+	 * Returns an iterator over the workouts in the order they were logged.
+	 *
+	 * @return An iterator over the workouts.
+	 */
+	@Override
+	public Iterator<AbstractWorkout> iterator() {
+		return new Iterator<AbstractWorkout>() {
+			private Node node = head;
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return node != null && (index < node.count || node.next != null);
+			}
+
+			@Override
+			public AbstractWorkout next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				if (index == node.count) {
+					node = node.next;
+					index = 0;
+				}
+				return node.workouts[index++];
+			}
+		};
+	}
+
+	/**
+	 * Performs the action for every workout, walking each node's array directly.
+	 *
+	 * @param action The action to perform.
+	 */
+	@Override
+	public void forEach(Consumer<? super AbstractWorkout> action) {
+		for (Node node = head; node != null; node = node.next) {
+			for (int i = 0; i < node.count; i++) {
+				action.accept(node.workouts[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns a spliterator over the workouts logged so far. Workouts logged after it was created
+	 * are not visited.
+	 *
+	 * @return A sized spliterator that splits along node boundaries.
+	 */
+	@Override
+	public Spliterator<AbstractWorkout> spliterator() {
+		return new NodeSpliterator(head, 0, size);
+	}
+
+	/**
+	 * Returns a sequential stream over the workouts without copying them.
+	 *
+	 * @return A stream of workouts.
+	 */
+	public Stream<AbstractWorkout> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * Returns a parallel stream over the workouts without copying them.
+	 *
+	 * @return A parallel stream of workouts.
+	 */
+	public Stream<AbstractWorkout> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+
+	/**
+	 * Spliterator over a fixed number of workouts starting at a position inside a node.
+	 */
+	private static final class NodeSpliterator implements Spliterator<AbstractWorkout> {
+		private static final long MIN_SPLIT = 1024; // Below this size splitting costs more than it saves
+
+		private Node node;
+		private int index;
+		private long remaining;
+
+		NodeSpliterator(Node node, int index, long remaining) {
+			this.node = node;
+			this.index = index;
+			this.remaining = remaining;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super AbstractWorkout> action) {
+			if (remaining == 0) {
+				return false;
+			}
+			if (index == node.count) {
+				node = node.next;
+				index = 0;
+			}
+			remaining--;
+			action.accept(node.workouts[index++]);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super AbstractWorkout> action) {
+			while (remaining > 0) {
+				if (index == node.count) {
+					node = node.next;
+					index = 0;
+				}
+				int end = (int) Math.min(node.count, index + remaining);
+				for (int i = index; i < end; i++) {
+					action.accept(node.workouts[i]);
+				}
+				remaining -= end - index;
+				index = end;
+			}
+		}
+
+		/**
+		 * Splits off a prefix ending at the node boundary closest to the middle without passing it,
+		 * so the remaining part starts at the front of a node.
+		 */
+		@Override
+		public Spliterator<AbstractWorkout> trySplit() {
+			if (remaining < MIN_SPLIT) {
+				return null;
+			}
+			if (index == node.count) {
+				node = node.next;
+				index = 0;
+			}
+			long half = remaining >>> 1;
+			Node last = node;
+			long prefixSize = node.count - index; // At most one node, which is less than half of MIN_SPLIT
+			while (prefixSize + last.next.count <= half) {
+				last = last.next;
+				prefixSize += last.count;
+			}
+			NodeSpliterator prefix = new NodeSpliterator(node, index, prefixSize);
+			node = last.next;
+			index = 0;
+			remaining -= prefixSize;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return remaining;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL;
+		}
+	}
 }
@@ -1,14 +1,74 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.management.JMException;
+
 public class Main {
     public static void main(String[] args) {
-        // Create the model
-        WorkoutLogger workoutLogger = new WorkoutLogger();
+        // Create the model. -Dfitness.maxCachedExercises=N keeps at most N exercises in memory and the rest on disk.
+        InterfaceWorkoutLogger workoutLogger = new WorkoutLogger();
+        DiskWorkoutLogger diskLogger = null;
+        long maxCachedExercises = Long.getLong("fitness.maxCachedExercises", 0);
+        if (maxCachedExercises > 0) {
+            try {
+                diskLogger = new DiskWorkoutLogger(Paths.get(System.getProperty("java.io.tmpdir")), maxCachedExercises);
+                workoutLogger = diskLogger;
+            } catch (IOException e) {
+                System.err.println("Failed to create exercise file, keeping exercises in memory: " + e.getMessage());
+            }
+        }
+
+        // Restore saved workouts and record every change from here on
+        Path dataDirectory = Paths.get(System.getProperty("fitness.dataDir", "fitness-data"));
+        long fsyncIntervalMillis = Long.getLong("fitness.fsyncIntervalMillis", 100);
+        WorkoutJournal journal = null;
+        try {
+            journal = WorkoutJournal.open(dataDirectory, workoutLogger, fsyncIntervalMillis);
+        } catch (IOException | RuntimeException e) { // Such as an unreadable snapshot
+            System.err.println("Failed to open journal, changes will not be saved: " + e);
+        }
 
         // Create the view
         // Pass it 'null' for now, the controller will be set later
         ConcreteGui gui = new ConcreteGui(null);
 
-        // Create the controller and link it with the model and view
-        Controller controller = new Controller(workoutLogger, gui);
+        // Create the controller and link it with the model and view.
+        // By default it works off the event dispatch thread; -Dfitness.asyncController=false runs it inline.
+        boolean asynchronous = Boolean.parseBoolean(System.getProperty("fitness.asyncController", "true"));
+        Controller controller = asynchronous ? Controller.asynchronous(workoutLogger, gui)
+                                             : new Controller(workoutLogger, gui);
+
+        // Publish operation metrics over JMX and print them once a minute; -Dfitness.metrics=false turns them off
+        try {
+            WorkoutMetrics.registerMBean();
+        } catch (JMException e) {
+            System.err.println("Failed to register metrics MBean: " + e.getMessage());
+        }
+        long metricsDumpSeconds = Long.getLong("fitness.metrics.dumpSeconds", 60);
+        if (metricsDumpSeconds > 0) {
+            WorkoutMetrics.startPeriodicDump(metricsDumpSeconds);
+        }
+
+        // On exit, finish the changes already submitted before the journal is closed
+        WorkoutJournal openJournal = journal;
+        DiskWorkoutLogger openDiskLogger = diskLogger;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            controller.shutdown();
+            if (openJournal != null) {
+                try {
+                    openJournal.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close journal: " + e.getMessage());
+                }
+            }
+            if (openDiskLogger != null) {
+                try {
+                    openDiskLogger.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close exercise file: " + e.getMessage());
+                }
+            }
+        }));
 
         // Set the controller to the GUI after it's created
         gui.setController(controller);
@@ -1,11 +1,28 @@
 public class Node {
-        AbstractWorkout workout;
+        static final int CAPACITY = 256; // Workouts stored per node
+
+        AbstractWorkout[] workouts;
+        int count; // Number of slots in use
         Node next;
 
         public Node(AbstractWorkout workout) {
-            this.workout = workout;
+            this.workouts = new AbstractWorkout[CAPACITY];
+            this.workouts[0] = workout;
+            this.count = 1;
             this.next = null;
         }
-        {
+
+        /**
+         * Stores a workout in the next free slot.
+         *
+         * @param workout The workout to store.
+         * @return false if the node is already full.
+         */
+        boolean add(AbstractWorkout workout) {
+            if (count == workouts.length) {
+                return false;
+            }
+            workouts[count++] = workout;
+            return true;
+        }
 }
-}
\ No newline at end of file
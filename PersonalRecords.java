@@ -0,0 +1,248 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Personal records of every exercise type over the logged workouts: the heaviest weight, the largest
+ * volume of one set and the best estimated one-rep max.
+ *
+ * Each type keeps the values of all its occurrences in sorted multisets, so adding, removing or editing an
+ * exercise costs O(log n) and a removed record falls back to the next best value without rescanning the
+ * history. The current records of each type are kept ready, so looking them up takes constant time.
+ *
+ * The records are kept current by the logger that owns them and, like the logger, must only be used on
+ * the thread that changes the log.
+ */
+public class PersonalRecords implements WorkoutChangeListener {
+
+    /**
+     * The records of one exercise type. Instances never change; every update replaces them.
+     */
+    public static final class Record {
+        private final ExerciseType type;
+        private final int entries;
+        private final double maxWeight;
+        private final double maxSetVolume;
+        private final double bestEstimatedOneRepMax;
+
+        Record(ExerciseType type, int entries, double maxWeight, double maxSetVolume, double bestEstimatedOneRepMax) {
+            this.type = type;
+            this.entries = entries;
+            this.maxWeight = maxWeight;
+            this.maxSetVolume = maxSetVolume;
+            this.bestEstimatedOneRepMax = bestEstimatedOneRepMax;
+        }
+
+        public ExerciseType getType() {
+            return type;
+        }
+
+        /**
+         * Returns the number of logged occurrences the records are taken from.
+         * @return The number of occurrences.
+         */
+        public int getEntries() {
+            return entries;
+        }
+
+        public double getMaxWeight() {
+            return maxWeight;
+        }
+
+        /**
+         * Returns the largest reps * weight of a single set.
+         * @return The largest set volume.
+         */
+        public double getMaxSetVolume() {
+            return maxSetVolume;
+        }
+
+        public double getBestEstimatedOneRepMax() {
+            return bestEstimatedOneRepMax;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(64).append(type.getName()).append(": max weight ");
+            TextFormat.appendFixed(sb, maxWeight, 2).append(", max set volume ");
+            TextFormat.appendFixed(sb, maxSetVolume, 2).append(", estimated 1RM ");
+            return TextFormat.appendFixed(sb, bestEstimatedOneRepMax, 2).toString();
+        }
+    }
+
+    // Values one occurrence is counted with
+    private static final class Lift {
+        final ExerciseType type;
+        final double weight;
+        final double setVolume;
+        final double estimatedOneRepMax;
+
+        Lift(AbstractExercise exercise) {
+            type = exercise.getType();
+            weight = exercise.getWeight();
+            setVolume = exercise.getReps() * exercise.getWeight();
+            estimatedOneRepMax = estimateOneRepMax(exercise.getReps(), exercise.getWeight());
+        }
+    }
+
+    // Sorted values of every occurrence of one type, as counts per value
+    private static final class Entry {
+        final ExerciseType type;
+        final TreeMap<Double, Integer> weights = new TreeMap<>();
+        final TreeMap<Double, Integer> setVolumes = new TreeMap<>();
+        final TreeMap<Double, Integer> oneRepMaxes = new TreeMap<>();
+        int entries;
+        Record record;
+
+        Entry(ExerciseType type) {
+            this.type = type;
+        }
+    }
+
+    private Entry[] entries = new Entry[64]; // Indexed by type id
+    private final Map<AbstractWorkout, List<Lift>> byWorkout = new IdentityHashMap<>(); // In exercise order
+
+    /**
+     * Estimates the heaviest weight that could be lifted once, with the Epley formula
+     * weight * (1 + reps / 30). A single rep is its own one-rep max and no reps estimate nothing.
+     *
+     * @param reps The reps lifted.
+     * @param weight The weight lifted.
+     * @return The estimated one-rep max.
+     */
+    public static double estimateOneRepMax(int reps, double weight) {
+        if (reps <= 1) {
+            return reps == 1 ? weight : 0;
+        }
+        return weight * (1 + reps / 30.0);
+    }
+
+    /**
+     * Returns the records of an exercise, in constant time.
+     *
+     * @param exerciseName The exercise name.
+     * @return The records, or null if the exercise is not in any logged workout.
+     */
+    public Record getRecord(String exerciseName) {
+        return getRecord(ExerciseTypeRegistry.getDefault().find(exerciseName));
+    }
+
+    /**
+     * Returns the records of an exercise type, in constant time.
+     *
+     * @param type The exercise type.
+     * @return The records, or null if the type is not in any logged workout.
+     */
+    public Record getRecord(ExerciseType type) {
+        if (type == null || type.getId() >= entries.length) {
+            return null;
+        }
+        Entry entry = entries[type.getId()];
+        return entry == null ? null : entry.record;
+    }
+
+    /**
+     * Returns the records of every exercise type in the logged workouts.
+     * @return The records, by type id.
+     */
+    public List<Record> getRecords() {
+        List<Record> records = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry != null && entry.record != null) {
+                records.add(entry.record);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public void workoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        List<AbstractExercise> exercises = workout.exercisesView();
+        List<Lift> lifts = new ArrayList<>(exercises.size());
+        byWorkout.put(workout, lifts);
+        for (int i = 0; i < exercises.size(); i++) {
+            Lift lift = new Lift(exercises.get(i));
+            lifts.add(lift);
+            add(lift);
+        }
+    }
+
+    @Override
+    public void workoutRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        List<Lift> lifts = byWorkout.remove(workout);
+        if (lifts != null) {
+            for (Lift lift : lifts) {
+                remove(lift);
+            }
+        }
+    }
+
+    @Override
+    public void exerciseAdded(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                              AbstractExercise exercise, int index) {
+        List<Lift> lifts = byWorkout.get(workout);
+        if (lifts != null) {
+            Lift lift = new Lift(exercise);
+            lifts.add(index, lift);
+            add(lift);
+        }
+    }
+
+    @Override
+    public void exerciseRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                AbstractExercise exercise, int index) {
+        List<Lift> lifts = byWorkout.get(workout);
+        if (lifts != null) {
+            remove(lifts.remove(index));
+        }
+    }
+
+    @Override
+    public void exerciseModified(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                 AbstractExercise exercise, int index) {
+        List<Lift> lifts = byWorkout.get(workout);
+        if (lifts != null) {
+            Lift lift = new Lift(exercise);
+            remove(lifts.set(index, lift));
+            add(lift);
+        }
+    }
+
+    private void add(Lift lift) {
+        int id = lift.type.getId();
+        if (id >= entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(entries.length * 2, id + 1));
+        }
+        Entry entry = entries[id];
+        if (entry == null) {
+            entry = entries[id] = new Entry(lift.type);
+        }
+        entry.weights.merge(lift.weight, 1, Integer::sum);
+        entry.setVolumes.merge(lift.setVolume, 1, Integer::sum);
+        entry.oneRepMaxes.merge(lift.estimatedOneRepMax, 1, Integer::sum);
+        entry.entries++;
+        updateRecord(entry);
+    }
+
+    private void remove(Lift lift) {
+        Entry entry = entries[lift.type.getId()];
+        decrement(entry.weights, lift.weight);
+        decrement(entry.setVolumes, lift.setVolume);
+        decrement(entry.oneRepMaxes, lift.estimatedOneRepMax);
+        entry.entries--;
+        updateRecord(entry);
+    }
+
+    private static void decrement(TreeMap<Double, Integer> values, double value) {
+        values.computeIfPresent(value, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    private static void updateRecord(Entry entry) {
+        entry.record = entry.entries == 0 ? null
+                : new Record(entry.type, entry.entries, entry.weights.lastKey(), entry.setVolumes.lastKey(),
+                             entry.oneRepMaxes.lastKey());
+    }
+}
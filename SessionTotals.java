@@ -0,0 +1,90 @@
+/**
+ * Totals over a set of workout sessions, such as the sessions of one day or of a time window.
+ * Instances never change; adding or removing a session returns new totals.
+ */
+public final class SessionTotals {
+    public static final SessionTotals EMPTY = new SessionTotals(0, 0, 0);
+
+    private final int numberOfWorkouts;
+    private final double totalVolume;
+    private final long totalDurationMinutes;
+
+    private SessionTotals(int numberOfWorkouts, double totalVolume, long totalDurationMinutes) {
+        this.numberOfWorkouts = numberOfWorkouts;
+        this.totalVolume = totalVolume;
+        this.totalDurationMinutes = totalDurationMinutes;
+    }
+
+    public int getNumberOfWorkouts() {
+        return numberOfWorkouts;
+    }
+
+    public double getTotalVolume() {
+        return totalVolume;
+    }
+
+    public long getTotalDurationMinutes() {
+        return totalDurationMinutes;
+    }
+
+    /**
+     * Returns the average duration of the sessions.
+     * @return The average in minutes, or 0 if there are no sessions.
+     */
+    public double getAverageDurationMinutes() {
+        return numberOfWorkouts == 0 ? 0 : (double) totalDurationMinutes / numberOfWorkouts;
+    }
+
+    /**
+     * Returns these totals with one more session.
+     * @param workout The session to add.
+     * @return The new totals.
+     */
+    public SessionTotals plus(WorkoutVersion workout) {
+        return new SessionTotals(numberOfWorkouts + 1, totalVolume + workout.getTotalVolume(),
+                                 totalDurationMinutes + workout.getDurationMinutes());
+    }
+
+    /**
+     * Returns these totals without one of their sessions.
+     * @param workout The session to take out.
+     * @return The new totals; exactly EMPTY once no session is left.
+     */
+    public SessionTotals minus(WorkoutVersion workout) {
+        if (numberOfWorkouts <= 1) {
+            return EMPTY; // Also drops the rounding error left by adding and subtracting volumes
+        }
+        return new SessionTotals(numberOfWorkouts - 1, totalVolume - workout.getTotalVolume(),
+                                 totalDurationMinutes - workout.getDurationMinutes());
+    }
+
+    /**
+     * Returns the combined totals of two sets of sessions.
+     * @param other The other totals.
+     * @return The sum.
+     */
+    public SessionTotals plus(SessionTotals other) {
+        return new SessionTotals(numberOfWorkouts + other.numberOfWorkouts, totalVolume + other.totalVolume,
+                                 totalDurationMinutes + other.totalDurationMinutes);
+    }
+
+    /**
+     * Returns these totals without a set of sessions they include.
+     * @param other The totals to take out.
+     * @return The difference.
+     */
+    public SessionTotals minus(SessionTotals other) {
+        if (numberOfWorkouts <= other.numberOfWorkouts) {
+            return EMPTY;
+        }
+        return new SessionTotals(numberOfWorkouts - other.numberOfWorkouts, totalVolume - other.totalVolume,
+                                 totalDurationMinutes - other.totalDurationMinutes);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(64).append("Workouts: ").append(numberOfWorkouts).append(", Volume: ");
+        TextFormat.appendFixed(sb, totalVolume, 2).append(" kg, Duration: ").append(totalDurationMinutes).append(" minutes");
+        return sb.toString();
+    }
+}
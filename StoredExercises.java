@@ -0,0 +1,228 @@
+import java.lang.ref.Reference;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Exercise list of a {@link StoredWorkout} that lives in an {@link ExerciseFile} and is only held in memory,
+ * as an {@link ExerciseColumns} store, while its {@link DiskWorkoutLogger} keeps it cached.
+ *
+ * The size is always known, so counting exercises never reads the file. Every other list operation first
+ * asks the logger for the rows, loading them from the file if they were evicted. Changed rows are written
+ * back when they are evicted, and the run they replace is released. A snapshot of a cached list shares its
+ * columns until the list is evicted, and from then on reads the rows from the file, so holding on to a
+ * version does not keep its rows in memory; it holds its run in the file instead, until it is collected.
+ * Snapshots may be read on any thread.
+ */
+class StoredExercises extends AbstractList<AbstractExercise> implements VersionedList<AbstractExercise>, RandomAccess {
+    private final ExerciseFile file;
+    private DiskWorkoutLogger cache; // Null once the workout left the log and keeps its rows in memory
+    private AbstractWorkout owner;
+    private ExerciseColumns columns; // The rows while cached, null while evicted
+    private long offset = ExerciseFile.NO_RUN; // First row in the file, once written; this list holds the run
+    private int size;
+    private boolean dirty; // The cached rows differ from the file
+    private Snapshot published; // Last snapshot handed out, moved to the file when the rows are evicted
+
+    // Links of the cache's least recently used list, only touched by the cache
+    StoredExercises newer;
+    StoredExercises older;
+
+    /**
+     * Constructs an empty, cached list.
+     * @param cache The logger caching the list.
+     * @param file The file the list is evicted to.
+     */
+    StoredExercises(DiskWorkoutLogger cache, ExerciseFile file) {
+        this.cache = cache;
+        this.file = file;
+        this.columns = new ExerciseColumns();
+        this.dirty = true;
+    }
+
+    /**
+     * Sets the workout whose totals cover these exercises.
+     * @param owner The owning workout.
+     */
+    void setOwner(AbstractWorkout owner) {
+        this.owner = owner;
+        columns.setOwner(owner);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public AbstractExercise get(int index) {
+        return columns().get(index);
+    }
+
+    @Override
+    public boolean add(AbstractExercise exercise) {
+        columns().add(exercise);
+        resized(1);
+        return true;
+    }
+
+    @Override
+    public AbstractExercise remove(int index) {
+        AbstractExercise removed = columns().remove(index);
+        resized(-1);
+        return removed;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return columns().indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Returns an immutable copy of the current rows in constant time. The same snapshot is returned until
+     * the rows change.
+     * @return A snapshot sharing the cached columns, or reading the file if the rows are evicted.
+     */
+    @Override
+    public List<AbstractExercise> snapshot() {
+        if (columns == null) {
+            if (published == null || published.rows != null || published.offset != offset) {
+                published = new Snapshot(file, offset, size, null);
+            }
+            return published;
+        }
+        dirty = true; // Workouts publish after every change, including edits made through exercise views
+        List<AbstractExercise> rows = columns.snapshot();
+        if (published == null || published.rows != rows) {
+            published = new Snapshot(file, offset, size, rows);
+        }
+        return published;
+    }
+
+    boolean isCached() {
+        return columns != null;
+    }
+
+    /**
+     * Reads the rows back from the file.
+     */
+    void load() {
+        ExerciseColumns rows = new ExerciseColumns();
+        rows.setOwner(owner);
+        file.read(offset, size, rows);
+        columns = rows;
+    }
+
+    /**
+     * Drops the cached rows, writing them to the file first if they changed. The last snapshot handed out
+     * reads the file from now on, so the versions holding it no longer keep the rows in memory. Exercise
+     * views over the dropped rows are detached, so an edit through one throws rather than being lost.
+     *
+     * @return true if the rows had to be written.
+     */
+    boolean evict() {
+        boolean written = dirty;
+        if (dirty) {
+            long writtenAt = file.write(columns);
+            file.release(offset);
+            offset = writtenAt;
+            dirty = false;
+        }
+        if (published != null && published.rows == columns.snapshot()) {
+            published.spill(offset);
+        }
+        columns.detach();
+        columns = null;
+        return written;
+    }
+
+    /**
+     * Keeps the rows in memory from now on, for a workout that was removed from the log.
+     */
+    void release() {
+        cache = null;
+        file.release(offset);
+        offset = ExerciseFile.NO_RUN;
+    }
+
+    private ExerciseColumns columns() {
+        if (cache != null) {
+            cache.use(this);
+        }
+        return columns;
+    }
+
+    private void resized(int delta) {
+        size += delta;
+        if (cache != null) {
+            cache.resized(delta);
+        }
+    }
+
+    /**
+     * Rows of the list at one point in time. They are held as a columns snapshot while the list is cached and
+     * read from the file once it is evicted; the values are the same either way, so any thread may read them.
+     * A snapshot reading the file holds its run until it is garbage collected.
+     */
+    private static final class Snapshot extends AbstractList<AbstractExercise> implements RandomAccess {
+        private final ExerciseFile file;
+        private volatile long offset; // Set before rows is cleared, so a reader that finds no rows sees it
+        private final int size;
+        private volatile List<AbstractExercise> rows; // The columns snapshot, until the list is evicted
+
+        Snapshot(ExerciseFile file, long offset, int size, List<AbstractExercise> rows) {
+            this.file = file;
+            this.offset = offset;
+            this.size = size;
+            this.rows = rows;
+            if (rows == null) {
+                file.holdFor(this, offset);
+            }
+        }
+
+        // Reads the rows from the file from now on, where they were just written
+        void spill(long writtenAt) {
+            file.holdFor(this, writtenAt); // Before any reader can see the offset
+            offset = writtenAt;
+            rows = null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns one row; rows read from the file cannot be changed. The whole run is read at once, and
+         * the file keeps it among its recently read runs for the next cells.
+         */
+        @Override
+        public AbstractExercise get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            List<AbstractExercise> current = rows;
+            return current != null ? current.get(index) : fromFile().get(index);
+        }
+
+        @Override
+        public Iterator<AbstractExercise> iterator() {
+            List<AbstractExercise> current = rows;
+            return (current != null ? current : fromFile()).iterator();
+        }
+
+        private List<AbstractExercise> fromFile() {
+            try {
+                return file.readExercises(offset, size);
+            } finally {
+                Reference.reachabilityFence(this); // Holds the run until it was read
+            }
+        }
+    }
+}
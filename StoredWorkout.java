@@ -0,0 +1,34 @@
+import java.time.Instant;
+
+/**
+ * Workout logged in a {@link DiskWorkoutLogger}. Its name, session time and running totals stay in memory;
+ * its exercises are read from disk when they are used and go back to disk when other workouts need the room.
+ *
+ * Exercises handed out are views over the cached rows, as with a {@link ColumnarWorkout}. A view taken
+ * before the workout was evicted keeps reading the values it had then, and its setters throw
+ * {@link IllegalStateException}; get the exercise from the workout again to edit it.
+ */
+public class StoredWorkout extends AbstractWorkout {
+    private final StoredExercises exercises;
+
+    StoredWorkout(String workoutName, Instant sessionStart, StoredExercises exercises) {
+        super(workoutName, sessionStart, exercises);
+        this.exercises = exercises;
+        exercises.setOwner(this);
+    }
+
+    StoredExercises storage() {
+        return exercises;
+    }
+
+    /**
+     * Removes the row matching the exercise, either a view over this workout or an exercise with the same values.
+     *
+     * @param exercise The exercise to remove.
+     * @return true if a matching row was removed.
+     */
+    @Override
+    public boolean removeExercise(AbstractExercise exercise) {
+        return removeStoredExercise(exercise);
+    }
+}
@@ -0,0 +1,71 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Number formatting that appends to a caller's StringBuilder instead of going through String.format,
+ * which parses its pattern and boxes every argument on each call.
+ *
+ * Numbers are written with a '.' decimal separator whatever the default locale is.
+ */
+public final class TextFormat {
+    private static final long[] POWERS_OF_TEN = { 1, 10, 100, 1_000, 10_000, 100_000, 1_000_000 };
+    private static final double MAX_FAST = 1e15; // Larger scaled values lose the digits below the point
+    private static final int TIE_ULPS = 4; // Scaled values this close to a tie are rounded exactly
+
+    private TextFormat() {
+    }
+
+    /**
+     * Appends a number with a fixed number of decimals, rounded half up like "%.2f" does: a value
+     * written as 1.005 is shown as 1.01 even though the nearest double is slightly below it, and one
+     * written as 5.244999999999999 as 5.24. Values within a few ulps of a tie are rounded through BigDecimal.
+     *
+     * @param sb The builder to append to.
+     * @param value The number.
+     * @param decimals Digits after the point, from 0 to 6.
+     * @return The builder.
+     */
+    public static StringBuilder appendFixed(StringBuilder sb, double value, int decimals) {
+        if (decimals < 0 || decimals >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Decimals must be between 0 and " + (POWERS_OF_TEN.length - 1));
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return sb.append(value);
+        }
+        long factor = POWERS_OF_TEN[decimals];
+        double scaled = Math.abs(value) * factor;
+        if (scaled >= MAX_FAST) {
+            return appendExact(sb, value, decimals); // Rare, and the digits below the point are lost anyway
+        }
+        long units = (long) scaled;
+        double rest = scaled - units;
+        // Scaling may move a value across a decimal tie such as 1.005, which is stored a few ulps below it
+        if (Math.abs(rest - 0.5) <= TIE_ULPS * Math.ulp(scaled)) {
+            return appendExact(sb, value, decimals);
+        }
+        if (rest > 0.5) {
+            units++;
+        }
+        if (Double.doubleToRawLongBits(value) < 0) {
+            sb.append('-'); // Keeps the sign of small negative values and -0.0, as "%.2f" does
+        }
+        sb.append(units / factor);
+        if (decimals > 0) {
+            sb.append('.');
+            long fraction = units % factor;
+            for (long digit = factor / 10; digit > 1 && fraction < digit; digit /= 10) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+        return sb;
+    }
+
+    // Rounds the shortest decimal form of the value, as Formatter does; slow but exact
+    private static StringBuilder appendExact(StringBuilder sb, double value, int decimals) {
+        if (Double.doubleToRawLongBits(value) < 0) {
+            sb.append('-'); // BigDecimal has no negative zero
+        }
+        return sb.append(new BigDecimal(Double.toString(Math.abs(value))).setScale(decimals, RoundingMode.HALF_UP).toPlainString());
+    }
+}
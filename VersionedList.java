@@ -0,0 +1,37 @@
+import java.util.List;
+
+/**
+ * A mutable list that can hand out immutable snapshots of its current contents in constant time.
+ * A snapshot never changes, whatever happens to the list afterwards.
+ *
+ * @param <E> The element type.
+ */
+public interface VersionedList<E> extends List<E> {
+
+    /**
+     * Returns the current contents as an immutable list.
+     * @return A snapshot that is not affected by later changes.
+     */
+    List<E> snapshot();
+
+    /**
+     * Called after an element held by the list was changed in place, so that later snapshots hold its new
+     * values while earlier ones keep the old. Lists whose elements are views over their own storage see the
+     * change already and need do nothing.
+     * @param index The position of the changed element; an element held at several positions is reported
+     *              once for each.
+     * @param element The changed element.
+     */
+    default void elementChanged(int index, E element) {
+    }
+
+    /**
+     * Returns true if the list holds the elements added to it, so an element keeps its identity when an
+     * earlier one is removed and moves down one position. Lists that hand out positional views over copied
+     * values return false; their views go stale instead.
+     * @return Whether elements are held as they were added.
+     */
+    default boolean holdsElements() {
+        return false;
+    }
+}
@@ -0,0 +1,157 @@
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.UnaryOperator;
+
+/**
+ * Mutable list backed by a {@link PersistentVector}. Every change replaces the vector,
+ * so {@link #snapshot()} only returns the current one.
+ *
+ * Elements that can be changed in place are given a freezer, and snapshots then hold frozen copies in a
+ * second vector kept alongside the live one. Copies are made lazily, when a snapshot is taken: appended
+ * elements and elements reported through {@link #elementChanged} since the last snapshot are frozen then,
+ * once each, however often they changed in between. Earlier snapshots keep the copies they were given.
+ * Not thread-safe for writers; snapshots may be read from any thread.
+ *
+ * @param <E> The element type.
+ */
+public class VersionedVector<E> extends AbstractList<E> implements VersionedList<E>, RandomAccess {
+    private final UnaryOperator<E> freezer; // Null when elements never change in place
+    private PersistentVector<E> current = PersistentVector.empty();
+    // Frozen copies of the first frozen.size() elements of current, as of the last snapshot, when there is a freezer
+    private PersistentVector<E> frozen = PersistentVector.empty();
+    private final BitSet changed = new BitSet(); // Positions below frozen.size() edited since the last snapshot
+
+    /**
+     * Constructs an empty list whose snapshots hold the elements themselves.
+     */
+    public VersionedVector() {
+        this(null);
+    }
+
+    /**
+     * Constructs an empty list whose snapshots hold frozen copies of the elements.
+     * @param freezer Returns an element that never changes with the values of the given one.
+     */
+    public VersionedVector(UnaryOperator<E> freezer) {
+        this.freezer = freezer;
+    }
+
+    /**
+     * Returns the current contents, freezing the elements appended or changed since the last snapshot.
+     * @return A snapshot that is not affected by later changes.
+     */
+    @Override
+    public List<E> snapshot() {
+        if (freezer == null) {
+            return current;
+        }
+        freezePending();
+        return frozen;
+    }
+
+    /**
+     * Marks a position to be frozen again by the next snapshot, in constant time.
+     * @param index The position of the changed element.
+     * @param element The changed element.
+     */
+    @Override
+    public void elementChanged(int index, E element) {
+        if (freezer != null && index < frozen.size()) {
+            changed.set(index);
+        }
+    }
+
+    @Override
+    public boolean holdsElements() {
+        return true;
+    }
+
+    @Override
+    public E get(int index) {
+        return current.get(index);
+    }
+
+    @Override
+    public int size() {
+        return current.size();
+    }
+
+    @Override
+    public boolean add(E element) {
+        current = current.plus(element); // Frozen by the next snapshot
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if (index == current.size()) {
+            add(element);
+            return;
+        }
+        if (index < 0 || index > current.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.size());
+        }
+        freezePending(); // Keeps the frozen positions in step with the live ones
+        current = inserted(current, index, element);
+        if (freezer != null) {
+            frozen = inserted(frozen, index, freezer.apply(element));
+        }
+        modCount++;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        E previous = current.get(index);
+        current = current.with(index, element);
+        elementChanged(index, element);
+        return previous;
+    }
+
+    @Override
+    public E remove(int index) {
+        E removed = current.get(index);
+        freezePending();
+        current = current.without(index);
+        if (freezer != null) {
+            frozen = frozen.without(index);
+        }
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        current = PersistentVector.empty();
+        frozen = PersistentVector.empty();
+        changed.clear();
+        modCount++;
+    }
+
+    // Brings the frozen copies up to date with the live elements
+    private void freezePending() {
+        if (freezer == null) {
+            return;
+        }
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            frozen = frozen.with(i, freezer.apply(current.get(i)));
+            changed.clear(i); // Clearing bit by bit keeps a single edit from scanning the whole set
+        }
+        for (int i = frozen.size(); i < current.size(); i++) {
+            frozen = frozen.plus(freezer.apply(current.get(i)));
+        }
+    }
+
+    private static <E> PersistentVector<E> inserted(PersistentVector<E> vector, int index, E element) {
+        PersistentVector<E> rebuilt = PersistentVector.empty();
+        for (int i = 0; i < vector.size(); i++) {
+            if (i == index) {
+                rebuilt = rebuilt.plus(element);
+            }
+            rebuilt = rebuilt.plus(vector.get(i));
+        }
+        return rebuilt;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Receives changes to workouts and to the workout log, after they have been applied. Every call carries the
+ * version the workout had right after its change, taken when the change was made, so a listener that is
+ * notified later, after further changes, still sees each change on its own.
+ */
+public interface WorkoutChangeListener {
+
+    /**
+     * Called after a workout was added to the log.
+     * @param workout The logged workout.
+     * @param workoutVersion Its version when it was logged.
+     */
+    void workoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion);
+
+    /**
+     * Called after a workout was removed from the log.
+     * @param workout The removed workout.
+     * @param workoutVersion Its version when it was removed.
+     */
+    void workoutRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion);
+
+    /**
+     * Called after an exercise was added to a workout.
+     * @param workout The workout that changed.
+     * @param workoutVersion The version of the workout right after the change.
+     * @param exercise The stored exercise.
+     * @param index The position of the exercise in the workout.
+     */
+    void exerciseAdded(AbstractWorkout workout, WorkoutVersion workoutVersion, AbstractExercise exercise, int index);
+
+    /**
+     * Called after an exercise was removed from a workout.
+     * @param workout The workout that changed.
+     * @param workoutVersion The version of the workout right after the change.
+     * @param exercise The removed exercise.
+     * @param index The position the exercise had before it was removed.
+     */
+    void exerciseRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion, AbstractExercise exercise, int index);
+
+    /**
+     * Called after a field of an exercise in a workout was changed.
+     * @param workout The workout holding the exercise.
+     * @param workoutVersion The version of the workout right after the change.
+     * @param exercise The changed exercise.
+     * @param index The position of the exercise in the workout.
+     */
+    void exerciseModified(AbstractWorkout workout, WorkoutVersion workoutVersion, AbstractExercise exercise, int index);
+
+    /**
+     * Called after a workout was renamed or its session was moved to another time. Does nothing by default,
+     * for listeners that follow workouts by identity rather than by name.
+     * @param workout The workout that changed.
+     * @param workoutVersion The version of the workout right after the change.
+     * @param previousName The name the workout had before the change; its current name if only the session moved.
+     */
+    default void workoutModified(AbstractWorkout workout, WorkoutVersion workoutVersion, String previousName) {
+    }
+}
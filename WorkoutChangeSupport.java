@@ -0,0 +1,64 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps a list of {@link WorkoutChangeListener}s and notifies them in registration order.
+ * Listeners may be added or removed while a notification is running.
+ */
+public class WorkoutChangeSupport {
+    private final List<WorkoutChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addChangeListener(WorkoutChangeListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(WorkoutChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    public void fireWorkoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        for (WorkoutChangeListener listener : listeners) {
+            listener.workoutLogged(workout, workoutVersion);
+        }
+    }
+
+    public void fireWorkoutRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        for (WorkoutChangeListener listener : listeners) {
+            listener.workoutRemoved(workout, workoutVersion);
+        }
+    }
+
+    public void fireExerciseAdded(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                  AbstractExercise exercise, int index) {
+        for (WorkoutChangeListener listener : listeners) {
+            listener.exerciseAdded(workout, workoutVersion, exercise, index);
+        }
+    }
+
+    public void fireExerciseRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                    AbstractExercise exercise, int index) {
+        for (WorkoutChangeListener listener : listeners) {
+            listener.exerciseRemoved(workout, workoutVersion, exercise, index);
+        }
+    }
+
+    public void fireExerciseModified(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                     AbstractExercise exercise, int index) {
+        for (WorkoutChangeListener listener : listeners) {
+            listener.exerciseModified(workout, workoutVersion, exercise, index);
+        }
+    }
+
+    public void fireWorkoutModified(AbstractWorkout workout, WorkoutVersion workoutVersion, String previousName) {
+        for (WorkoutChangeListener listener : listeners) {
+            listener.workoutModified(workout, workoutVersion, previousName);
+        }
+    }
+}
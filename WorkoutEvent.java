@@ -0,0 +1,74 @@
+/**
+ * One change to the workout log, as delivered by a {@link WorkoutEventBus}.
+ * Each event carries the version the workout had right after the change.
+ */
+public final class WorkoutEvent {
+
+    /**
+     * Kinds of change.
+     */
+    public enum Type {
+        WORKOUT_LOGGED,
+        WORKOUT_REMOVED,
+        EXERCISE_ADDED,
+        EXERCISE_REMOVED,
+        EXERCISE_MODIFIED,
+        WORKOUT_MODIFIED
+    }
+
+    private final Type type;
+    private final AbstractWorkout workout;
+    private final WorkoutVersion workoutVersion;
+    private final AbstractExercise exercise;
+    private final int index;
+
+    /**
+     * Constructs an event.
+     * @param type The kind of change.
+     * @param workout The workout that changed or was logged or removed.
+     * @param workoutVersion The version the workout had right after the change, as given to the listener.
+     * @param exercise The exercise that changed, or null for workout events.
+     * @param index The position of the exercise, or -1 for workout events.
+     */
+    public WorkoutEvent(Type type, AbstractWorkout workout, WorkoutVersion workoutVersion, AbstractExercise exercise,
+                        int index) {
+        this.type = type;
+        this.workout = workout;
+        this.workoutVersion = workoutVersion;
+        this.exercise = exercise;
+        this.index = index;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public AbstractWorkout getWorkout() {
+        return workout;
+    }
+
+    /**
+     * Returns the version of the workout published by this change.
+     * @return The workout version.
+     */
+    public WorkoutVersion getWorkoutVersion() {
+        return workoutVersion;
+    }
+
+    public AbstractExercise getExercise() {
+        return exercise;
+    }
+
+    /**
+     * Returns the position of the exercise in the workout; for removals, the position it had.
+     * @return The position, or -1 for workout events.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + workoutVersion.getWorkoutName() + (index >= 0 ? " #" + index : "");
+    }
+}
@@ -0,0 +1,169 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects changes to a workout log as typed {@link WorkoutEvent}s and delivers them in batches,
+ * at most once per frame. Register the bus as a change listener of the log; changes may come from any
+ * thread. Subscribers receive every batch on the delivery executor, for example the event dispatch thread,
+ * so a burst of changes such as an import costs one update per frame instead of one per change.
+ */
+public class WorkoutEventBus implements WorkoutChangeListener, AutoCloseable {
+    /** Default delay between the first change of a batch and its delivery, about one frame at 60 Hz. */
+    public static final long DEFAULT_FRAME_MILLIS = 16;
+
+    /**
+     * Receives batches of events on the delivery executor.
+     */
+    public interface Subscriber {
+        /**
+         * Called once, before any batch, with the state the following events apply to.
+         * @param logVersion The log version at the time of subscription.
+         */
+        void initialState(WorkoutLogVersion logVersion);
+
+        /**
+         * Called with the events of one frame, in the order they happened.
+         * @param events The events; the list must not be kept.
+         */
+        void eventsDelivered(List<WorkoutEvent> events);
+    }
+
+    private final Executor deliveryExecutor;
+    private final long frameMillis;
+    private final ScheduledExecutorService timer;
+    private final Queue<Object> pending = new ConcurrentLinkedQueue<>(); // Events and new subscriptions, in order
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>(); // Only changed during delivery
+
+    /**
+     * Constructs a bus.
+     * @param deliveryExecutor Runs the deliveries, one at a time.
+     * @param frameMillis Longest time an event waits before it is delivered.
+     */
+    public WorkoutEventBus(Executor deliveryExecutor, long frameMillis) {
+        if (frameMillis < 0) {
+            throw new IllegalArgumentException("Frame time cannot be negative");
+        }
+        this.deliveryExecutor = deliveryExecutor;
+        this.frameMillis = frameMillis;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "workout-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds a subscriber. Must be called on the thread that changes the log, with a log version taken on
+     * that thread just before, so the subscriber gets exactly the events that follow the version.
+     *
+     * @param subscriber The subscriber.
+     * @param current The current log version.
+     */
+    public void subscribe(Subscriber subscriber, WorkoutLogVersion current) {
+        enqueue(new Subscription(subscriber, current));
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    @Override
+    public void workoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        enqueue(new WorkoutEvent(WorkoutEvent.Type.WORKOUT_LOGGED, workout, workoutVersion, null, -1));
+    }
+
+    @Override
+    public void workoutRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        enqueue(new WorkoutEvent(WorkoutEvent.Type.WORKOUT_REMOVED, workout, workoutVersion, null, -1));
+    }
+
+    @Override
+    public void exerciseAdded(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                              AbstractExercise exercise, int index) {
+        enqueue(new WorkoutEvent(WorkoutEvent.Type.EXERCISE_ADDED, workout, workoutVersion, exercise, index));
+    }
+
+    @Override
+    public void exerciseRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                AbstractExercise exercise, int index) {
+        enqueue(new WorkoutEvent(WorkoutEvent.Type.EXERCISE_REMOVED, workout, workoutVersion, exercise, index));
+    }
+
+    @Override
+    public void exerciseModified(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                 AbstractExercise exercise, int index) {
+        enqueue(new WorkoutEvent(WorkoutEvent.Type.EXERCISE_MODIFIED, workout, workoutVersion, exercise, index));
+    }
+
+    @Override
+    public void workoutModified(AbstractWorkout workout, WorkoutVersion workoutVersion, String previousName) {
+        enqueue(new WorkoutEvent(WorkoutEvent.Type.WORKOUT_MODIFIED, workout, workoutVersion, null, -1));
+    }
+
+    /**
+     * Stops scheduling deliveries. Events still queued are dropped.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    private void enqueue(Object item) {
+        pending.add(item);
+        if (deliveryScheduled.compareAndSet(false, true)) {
+            timer.schedule(() -> deliveryExecutor.execute(this::deliver), frameMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Hands everything queued so far to the subscribers; a subscription splits the batch, so the new
+    // subscriber only sees the events after it
+    private void deliver() {
+        deliveryScheduled.set(false);
+        List<WorkoutEvent> batch = new ArrayList<>();
+        Object item;
+        while ((item = pending.poll()) != null) {
+            if (item instanceof WorkoutEvent) {
+                batch.add((WorkoutEvent) item);
+            } else {
+                publish(batch);
+                Subscription subscription = (Subscription) item;
+                subscription.subscriber.initialState(subscription.current);
+                subscribers.add(subscription.subscriber);
+            }
+        }
+        publish(batch);
+    }
+
+    private void publish(List<WorkoutEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = WorkoutMetrics.start();
+        List<WorkoutEvent> events = Collections.unmodifiableList(batch);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.eventsDelivered(events);
+        }
+        batch.clear();
+        WorkoutMetrics.record(WorkoutMetrics.Operation.GUI_REFRESH, start);
+    }
+
+    private static final class Subscription {
+        final Subscriber subscriber;
+        final WorkoutLogVersion current;
+
+        Subscription(Subscriber subscriber, WorkoutLogVersion current) {
+            this.subscriber = subscriber;
+            this.current = current;
+        }
+    }
+}
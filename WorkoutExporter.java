@@ -0,0 +1,252 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams workouts and their exercises to CSV or JSON-lines, one row per exercise.
+ * A workout without exercises is written as a single row with empty exercise fields. Every row carries
+ * its workout's session start as an ISO-8601 instant, so an import logs the workout at the same time.
+ * Rows are built in one reusable StringBuilder and copied to the writer through a reused char array and a
+ * large buffer, so no String is created per row, only one per workout for its session start; numbers are
+ * appended with the JDK's own formatting.
+ * A CSV field holding a separator, quote or line break is quoted, and {@link WorkoutImporter} reads such
+ * fields back, line breaks included. An exporter is not thread-safe.
+ */
+public class WorkoutExporter {
+    static final String CSV_HEADER = "workout,sessionStart,exercise,reps,sets,weight,seconds";
+    static final String CSV_HEADER_WITHOUT_SESSION = "workout,exercise,reps,sets,weight,seconds"; // Written before sessionStart
+    private static final int BUFFER_BYTES = 1 << 18;
+
+    /**
+     * Output formats.
+     */
+    public enum Format {
+        CSV(".csv"),
+        JSON_LINES(".jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Receives progress while an export runs.
+     */
+    public interface ProgressListener {
+        /**
+         * @param completed Number of workouts written so far.
+         * @param total Number of workouts to write.
+         */
+        void progress(int completed, int total);
+    }
+
+    private final StringBuilder row = new StringBuilder(256);
+    private char[] chars = new char[256]; // Copy of the row handed to the writer, so no String is created
+
+    /**
+     * Exports a log version to a file. The version never changes, so the export can run on another
+     * thread while the log is edited.
+     *
+     * @param logVersion The log version to export.
+     * @param file The target file.
+     * @param format The output format.
+     * @param gzip Whether to gzip the output.
+     * @param listener Receives progress roughly every percent; may be null.
+     * @return The number of rows written.
+     * @throws IOException if the file cannot be written.
+     */
+    public long export(WorkoutLogVersion logVersion, Path file, Format format, boolean gzip,
+                       ProgressListener listener) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            return write(logVersion.getWorkouts(), out, format, gzip, listener);
+        }
+    }
+
+    /**
+     * Exports workouts to a file.
+     *
+     * @param workouts The workouts to export, in order.
+     * @param file The target file.
+     * @param format The output format.
+     * @param gzip Whether to gzip the output.
+     * @param listener Receives progress roughly every percent; may be null.
+     * @return The number of rows written.
+     * @throws IOException if the file cannot be written.
+     */
+    public long export(List<AbstractWorkout> workouts, Path file, Format format, boolean gzip,
+                       ProgressListener listener) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            return write(versionsOf(workouts), out, format, gzip, listener);
+        }
+    }
+
+    /**
+     * Exports workouts to a stream. The stream is flushed but not closed, unless gzip is used,
+     * in which case the gzip trailer is written and the stream is closed with it.
+     *
+     * @param workouts The workouts to export, in order.
+     * @param target The stream to write to.
+     * @param format The output format.
+     * @param gzip Whether to gzip the output.
+     * @param listener Receives progress roughly every percent; may be null.
+     * @return The number of rows written.
+     * @throws IOException if writing fails.
+     */
+    public long export(List<AbstractWorkout> workouts, OutputStream target, Format format, boolean gzip,
+                       ProgressListener listener) throws IOException {
+        return write(versionsOf(workouts), target, format, gzip, listener);
+    }
+
+    private long write(List<WorkoutVersion> workouts, OutputStream target, Format format, boolean gzip,
+                       ProgressListener listener) throws IOException {
+        OutputStream stream = gzip ? new GZIPOutputStream(target, BUFFER_BYTES)
+                                   : new BufferedOutputStream(target, BUFFER_BYTES);
+        Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        int total = workouts.size();
+        int step = Math.max(1, total / 100);
+        long rows = 0;
+
+        if (format == Format.CSV) {
+            out.write(CSV_HEADER);
+            out.write('\n');
+        }
+        for (int i = 0; i < total; i++) {
+            WorkoutVersion workout = workouts.get(i);
+            int count = workout.exerciseCount();
+            String sessionStart = workout.getSessionStart().toString();
+            if (count == 0) {
+                writeRow(out, format, workout.getWorkoutName(), sessionStart, null);
+                rows++;
+            } else {
+                List<AbstractExercise> exercises = workout.getExercises();
+                for (int j = 0; j < count; j++) {
+                    writeRow(out, format, workout.getWorkoutName(), sessionStart, exercises.get(j));
+                }
+                rows += count;
+            }
+            if (listener != null && ((i + 1) % step == 0 || i + 1 == total)) {
+                listener.progress(i + 1, total);
+            }
+        }
+        if (gzip) {
+            out.close(); // Finishes the gzip stream
+        } else {
+            out.flush();
+        }
+        return rows;
+    }
+
+    private static List<WorkoutVersion> versionsOf(List<AbstractWorkout> workouts) {
+        List<WorkoutVersion> versions = new ArrayList<>(workouts.size());
+        for (AbstractWorkout workout : workouts) {
+            versions.add(workout.snapshot());
+        }
+        return versions;
+    }
+
+    // Builds one row in the shared builder and hands it to the writer
+    private void writeRow(Writer out, Format format, String workoutName, String sessionStart, AbstractExercise exercise)
+            throws IOException {
+        row.setLength(0);
+        if (format == Format.CSV) {
+            appendCsv(workoutName);
+            row.append(',').append(sessionStart).append(','); // An instant holds no character that needs quoting
+            if (exercise != null) {
+                appendCsv(exercise.getName());
+                row.append(',').append(exercise.getReps())
+                   .append(',').append(exercise.getSets())
+                   .append(',').append(exercise.getWeight())
+                   .append(',').append(exercise.getSeconds());
+            } else {
+                row.append(",,,,");
+            }
+        } else {
+            row.append("{\"workout\":");
+            appendJson(workoutName);
+            row.append(",\"sessionStart\":\"").append(sessionStart).append('"');
+            if (exercise != null) {
+                row.append(",\"exercise\":");
+                appendJson(exercise.getName());
+                row.append(",\"reps\":").append(exercise.getReps())
+                   .append(",\"sets\":").append(exercise.getSets())
+                   .append(",\"weight\":").append(exercise.getWeight())
+                   .append(",\"seconds\":").append(exercise.getSeconds());
+            }
+            row.append('}');
+        }
+        row.append('\n');
+        int length = row.length();
+        if (length > chars.length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        row.getChars(0, length, chars, 0);
+        out.write(chars, 0, length);
+    }
+
+    // Quotes a CSV field only when it contains a separator, quote or line break
+    private void appendCsv(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            row.append(value);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+    }
+
+    private void appendJson(String value) {
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    row.append("\\\"");
+                    break;
+                case '\\':
+                    row.append("\\\\");
+                    break;
+                case '\n':
+                    row.append("\\n");
+                    break;
+                case '\r':
+                    row.append("\\r");
+                    break;
+                case '\t':
+                    row.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        row.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        row.append(c);
+                    }
+            }
+        }
+        row.append('"');
+    }
+}
@@ -0,0 +1,720 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Bulk importer for the CSV and JSON-lines files written by {@link WorkoutExporter}.
+ *
+ * The file is mapped (or, when gzipped, inflated into memory) and cut into chunks at row boundaries.
+ * A quoted CSV field may hold a line break, so for CSV the quotes in each chunk are first counted in
+ * parallel; their running count tells whether a chunk starts inside a quoted field, and the chunk then
+ * starts after the first line break outside quotes. JSON lines escape line breaks, so any line break
+ * ends a row. Chunks are parsed in parallel on a fork-join pool straight from the bytes, with hand-written
+ * number parsing and a per-chunk name cache, so a row costs little more than its exercise object.
+ * The whole file is parsed before anything is merged, so a malformed row leaves the log untouched.
+ * Merging adds each workout's exercises in one batch, recalculating its totals once.
+ *
+ * A new workout is logged with the session start of its first row. Files written before exports carried
+ * session starts, recognised by their CSV header or a JSON row without the field, give their workouts
+ * the time of the import instead.
+ */
+public class WorkoutImporter {
+    private static final int CHUNK_BYTES = 1 << 22; // Bytes parsed by one task, give or take a row
+
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+
+    /**
+     * Constructs an importer that parses on the common fork-join pool.
+     */
+    public WorkoutImporter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public WorkoutImporter(ForkJoinPool pool) {
+        this(pool, CHUNK_BYTES);
+    }
+
+    // Smaller chunks let tests cut a small file at many row boundaries
+    WorkoutImporter(ForkJoinPool pool, int chunkBytes) {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Imports a file into a log. Rows for a workout that is already logged are added to it.
+     * The format is chosen by extension: .jsonl for JSON lines, anything else is read as CSV,
+     * each optionally followed by .gz.
+     *
+     * @param file The file to import.
+     * @param workoutLogger The log to import into.
+     * @return The number of exercises imported.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a row is malformed.
+     */
+    public long importFile(Path file, InterfaceWorkoutLogger workoutLogger) throws IOException {
+        return parse(file).mergeInto(workoutLogger);
+    }
+
+    /**
+     * Parses a file without touching any log, so the parse can run on any thread and the result be
+     * merged on the thread that changes the log. The format is chosen as by {@link #importFile}.
+     *
+     * @param file The file to parse.
+     * @return The parsed rows.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a row is malformed.
+     */
+    public ParsedImport parse(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - 3);
+        }
+        WorkoutExporter.Format format = name.endsWith(WorkoutExporter.Format.JSON_LINES.getExtension())
+                ? WorkoutExporter.Format.JSON_LINES : WorkoutExporter.Format.CSV;
+
+        ByteBuffer data = gzip ? inflate(file) : map(file);
+        boolean sessionColumn = !startsWith(data, WorkoutExporter.CSV_HEADER_WITHOUT_SESSION);
+        int[] bounds = chunkBounds(data, format);
+        return new ParsedImport(pool.invoke(new ParseTask(data, bounds, 0, bounds.length - 1, format, sessionColumn,
+                Instant.now())));
+    }
+
+    /**
+     * Rows of a parsed file, ready to be merged into a log.
+     */
+    public static final class ParsedImport {
+        private final List<ParsedChunk> chunks;
+
+        private ParsedImport(List<ParsedChunk> chunks) {
+            this.chunks = chunks;
+        }
+
+        /**
+         * Adds the rows to a log, on the thread that changes it. Rows for a workout that is already logged
+         * are added to it; the new workouts are logged in one batch.
+         *
+         * @param workoutLogger The log to merge into.
+         * @return The number of exercises imported.
+         */
+        public long mergeInto(InterfaceWorkoutLogger workoutLogger) {
+            return merge(chunks, workoutLogger);
+        }
+    }
+
+    // Cuts the data into chunks of about chunkBytes that each start at the beginning of a row
+    private int[] chunkBounds(ByteBuffer data, WorkoutExporter.Format format) {
+        int end = data.limit();
+        int chunks = Math.max(1, (int) ((end + (long) chunkBytes - 1) / chunkBytes));
+        boolean[] startsQuoted = new boolean[chunks];
+        if (format == WorkoutExporter.Format.CSV && chunks > 1) {
+            int[] quotes = new int[chunks];
+            pool.invoke(new QuoteCountTask(data, chunkBytes, quotes, 0, chunks));
+            int seen = 0;
+            for (int i = 0; i < chunks; i++) {
+                startsQuoted[i] = (seen & 1) != 0; // Doubled quotes inside a field count twice and cancel out
+                seen += quotes[i];
+            }
+        }
+        int[] bounds = new int[chunks + 1];
+        bounds[chunks] = end;
+        for (int i = 1; i < chunks; i++) {
+            bounds[i] = Math.max(bounds[i - 1], rowStartFrom(data, i * chunkBytes, end, format, startsQuoted[i]));
+        }
+        return bounds;
+    }
+
+    // Returns the position after the first line break at or after a position that is not inside CSV quotes
+    private static int rowStartFrom(ByteBuffer data, int position, int end, WorkoutExporter.Format format,
+                                    boolean quoted) {
+        boolean csv = format == WorkoutExporter.Format.CSV;
+        while (position < end) {
+            byte b = data.get(position++);
+            if (b == '"' && csv) {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                break;
+            }
+        }
+        return position;
+    }
+
+    private static boolean startsWith(ByteBuffer data, String text) {
+        if (data.limit() < text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (data.get(i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Groups rows by workout and adds each workout's exercises in one batch
+    private static long merge(List<ParsedChunk> chunks, InterfaceWorkoutLogger workoutLogger) {
+        Map<String, List<AbstractExercise>> byWorkout = new LinkedHashMap<>();
+        Map<String, Instant> sessionStarts = new HashMap<>();
+        long imported = 0;
+        for (ParsedChunk chunk : chunks) {
+            for (int i = 0; i < chunk.workoutNames.size(); i++) {
+                String workoutName = chunk.workoutNames.get(i);
+                List<AbstractExercise> exercises = byWorkout.get(workoutName);
+                if (exercises == null) {
+                    exercises = new ArrayList<>();
+                    byWorkout.put(workoutName, exercises);
+                    sessionStarts.put(workoutName, chunk.sessionStarts.get(i)); // The first row's session start
+                }
+                AbstractExercise exercise = chunk.exercises.get(i);
+                if (exercise != null) {
+                    exercises.add(exercise);
+                    imported++;
+                }
+            }
+        }
+        List<AbstractWorkout> newWorkouts = new ArrayList<>();
+        for (Map.Entry<String, List<AbstractExercise>> entry : byWorkout.entrySet()) {
+            AbstractWorkout workout = workoutLogger.findWorkout(entry.getKey());
+            if (workout == null) {
+                workout = new ConcreteWorkout(entry.getKey(), sessionStarts.get(entry.getKey()));
+                newWorkouts.add(workout);
+            }
+            workout.addExercises(entry.getValue());
+        }
+        workoutLogger.logWorkouts(newWorkouts);
+        return imported;
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Import file larger than 2 GB: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static ByteBuffer inflate(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 1 << 16)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+            in.transferTo(out);
+            return ByteBuffer.wrap(out.toByteArray());
+        }
+    }
+
+    /**
+     * Rows parsed from one chunk, in file order. A null exercise marks a workout without exercises.
+     */
+    private static final class ParsedChunk {
+        final List<String> workoutNames = new ArrayList<>();
+        final List<Instant> sessionStarts = new ArrayList<>(); // Mostly the same few instances, one per workout
+        final List<AbstractExercise> exercises = new ArrayList<>();
+    }
+
+    /**
+     * Counts the quote bytes of a range of chunks, one chunk per leaf task.
+     */
+    private static final class QuoteCountTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer data;
+        private final int chunkBytes;
+        private final int[] quotes;
+        private final int from;
+        private final int to;
+
+        QuoteCountTask(ByteBuffer data, int chunkBytes, int[] quotes, int from, int to) {
+            this.data = data;
+            this.chunkBytes = chunkBytes;
+            this.quotes = quotes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new QuoteCountTask(data, chunkBytes, quotes, from, middle),
+                          new QuoteCountTask(data, chunkBytes, quotes, middle, to));
+                return;
+            }
+            int end = (int) Math.min(data.limit(), (long) to * chunkBytes);
+            int count = 0;
+            for (int i = from * chunkBytes; i < end; i++) {
+                if (data.get(i) == '"') {
+                    count++;
+                }
+            }
+            quotes[from] = count;
+        }
+    }
+
+    /**
+     * Parses a range of chunks, splitting it in half until one chunk is left.
+     */
+    private static final class ParseTask extends RecursiveTask<List<ParsedChunk>> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer data;
+        private final int[] bounds; // Start of every chunk, then the end of the data
+        private final int from;
+        private final int to;
+        private final WorkoutExporter.Format format;
+        private final boolean sessionColumn;
+        private final Instant importTime;
+
+        ParseTask(ByteBuffer data, int[] bounds, int from, int to, WorkoutExporter.Format format,
+                  boolean sessionColumn, Instant importTime) {
+            this.data = data;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.format = format;
+            this.sessionColumn = sessionColumn;
+            this.importTime = importTime;
+        }
+
+        @Override
+        protected List<ParsedChunk> compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                ParseTask left = new ParseTask(data, bounds, from, middle, format, sessionColumn, importTime);
+                ParseTask right = new ParseTask(data, bounds, middle, to, format, sessionColumn, importTime);
+                left.fork();
+                List<ParsedChunk> rightChunks = right.compute();
+                List<ParsedChunk> chunks = left.join();
+                chunks.addAll(rightChunks);
+                return chunks;
+            }
+            List<ParsedChunk> chunks = new ArrayList<>();
+            chunks.add(new RowParser(data, format, sessionColumn, importTime).parse(bounds[from], bounds[to]));
+            return chunks;
+        }
+    }
+
+    /**
+     * Parses the rows of one chunk. Not thread-safe; each task uses its own parser.
+     */
+    static final class RowParser {
+        private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+        };
+
+        private final ByteBuffer data;
+        private final WorkoutExporter.Format format;
+        private final boolean sessionColumn; // Whether CSV rows have a sessionStart column
+        private final Instant importTime; // Session start of rows without one
+        private final NameCache names = new NameCache();
+        private byte[] scratch = new byte[64]; // Unescaped string bytes
+
+        private int position;
+        private int lineEnd;
+
+        // Last session start parsed; rows of a workout repeat it
+        private String sessionText;
+        private Instant parsedSession;
+
+        // Fields of the current row
+        private String workoutName;
+        private Instant sessionStart;
+        private String exerciseName;
+        private int reps;
+        private int sets;
+        private double weight;
+        private int seconds;
+
+        RowParser(ByteBuffer data, WorkoutExporter.Format format, boolean sessionColumn, Instant importTime) {
+            this.data = data;
+            this.format = format;
+            this.sessionColumn = sessionColumn;
+            this.importTime = importTime;
+        }
+
+        ParsedChunk parse(int start, int end) {
+            ParsedChunk chunk = new ParsedChunk();
+            position = start;
+            boolean csv = format == WorkoutExporter.Format.CSV;
+            while (position < end) {
+                lineEnd = position;
+                boolean quoted = false;
+                while (lineEnd < end && (quoted || data.get(lineEnd) != '\n')) {
+                    if (csv && data.get(lineEnd) == '"') {
+                        quoted = !quoted; // A line break inside a quoted field belongs to the row
+                    }
+                    lineEnd++;
+                }
+                int next = lineEnd + 1;
+                if (lineEnd > position && data.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                if (lineEnd > position && !(position == 0 && isCsvHeader())) {
+                    int rowStart = position;
+                    try {
+                        if (format == WorkoutExporter.Format.CSV) {
+                            parseCsvRow();
+                        } else {
+                            parseJsonRow();
+                        }
+                    } catch (RuntimeException e) {
+                        throw new IllegalArgumentException("Malformed row at byte " + rowStart + ": " + e.getMessage(), e);
+                    }
+                    chunk.workoutNames.add(workoutName);
+                    chunk.sessionStarts.add(sessionStart);
+                    chunk.exercises.add(exerciseName == null ? null
+                            : new ConcreteExercise(exerciseName, reps, sets, weight, seconds));
+                }
+                position = next;
+            }
+            return chunk;
+        }
+
+        private boolean isCsvHeader() {
+            if (format != WorkoutExporter.Format.CSV) {
+                return false;
+            }
+            String text = sessionColumn ? WorkoutExporter.CSV_HEADER : WorkoutExporter.CSV_HEADER_WITHOUT_SESSION;
+            byte[] header = text.getBytes(StandardCharsets.US_ASCII);
+            for (int i = 0; i < header.length; i++) {
+                if (position + i >= lineEnd || data.get(position + i) != header[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // workout,sessionStart,exercise,reps,sets,weight,seconds with optional quoting; older files lack sessionStart
+        private void parseCsvRow() {
+            workoutName = readCsvString();
+            expect(',');
+            sessionStart = importTime;
+            if (sessionColumn) {
+                if (position < lineEnd && data.get(position) != ',') {
+                    sessionStart = session(readCsvString());
+                }
+                expect(',');
+            }
+            exerciseName = position < lineEnd && data.get(position) != ',' ? readCsvString() : null;
+            expect(',');
+            if (exerciseName == null) {
+                position = lineEnd;
+                return;
+            }
+            reps = readInt();
+            expect(',');
+            sets = readInt();
+            expect(',');
+            weight = readDouble();
+            expect(',');
+            seconds = readInt();
+            if (position != lineEnd) {
+                throw new IllegalArgumentException("unexpected data after seconds");
+            }
+        }
+
+        // Flat object with string and number values, keys in any order
+        private void parseJsonRow() {
+            workoutName = null;
+            sessionStart = importTime;
+            exerciseName = null;
+            reps = 0;
+            sets = 0;
+            weight = 0;
+            seconds = 0;
+            skipSpaces();
+            expect('{');
+            skipSpaces();
+            if (position < lineEnd && data.get(position) == '}') {
+                throw new IllegalArgumentException("empty object");
+            }
+            while (true) {
+                skipSpaces();
+                int keyStart = position + 1;
+                readJsonString(false);
+                int keyEnd = position - 1;
+                skipSpaces();
+                expect(':');
+                skipSpaces();
+                switch (keyAt(keyStart, keyEnd)) {
+                    case "workout":
+                        workoutName = readJsonString(true);
+                        break;
+                    case "sessionStart":
+                        sessionStart = session(readJsonString(true));
+                        break;
+                    case "exercise":
+                        exerciseName = readJsonString(true);
+                        break;
+                    case "reps":
+                        reps = readInt();
+                        break;
+                    case "sets":
+                        sets = readInt();
+                        break;
+                    case "weight":
+                        weight = readDouble();
+                        break;
+                    case "seconds":
+                        seconds = readInt();
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown key");
+                }
+                skipSpaces();
+                if (position < lineEnd && data.get(position) == ',') {
+                    position++;
+                    continue;
+                }
+                expect('}');
+                break;
+            }
+            if (workoutName == null) {
+                throw new IllegalArgumentException("missing workout");
+            }
+        }
+
+        // Keys are few and short, so matching them as constants avoids decoding them
+        private String keyAt(int keyStart, int keyEnd) {
+            switch (keyEnd - keyStart) {
+                case 4:
+                    if (matches(keyStart, "reps")) return "reps";
+                    if (matches(keyStart, "sets")) return "sets";
+                    break;
+                case 6:
+                    if (matches(keyStart, "weight")) return "weight";
+                    break;
+                case 7:
+                    if (matches(keyStart, "workout")) return "workout";
+                    if (matches(keyStart, "seconds")) return "seconds";
+                    break;
+                case 8:
+                    if (matches(keyStart, "exercise")) return "exercise";
+                    break;
+                case 12:
+                    if (matches(keyStart, "sessionStart")) return "sessionStart";
+                    break;
+                default:
+                    break;
+            }
+            return "";
+        }
+
+        // Parses an ISO-8601 instant, once per run of rows that repeat it
+        private Instant session(String text) {
+            if (!text.equals(sessionText)) {
+                parsedSession = Instant.parse(text);
+                sessionText = text;
+            }
+            return parsedSession;
+        }
+
+        private boolean matches(int at, String key) {
+            for (int i = 0; i < key.length(); i++) {
+                if (data.get(at + i) != key.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String readCsvString() {
+            int length = 0;
+            if (position < lineEnd && data.get(position) == '"') {
+                position++;
+                while (true) {
+                    if (position >= lineEnd) {
+                        throw new IllegalArgumentException("unterminated quote");
+                    }
+                    byte b = data.get(position++);
+                    if (b == '"') {
+                        if (position < lineEnd && data.get(position) == '"') {
+                            position++;
+                        } else {
+                            break;
+                        }
+                    }
+                    length = put(length, b);
+                }
+            } else {
+                while (position < lineEnd && data.get(position) != ',') {
+                    length = put(length, data.get(position++));
+                }
+            }
+            return names.get(scratch, length);
+        }
+
+        // Reads a quoted JSON string; returns null when intern is false (the bytes stay in scratch)
+        private String readJsonString(boolean intern) {
+            expect('"');
+            int length = 0;
+            while (true) {
+                if (position >= lineEnd) {
+                    throw new IllegalArgumentException("unterminated string");
+                }
+                byte b = data.get(position++);
+                if (b == '"') {
+                    break;
+                }
+                if (b == '\\') {
+                    byte escaped = data.get(position++);
+                    switch (escaped) {
+                        case 'n': b = '\n'; break;
+                        case 'r': b = '\r'; break;
+                        case 't': b = '\t'; break;
+                        case 'b': b = '\b'; break;
+                        case 'f': b = '\f'; break;
+                        case 'u':
+                            char c = (char) Integer.parseInt(ascii(position, 4), 16);
+                            position += 4;
+                            for (byte encoded : String.valueOf(c).getBytes(StandardCharsets.UTF_8)) {
+                                length = put(length, encoded);
+                            }
+                            continue;
+                        default: b = escaped; break;
+                    }
+                }
+                length = put(length, b);
+            }
+            return intern ? names.get(scratch, length) : null;
+        }
+
+        private int put(int length, byte b) {
+            if (length == scratch.length) {
+                scratch = Arrays.copyOf(scratch, length * 2);
+            }
+            scratch[length] = b;
+            return length + 1;
+        }
+
+        private int readInt() {
+            boolean negative = position < lineEnd && data.get(position) == '-';
+            if (negative) {
+                position++;
+            }
+            int digitsStart = position;
+            long value = 0;
+            while (position < lineEnd) {
+                int digit = data.get(position) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+                if (value > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("number too large");
+                }
+                position++;
+            }
+            if (position == digitsStart) {
+                throw new IllegalArgumentException("expected a number");
+            }
+            return (int) (negative ? -value : value);
+        }
+
+        // Plain decimals with up to 15 digits are parsed exactly; anything else falls back to Double.parseDouble
+        private double readDouble() {
+            int numberStart = position;
+            boolean negative = position < lineEnd && data.get(position) == '-';
+            if (negative) {
+                position++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = 0;
+            boolean fraction = false;
+            while (position < lineEnd) {
+                byte b = data.get(position);
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (fraction) {
+                        fractionDigits++;
+                    }
+                } else if (b == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    break;
+                }
+                position++;
+            }
+            byte next = position < lineEnd ? data.get(position) : 0;
+            if (digits == 0 || digits > 15 || next == 'e' || next == 'E') {
+                while (position < lineEnd && data.get(position) != ',' && data.get(position) != '}') {
+                    position++;
+                }
+                return Double.parseDouble(ascii(numberStart, position - numberStart).trim());
+            }
+            // Both operands are exact doubles, so the division is correctly rounded
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+
+        private String ascii(int at, int length) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = data.get(at + i);
+            }
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        private void skipSpaces() {
+            while (position < lineEnd && (data.get(position) == ' ' || data.get(position) == '\t')) {
+                position++;
+            }
+        }
+
+        private void expect(char c) {
+            if (position >= lineEnd || data.get(position) != c) {
+                throw new IllegalArgumentException("expected '" + c + "'");
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Small open-addressing cache from UTF-8 bytes to String, so repeated names in a chunk
+     * are decoded once and a cache hit allocates nothing.
+     */
+    static final class NameCache {
+        private static final int SLOTS = 1024; // Power of two
+
+        private final byte[][] keys = new byte[SLOTS][];
+        private final String[] values = new String[SLOTS];
+
+        String get(byte[] bytes, int length) {
+            int hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            int slot = (hash ^ (hash >>> 16)) & (SLOTS - 1);
+            byte[] key = keys[slot];
+            if (key != null && key.length == length && Arrays.equals(key, 0, length, bytes, 0, length)) {
+                return values[slot];
+            }
+            String value = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            keys[slot] = Arrays.copyOf(bytes, length); // Replace whatever was in the slot
+            values[slot] = value;
+            return value;
+        }
+    }
+}
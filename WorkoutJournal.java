@@ -0,0 +1,535 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of changes to a {@link WorkoutLogger}.
+ *
+ * Every logged, renamed, moved or removed workout and every added, removed or changed exercise is encoded into
+ * an in-memory buffer; a background thread writes the buffer out and forces it to disk once per fsync interval
+ * (group commit), so recording a change does not wait for the disk.
+ *
+ * The journal directory holds numbered journal files and one snapshot. The snapshot records the first
+ * generation it does not cover, so recovery loads the snapshot and replays only the journals from that
+ * generation on. Compaction starts a new generation, writes the log version current at that
+ * point as the new snapshot in the background and then deletes the journals it covers. A batch publishes
+ * all of its changes before it notifies the first one, so a compaction that falls due in the middle of a
+ * batch waits until the last change of the batch has been recorded.
+ *
+ * Workouts are identified by their name at the time of each record, and a rename is recorded under the old
+ * name, so replay follows a workout through its renames. A record for a workout or an exercise position
+ * that the log does not have at that point of the replay means the journal does not belong to the log it
+ * is replayed into. Replay then keeps what was applied before that record, as it does for a torn record,
+ * and renames the journal and every later one to end in {@value #CORRUPT_SUFFIX}, so they are kept for
+ * inspection but never replayed again.
+ */
+public class WorkoutJournal implements WorkoutChangeListener, Closeable {
+    static final String SNAPSHOT_FILE = "workouts.snapshot";
+    static final String JOURNAL_PREFIX = "journal-";
+    static final String JOURNAL_SUFFIX = ".log";
+    static final String CORRUPT_SUFFIX = ".corrupt";
+
+    private static final byte WORKOUT_LOGGED = 1;
+    private static final byte WORKOUT_REMOVED = 2;
+    private static final byte EXERCISE_ADDED = 3;
+    private static final byte EXERCISE_REMOVED = 4;
+    private static final byte EXERCISE_MODIFIED = 5;
+    private static final byte WORKOUT_MODIFIED = 6;
+
+    private static final int FLUSH_THRESHOLD_BYTES = 1 << 20; // Write out early when this much is pending
+    private static final long DEFAULT_COMPACTION_BYTES = 64L << 20;
+
+    private final Path directory;
+    private final InterfaceWorkoutLogger workoutLogger;
+    private final long compactionBytes;
+    private final boolean groupCommit; // False when every record is forced as it is written
+    private final ScheduledExecutorService flusher;
+    private final ExecutorService compactor;
+
+    // Guarded by this: records not yet handed to the file
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private final CRC32 crc = new CRC32();
+    private long bytesSinceCompaction;
+
+    // Only used on the thread that changes the log: the number of workouts the records so far leave logged
+    private int recordedWorkouts;
+
+    // Guarded by fileLock: the current journal file
+    private final Object fileLock = new Object();
+    private FileChannel channel;
+    private long generation;
+    private boolean closed;
+
+    private WorkoutJournal(Path directory, InterfaceWorkoutLogger workoutLogger, long generation,
+                           long fsyncIntervalMillis, long compactionBytes) throws IOException {
+        this.directory = directory;
+        this.workoutLogger = workoutLogger;
+        this.compactionBytes = compactionBytes;
+        this.groupCommit = fsyncIntervalMillis > 0;
+        this.pending = newBuffer(1 << 16);
+        this.spare = newBuffer(1 << 16);
+        this.generation = generation;
+        this.channel = openJournal(generation);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(daemon("workout-journal-flush"));
+        this.compactor = Executors.newSingleThreadExecutor(daemon("workout-journal-compact"));
+        if (groupCommit) {
+            flusher.scheduleWithFixedDelay(this::flushQuietly, fsyncIntervalMillis, fsyncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Restores a log from a journal directory and starts recording its changes.
+     * The snapshot and any journals are loaded into the log, a new journal generation is started and,
+     * if anything was replayed, a compaction is started in the background.
+     *
+     * @param directory The journal directory, created if it does not exist.
+     * @param workoutLogger The empty log to restore into and record.
+     * @param fsyncIntervalMillis How often pending records are written and forced to disk;
+     *                            0 or less forces every record as it is written.
+     * @return The running journal; close it on shutdown.
+     * @throws IOException if the directory cannot be read or the journal cannot be created.
+     */
+    public static WorkoutJournal open(Path directory, InterfaceWorkoutLogger workoutLogger, long fsyncIntervalMillis)
+            throws IOException {
+        return open(directory, workoutLogger, fsyncIntervalMillis, DEFAULT_COMPACTION_BYTES);
+    }
+
+    /**
+     * Restores a log from a journal directory and starts recording its changes.
+     *
+     * @param directory The journal directory, created if it does not exist.
+     * @param workoutLogger The empty log to restore into and record.
+     * @param fsyncIntervalMillis How often pending records are written and forced to disk.
+     * @param compactionBytes Journal size after which a compaction is started.
+     * @return The running journal; close it on shutdown.
+     * @throws IOException if the directory cannot be read or the journal cannot be created.
+     */
+    public static WorkoutJournal open(Path directory, InterfaceWorkoutLogger workoutLogger, long fsyncIntervalMillis,
+                                      long compactionBytes) throws IOException {
+        Files.createDirectories(directory);
+
+        long firstGeneration = 0;
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotFile)) {
+            try (WorkoutSnapshot snapshot = WorkoutSnapshot.open(snapshotFile)) {
+                snapshot.loadInto(workoutLogger);
+                firstGeneration = snapshot.getGeneration();
+            }
+        }
+
+        long lastGeneration = firstGeneration - 1;
+        boolean replayed = false;
+        boolean corrupt = false;
+        for (long journalGeneration : journalGenerations(directory)) {
+            Path file = directory.resolve(journalName(journalGeneration));
+            if (journalGeneration < firstGeneration) {
+                Files.deleteIfExists(file); // Left over from a compaction that did not finish cleaning up
+                continue;
+            }
+            lastGeneration = journalGeneration; // Also for journals set aside, so their generation is not reused
+            if (corrupt) {
+                setAside(file); // Builds on the records that could not be applied
+                continue;
+            }
+            try {
+                replayed |= replay(file, workoutLogger);
+            } catch (RuntimeException e) {
+                System.err.println("Journal " + file.getFileName() + " does not match the log, replayed up to the"
+                        + " failing record and set aside: " + e.getMessage());
+                setAside(file);
+                corrupt = true;
+                replayed = true; // Records before the failing one were applied
+            }
+        }
+
+        WorkoutJournal journal = new WorkoutJournal(directory, workoutLogger, lastGeneration + 1,
+                fsyncIntervalMillis, compactionBytes);
+        journal.recordedWorkouts = workoutLogger.getNumberOfWorkouts();
+        workoutLogger.addChangeListener(journal);
+        if (replayed) {
+            journal.compact();
+        }
+        return journal;
+    }
+
+    @Override
+    public void workoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        boolean full;
+        synchronized (this) {
+            int start = begin(WORKOUT_LOGGED, workout.getWorkoutName(), 8);
+            pending.putLong(workout.getSessionStart().toEpochMilli());
+            full = finish(start);
+            // A workout may be logged with exercises already in it; record them after the workout
+            List<AbstractExercise> exercises = workout.exercisesView();
+            for (int i = 0; i < exercises.size(); i++) {
+                full |= appendExerciseAdded(workout.getWorkoutName(), exercises.get(i));
+            }
+        }
+        recordedWorkouts++;
+        afterAppend(full, recordedWorkouts == workoutLogger.getNumberOfWorkouts());
+    }
+
+    @Override
+    public void workoutRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        boolean full;
+        synchronized (this) {
+            int start = begin(WORKOUT_REMOVED, workout.getWorkoutName(), 0);
+            full = finish(start);
+        }
+        recordedWorkouts--;
+        afterAppend(full, recordedWorkouts == workoutLogger.getNumberOfWorkouts());
+    }
+
+    @Override
+    public void exerciseAdded(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                              AbstractExercise exercise, int index) {
+        boolean full;
+        synchronized (this) {
+            full = appendExerciseAdded(workout.getWorkoutName(), exercise);
+        }
+        afterAppend(full, index == workout.exerciseCount() - 1); // Not the last of a batch while more follow
+    }
+
+    @Override
+    public void exerciseRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                AbstractExercise exercise, int index) {
+        boolean full;
+        synchronized (this) {
+            int start = begin(EXERCISE_REMOVED, workout.getWorkoutName(), 4);
+            pending.putInt(index);
+            full = finish(start);
+        }
+        afterAppend(full, true);
+    }
+
+    @Override
+    public void exerciseModified(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                 AbstractExercise exercise, int index) {
+        byte[] name = exercise.getName().getBytes(StandardCharsets.UTF_8);
+        boolean full;
+        synchronized (this) {
+            int start = begin(EXERCISE_MODIFIED, workout.getWorkoutName(), 4 + 4 + name.length + 20);
+            pending.putInt(index)
+                   .putInt(name.length).put(name)
+                   .putInt(exercise.getReps())
+                   .putInt(exercise.getSets())
+                   .putDouble(exercise.getWeight())
+                   .putInt(exercise.getSeconds());
+            full = finish(start);
+        }
+        afterAppend(full, true);
+    }
+
+    @Override
+    public void workoutModified(AbstractWorkout workout, WorkoutVersion workoutVersion, String previousName) {
+        byte[] name = workout.getWorkoutName().getBytes(StandardCharsets.UTF_8);
+        boolean full;
+        synchronized (this) {
+            int start = begin(WORKOUT_MODIFIED, previousName, 4 + name.length + 8);
+            pending.putInt(name.length).put(name)
+                   .putLong(workout.getSessionStart().toEpochMilli());
+            full = finish(start);
+        }
+        afterAppend(full, true);
+    }
+
+    /**
+     * Writes pending records to the journal file and forces them to disk.
+     *
+     * @throws IOException if the journal cannot be written.
+     */
+    public void flush() throws IOException {
+        synchronized (fileLock) {
+            ByteBuffer toWrite;
+            synchronized (this) {
+                if (pending.position() == 0) {
+                    return;
+                }
+                toWrite = pending;
+                pending = spare;
+                spare = toWrite;
+            }
+            toWrite.flip();
+            while (toWrite.hasRemaining()) {
+                channel.write(toWrite);
+            }
+            toWrite.clear();
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Starts a new journal generation and saves the current log as a snapshot in the background.
+     * Must be called from the thread that changes the log, so the log version taken matches the new generation.
+     */
+    public void compact() {
+        long coveredGeneration;
+        try {
+            synchronized (fileLock) {
+                if (closed) {
+                    return;
+                }
+                flush();
+                channel.close();
+                generation++;
+                channel = openJournal(generation);
+                coveredGeneration = generation;
+            }
+        } catch (IOException e) {
+            System.err.println("Journal rotation failed: " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            bytesSinceCompaction = 0;
+        }
+
+        WorkoutLogVersion logVersion = workoutLogger.snapshot();
+        compactor.execute(() -> {
+            try {
+                WorkoutSnapshot.write(logVersion, directory.resolve(SNAPSHOT_FILE), coveredGeneration);
+                for (long old : journalGenerations(directory)) {
+                    if (old < coveredGeneration) {
+                        Files.deleteIfExists(directory.resolve(journalName(old)));
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Journal compaction failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Stops recording, writes out pending records and waits for a running compaction to finish.
+     */
+    @Override
+    public void close() throws IOException {
+        workoutLogger.removeChangeListener(this);
+        flusher.shutdown();
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (fileLock) {
+            flush();
+            channel.close();
+            closed = true;
+        }
+    }
+
+    // Encodes one exercise-added record; called while holding this lock
+    private boolean appendExerciseAdded(String workoutName, AbstractExercise exercise) {
+        byte[] name = exercise.getName().getBytes(StandardCharsets.UTF_8);
+        int start = begin(EXERCISE_ADDED, workoutName, 4 + name.length + 20);
+        pending.putInt(name.length).put(name)
+               .putInt(exercise.getReps())
+               .putInt(exercise.getSets())
+               .putDouble(exercise.getWeight())
+               .putInt(exercise.getSeconds());
+        return finish(start);
+    }
+
+    // Starts a record with a length placeholder, its type and the workout name, and returns its start.
+    // Called while holding this lock; the caller appends the rest of the body and calls finish.
+    private int begin(byte type, String workoutName, int extraBytes) {
+        byte[] name = workoutName.getBytes(StandardCharsets.UTF_8);
+        int recordBytes = 4 + 1 + 4 + name.length + extraBytes + 4;
+        if (pending.remaining() < recordBytes) {
+            ByteBuffer larger = newBuffer(Math.max(pending.capacity() * 2, pending.position() + recordBytes));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        int start = pending.position();
+        pending.putInt(0).put(type).putInt(name.length).put(name);
+        return start;
+    }
+
+    // Fills in the length and appends the checksum of the record begun at start.
+    // Returns true when enough is pending that it should be written out now.
+    private boolean finish(int start) {
+        int end = pending.position();
+        pending.putInt(start, end - start - 4);
+        crc.reset();
+        crc.update(pending.duplicate().position(start + 4).limit(end));
+        pending.putInt((int) crc.getValue());
+        bytesSinceCompaction += pending.position() - start;
+        return pending.position() >= FLUSH_THRESHOLD_BYTES;
+    }
+
+    // Runs outside the buffer lock: writes out in sync mode or when the buffer is full, and compacts when due.
+    // A due compaction stays due until settled, that is until the records match the published log again.
+    private void afterAppend(boolean full, boolean settled) {
+        if (full || !groupCommit) {
+            flushQuietly();
+        }
+        if (!settled) {
+            return;
+        }
+        boolean compactNow;
+        synchronized (this) {
+            compactNow = bytesSinceCompaction >= compactionBytes;
+        }
+        if (compactNow) {
+            compact();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("Journal flush failed: " + e.getMessage());
+        }
+    }
+
+    private static void setAside(Path file) throws IOException {
+        Files.move(file, file.resolveSibling(file.getFileName() + CORRUPT_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private FileChannel openJournal(long journalGeneration) throws IOException {
+        return FileChannel.open(directory.resolve(journalName(journalGeneration)), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Applies the records of one journal file; stops at the first torn or corrupt record, and throws on a
+    // record that names a workout or an exercise position the log does not have
+    private static boolean replay(Path file, InterfaceWorkoutLogger workoutLogger) throws IOException {
+        boolean applied = false;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= 4) {
+                int start = buffer.position();
+                int bodyLength = buffer.getInt();
+                if (bodyLength <= 0 || buffer.remaining() < bodyLength + 4) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.duplicate().limit(start + 4 + bodyLength));
+                buffer.position(start + 4 + bodyLength);
+                if (buffer.getInt() != (int) crc.getValue()) {
+                    break;
+                }
+                apply(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).limit(start + 4 + bodyLength).position(start + 4),
+                      workoutLogger);
+                applied = true;
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(ByteBuffer record, InterfaceWorkoutLogger workoutLogger) {
+        byte type = record.get();
+        String workoutName = readString(record);
+        if (type == WORKOUT_LOGGED) {
+            // Journals written before session starts were recorded end the record after the name
+            Instant sessionStart = record.remaining() >= 8 ? Instant.ofEpochMilli(record.getLong()) : Instant.now();
+            workoutLogger.logWorkout(new ConcreteWorkout(workoutName, sessionStart));
+            return;
+        }
+        AbstractWorkout workout = workoutLogger.findWorkout(workoutName);
+        if (workout == null) {
+            throw new IllegalStateException("Journal record for a workout that is not logged: " + workoutName);
+        }
+        switch (type) {
+            case WORKOUT_MODIFIED:
+                workout.setWorkoutName(readString(record));
+                workout.setSessionStart(Instant.ofEpochMilli(record.getLong()));
+                break;
+            case WORKOUT_REMOVED:
+                workoutLogger.removeWorkout(workout);
+                break;
+            case EXERCISE_ADDED:
+                String exerciseName = readString(record);
+                int reps = record.getInt();
+                int sets = record.getInt();
+                double weight = record.getDouble();
+                int seconds = record.getInt();
+                workout.addExercise(new ConcreteExercise(exerciseName, reps, sets, weight, seconds));
+                break;
+            case EXERCISE_REMOVED:
+                workout.removeExercise(workout.exercisesView().get(record.getInt()));
+                break;
+            case EXERCISE_MODIFIED:
+                int modifiedIndex = record.getInt();
+                String modifiedName = readString(record);
+                int modifiedReps = record.getInt();
+                int modifiedSets = record.getInt();
+                double modifiedWeight = record.getDouble();
+                int modifiedSeconds = record.getInt();
+                AbstractExercise exercise = workout.exercisesView().get(modifiedIndex);
+                exercise.setName(modifiedName);
+                exercise.setReps(modifiedReps);
+                exercise.setSets(modifiedSets);
+                exercise.setWeight(modifiedWeight);
+                exercise.setSeconds(modifiedSeconds);
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record type: " + type);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long[] journalGenerations(Path directory) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    generations.add(Long.parseLong(
+                            name.substring(JOURNAL_PREFIX.length(), name.length() - JOURNAL_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        long[] sorted = generations.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static String journalName(long journalGeneration) {
+        return String.format("%s%012d%s", JOURNAL_PREFIX, journalGeneration, JOURNAL_SUFFIX);
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,255 @@
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Immutable state of a whole workout log at one point in time.
+ *
+ * The workout versions are held in a {@link PersistentVector}, so a new log version shares almost all
+ * of its structure with the previous one and a reader can keep an old version for as long as it needs.
+ * Versions nobody refers to any more are reclaimed by the garbage collector. Log-wide totals are kept
+ * up to date with every change, so statistics are read in constant time.
+ *
+ * Each logged workout keeps its slot in the vector until the log is compacted. Removing a workout leaves an
+ * empty slot behind, so removal takes O(log n) and the slots of the other workouts stay valid.
+ * {@link #getWorkouts()} skips the empty slots.
+ */
+public final class WorkoutLogVersion {
+    private static final WorkoutLogVersion EMPTY = new WorkoutLogVersion(0, PersistentVector.empty(), 0, 0, 0);
+
+    private final long version;
+    private final PersistentVector<WorkoutVersion> slots; // Workouts in logging order; null where one was removed
+    private final int count; // Workouts in the slots
+    private final double totalVolume;
+    private final long totalDurationMinutes;
+    private List<WorkoutVersion> workouts; // Slots without the empty ones, created on first use
+
+    private WorkoutLogVersion(long version, PersistentVector<WorkoutVersion> slots, int count, double totalVolume,
+                              long totalDurationMinutes) {
+        this.version = version;
+        this.slots = slots;
+        this.count = count;
+        this.totalVolume = totalVolume;
+        this.totalDurationMinutes = totalDurationMinutes;
+    }
+
+    /**
+     * Returns the version of an empty log.
+     * @return The shared empty version.
+     */
+    public static WorkoutLogVersion empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the version number, which grows by one with every change to the log.
+     * @return The version number.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the workouts of this version in logging order.
+     * @return An immutable list.
+     */
+    public List<WorkoutVersion> getWorkouts() {
+        if (count == slots.size()) {
+            return slots;
+        }
+        List<WorkoutVersion> current = workouts;
+        if (current == null) {
+            current = new Workouts(slots, count); // A race only creates it twice
+            workouts = current;
+        }
+        return current;
+    }
+
+    public int getNumberOfWorkouts() {
+        return count;
+    }
+
+    public double getTotalVolume() {
+        return totalVolume;
+    }
+
+    public long getTotalDurationMinutes() {
+        return totalDurationMinutes;
+    }
+
+    public double getAverageDurationMinutes() {
+        return count == 0 ? 0 : (double) totalDurationMinutes / count;
+    }
+
+    /**
+     * Returns the number of slots, which is where the next logged workout goes.
+     * @return The number of slots, empty ones included.
+     */
+    int slotCount() {
+        return slots.size();
+    }
+
+    /**
+     * Returns the workout in a slot.
+     * @param slot The slot of the workout.
+     * @return The workout version, or null if the slot is empty.
+     */
+    WorkoutVersion slot(int slot) {
+        return slots.get(slot);
+    }
+
+    /**
+     * Returns a version with a workout appended.
+     * @param workout The workout version to add.
+     * @return The new version.
+     */
+    WorkoutLogVersion plus(WorkoutVersion workout) {
+        return new WorkoutLogVersion(version + 1, slots.plus(workout), count + 1,
+                totalVolume + workout.getTotalVolume(), totalDurationMinutes + workout.getDurationMinutes());
+    }
+
+    /**
+     * Returns a version with several workouts appended, as one change.
+     * @param added The workout versions to add, in order.
+     * @return The new version.
+     */
+    WorkoutLogVersion plusAll(List<WorkoutVersion> added) {
+        PersistentVector<WorkoutVersion> grown = slots;
+        double volume = totalVolume;
+        long minutes = totalDurationMinutes;
+        for (WorkoutVersion workout : added) {
+            grown = grown.plus(workout);
+            volume += workout.getTotalVolume();
+            minutes += workout.getDurationMinutes();
+        }
+        return new WorkoutLogVersion(version + 1, grown, count + added.size(), volume, minutes);
+    }
+
+    /**
+     * Returns a version with the workout in a slot replaced by a newer version of it.
+     * @param slot The slot of the workout.
+     * @param workout The new workout version.
+     * @return The new version.
+     */
+    WorkoutLogVersion with(int slot, WorkoutVersion workout) {
+        WorkoutVersion previous = slots.get(slot);
+        return new WorkoutLogVersion(version + 1, slots.with(slot, workout), count,
+                totalVolume - previous.getTotalVolume() + workout.getTotalVolume(),
+                totalDurationMinutes - previous.getDurationMinutes() + workout.getDurationMinutes());
+    }
+
+    /**
+     * Returns a version without the workout in a slot, leaving the slot empty unless it is the last one.
+     * @param slot The slot of the workout.
+     * @return The new version.
+     */
+    WorkoutLogVersion without(int slot) {
+        WorkoutVersion previous = slots.get(slot);
+        if (count == 1) {
+            return new WorkoutLogVersion(version + 1, PersistentVector.empty(), 0, 0, 0); // Drop any rounding left in the totals
+        }
+        PersistentVector<WorkoutVersion> remaining = slot == slots.size() - 1 ? slots.without(slot)
+                                                                             : slots.with(slot, null);
+        return new WorkoutLogVersion(version + 1, remaining, count - 1, totalVolume - previous.getTotalVolume(),
+                totalDurationMinutes - previous.getDurationMinutes());
+    }
+
+    /**
+     * Returns the number of empty slots.
+     * @return The slots left behind by removed workouts.
+     */
+    int emptySlots() {
+        return slots.size() - count;
+    }
+
+    /**
+     * Returns the same version with the empty slots dropped, which moves the workouts after them to lower slots.
+     * @return The compacted version, with the same version number.
+     */
+    WorkoutLogVersion compacted() {
+        if (count == slots.size()) {
+            return this;
+        }
+        PersistentVector<WorkoutVersion> packed = PersistentVector.empty();
+        for (WorkoutVersion workout : slots) {
+            if (workout != null) {
+                packed = packed.plus(workout);
+            }
+        }
+        return new WorkoutLogVersion(version, packed, count, totalVolume, totalDurationMinutes);
+    }
+
+    /**
+     * The workouts of a version with empty slots. Iterating skips the empty slots; the first lookup by
+     * index maps every index to its slot.
+     */
+    private static final class Workouts extends AbstractList<WorkoutVersion> implements RandomAccess {
+        private final PersistentVector<WorkoutVersion> slots;
+        private final int count;
+        private volatile int[] slotOf; // Slot of each index, built on first lookup
+
+        Workouts(PersistentVector<WorkoutVersion> slots, int count) {
+            this.slots = slots;
+            this.count = count;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public WorkoutVersion get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+            }
+            int[] map = slotOf;
+            if (map == null) {
+                map = new int[count];
+                int next = 0;
+                for (int slot = 0; slot < slots.size(); slot++) {
+                    if (slots.get(slot) != null) {
+                        map[next++] = slot;
+                    }
+                }
+                slotOf = map; // A race only builds it twice
+            }
+            return slots.get(map[index]);
+        }
+
+        @Override
+        public Iterator<WorkoutVersion> iterator() {
+            return new Iterator<WorkoutVersion>() {
+                private final Iterator<WorkoutVersion> all = slots.iterator();
+                private WorkoutVersion next = advance();
+
+                private WorkoutVersion advance() {
+                    while (all.hasNext()) {
+                        WorkoutVersion workout = all.next();
+                        if (workout != null) {
+                            return workout;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public WorkoutVersion next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    WorkoutVersion current = next;
+                    next = advance();
+                    return current;
+                }
+            };
+        }
+    }
+}
@@ -1,65 +1,90 @@
-import java.util.Collections;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.ZoneId;
 
-public class WorkoutLogger implements InterfaceWorkoutLogger {
-    private List<AbstractWorkout> workouts; // List to hold logged workouts
+public class WorkoutLogger extends AbstractWorkoutLogger {
+    private final WorkoutTimeIndex timeIndex; // Workouts by session start, with per-day totals
+    private final ExerciseIndex exerciseIndex = new ExerciseIndex(); // Occurrences of each exercise type
+    private final PersonalRecords personalRecords = new PersonalRecords(); // Best lifts of each exercise type
 
     /**
-     * Constructs a WorkoutLogger with an empty list of workouts.
+     * Constructs a WorkoutLogger with an empty list of workouts, whose sessions are grouped into days
+     * in the system time zone.
      */
     public WorkoutLogger() {
-        this.workouts = new ArrayList<>();
+        this(ZoneId.systemDefault());
     }
 
     /**
-     * Logs a new workout, adding it to the list of workouts.
+     * Constructs a WorkoutLogger with an empty list of workouts.
      *
-     * @param workout The workout to be logged.
+     * @param zone The time zone that decides which day a session belongs to.
      */
-    @Override
-    public void logWorkout(AbstractWorkout workout) {
-        if (workout == null) {
-            throw new IllegalArgumentException("Workout cannot be null");
-        }
-
-        // Check if the workout is already logged
-        for (AbstractWorkout currentWorkout : workouts) {
-            if (currentWorkout.getWorkoutName().equals(workout.getWorkoutName())) {
-                return;
-            }
-        }
-
-        // if workout does not exist in ArrayList, add it
-        workouts.add(workout);
+    public WorkoutLogger(ZoneId zone) {
+        this.timeIndex = new WorkoutTimeIndex(zone);
     }
 
     /**
-     * Retrieves all logged workouts.
+     * Returns the logged workouts ordered by session start, for time-range queries and per-day totals.
      *
-     * @return An unmodifiable list of logged workouts to ensure data integrity.
+     * @return The time index, kept current on every change to the log.
      */
-    @Override
-    public List<AbstractWorkout> getLoggedWorkouts() {
-        return Collections.unmodifiableList(workouts); // Prevent external modifications. Make an immutable list for interface
+    public WorkoutTimeIndex getTimeIndex() {
+        return timeIndex;
     }
 
     /**
-     * Optional method to remove a workout from the log.
+     * Returns the inverted index from exercise type to its occurrences in the logged workouts.
+     * Like the logger, it must only be read on the thread that changes the log.
      *
-     * @param workout The workout to remove.
-     * @return true if the workout was successfully removed, false otherwise.
+     * @return The exercise index, kept current on every change to the log.
      */
-    public boolean removeWorkout(AbstractWorkout workout) {
-        return workouts.remove(workout);
+    public ExerciseIndex getExerciseIndex() {
+        return exerciseIndex;
     }
 
     /**
-     * Method to get the number of workouts.
+     * Returns the personal records of every exercise type in the logged workouts.
+     * Like the logger, they must only be read on the thread that changes the log.
      *
-     * @return The number of logged workouts.
+     * @return The personal records, kept current on every change to the log.
      */
-    public int getNumberOfWorkouts() {
-        return workouts.size();
+    public PersonalRecords getPersonalRecords() {
+        return personalRecords;
+    }
+
+    @Override
+    protected void workoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+        timeIndex.add(workoutVersion);
+        exerciseIndex.workoutLogged(workout, workoutVersion);
+        personalRecords.workoutLogged(workout, workoutVersion);
+    }
+
+    @Override
+    protected void workoutRemoved(AbstractWorkout workout) {
+        timeIndex.remove(workout);
+        exerciseIndex.workoutRemoved(workout, workout.snapshot());
+        personalRecords.workoutRemoved(workout, workout.snapshot());
+    }
+
+    @Override
+    protected void workoutChanged(WorkoutVersion workoutVersion) {
+        timeIndex.update(workoutVersion);
+    }
+
+    @Override
+    protected void exerciseAdded(AbstractWorkout workout, AbstractExercise exercise, int index) {
+        exerciseIndex.exerciseAdded(workout, workout.snapshot(), exercise, index);
+        personalRecords.exerciseAdded(workout, workout.snapshot(), exercise, index);
+    }
+
+    @Override
+    protected void exerciseRemoved(AbstractWorkout workout, AbstractExercise exercise, int index) {
+        exerciseIndex.exerciseRemoved(workout, workout.snapshot(), exercise, index);
+        personalRecords.exerciseRemoved(workout, workout.snapshot(), exercise, index);
+    }
+
+    @Override
+    protected void exerciseModified(AbstractWorkout workout, AbstractExercise exercise, int index) {
+        exerciseIndex.exerciseModified(workout, workout.snapshot(), exercise, index);
+        personalRecords.exerciseModified(workout, workout.snapshot(), exercise, index);
     }
 }
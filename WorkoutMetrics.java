@@ -0,0 +1,301 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Counts and latency histograms for controller operations and changes to the model.
+ *
+ * Every {@link Operation} records how often it ran, how often it failed and a {@link LatencyHistogram}
+ * of how long it took. Controller operations are timed from the call until their future completes, so
+ * the time spent queued for the model thread is included; model changes are timed on the thread that
+ * makes them. The numbers are published as the JMX MBean {@value #OBJECT_NAME} and can be printed
+ * periodically with {@link #startPeriodicDump}.
+ *
+ * Metrics are switched off with -Dfitness.metrics=false. The switch is a static final constant, so when
+ * it is off the JIT removes the timing code entirely and nothing is measured or allocated.
+ */
+public final class WorkoutMetrics {
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("fitness.metrics", "true"));
+    public static final String OBJECT_NAME = "fitness:type=WorkoutMetrics";
+
+    /**
+     * The measured operations.
+     */
+    public enum Operation {
+        ADD_WORKOUT("addWorkout"),
+        ADD_EXERCISE("addExercise"),
+        ADD_EXERCISES("addExercises"),
+        DISPLAY_WORKOUTS("displayWorkouts"),
+        DISPLAY_STATISTICS("displayStatistics"),
+        WORKOUTS_DISPLAY_TEXT("getWorkoutsDisplayText"),
+        EXPORT("exportWorkoutData"),
+        IMPORT("importWorkoutData"),
+        SAVE_SNAPSHOT("saveSnapshot"),
+        LOAD_SNAPSHOT("loadSnapshot"),
+        GUI_REFRESH("guiRefresh"), // Delivery of one batch of changes to the views
+        LOG_WORKOUT("model.logWorkout"),
+        LOG_WORKOUTS("model.logWorkouts"),
+        REMOVE_WORKOUT("model.removeWorkout"),
+        WORKOUT_ADD_EXERCISE("model.addExercise"),
+        WORKOUT_ADD_EXERCISES("model.addExercises"),
+        WORKOUT_REMOVE_EXERCISE("model.removeExercise"),
+        STORE_LOAD("store.load"), // Exercises of an evicted workout read back from disk
+        STORE_EVICT("store.evict");
+
+        private final String displayName;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+
+        Operation(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+    }
+
+    private static ScheduledExecutorService dumpTimer;
+
+    private WorkoutMetrics() {
+    }
+
+    /**
+     * Returns the start time of an operation, to be passed to {@link #record}.
+     * @return The current time in nanoseconds, or 0 when metrics are off.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records an operation that completed.
+     * @param operation The operation.
+     * @param start The value {@link #start()} returned when the operation began.
+     */
+    public static void record(Operation operation, long start) {
+        if (ENABLED) {
+            operation.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records an operation when its future completes, counting it as failed if the future fails or is cancelled.
+     *
+     * @param operation The operation.
+     * @param start The value {@link #start()} returned when the operation was requested.
+     * @param future The future of the operation.
+     * @return The same future.
+     */
+    public static <T> CompletableFuture<T> timed(Operation operation, long start, CompletableFuture<T> future) {
+        if (ENABLED) {
+            future.whenComplete((result, error) -> {
+                operation.latency.record(System.nanoTime() - start);
+                if (error != null) {
+                    operation.failures.increment();
+                }
+            });
+        }
+        return future;
+    }
+
+    /**
+     * Clears the counts and histograms of every operation.
+     */
+    public static void reset() {
+        for (Operation operation : Operation.values()) {
+            operation.latency.reset();
+            operation.failures.reset();
+        }
+    }
+
+    /**
+     * Returns one line per operation that has run, with its count, failures and latency percentiles in microseconds.
+     * @return The lines.
+     */
+    public static List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram latency = operation.latency;
+            long count = latency.getCount();
+            if (count == 0) {
+                continue;
+            }
+            lines.add(String.format(Locale.ROOT,
+                    "%s: count=%d failures=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                    operation.displayName, count, operation.getFailures(), latency.getMean() / 1000,
+                    latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+                    latency.getValueAtPercentile(99.9) / 1000.0, latency.getMax() / 1000.0));
+        }
+        return lines;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under {@value #OBJECT_NAME}.
+     * Does nothing when metrics are off.
+     *
+     * @throws JMException If the MBean cannot be registered.
+     */
+    public static void registerMBean() throws JMException {
+        if (ENABLED) {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), new ObjectName(OBJECT_NAME));
+        }
+    }
+
+    /**
+     * Prints the summary to standard output at a fixed rate on a daemon thread, skipping periods
+     * in which nothing ran. Does nothing when metrics are off or a dump is already running.
+     *
+     * @param periodSeconds Seconds between dumps.
+     */
+    public static synchronized void startPeriodicDump(long periodSeconds) {
+        if (periodSeconds <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        if (!ENABLED || dumpTimer != null) {
+            return;
+        }
+        dumpTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "workout-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long[] lastTotal = { -1 };
+        dumpTimer.scheduleAtFixedRate(() -> {
+            long total = 0;
+            for (Operation operation : Operation.values()) {
+                total += operation.latency.getCount();
+            }
+            if (total != lastTotal[0]) {
+                lastTotal[0] = total;
+                for (String line : summary()) {
+                    System.out.println("[metrics] " + line);
+                }
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the periodic dump, if one is running.
+     */
+    public static synchronized void stopPeriodicDump() {
+        if (dumpTimer != null) {
+            dumpTimer.shutdownNow();
+            dumpTimer = null;
+        }
+    }
+
+    /**
+     * Exposes, for every operation, the attributes {name}Count, {name}Failures, {name}MeanMicros,
+     * {name}P50Micros, {name}P99Micros and {name}MaxMicros, and a reset operation.
+     */
+    private static final class MetricsMBean implements DynamicMBean {
+        private static final String[] STATISTICS = { "Count", "Failures", "MeanMicros", "P50Micros", "P99Micros", "MaxMicros" };
+
+        private final MBeanInfo info;
+
+        MetricsMBean() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (Operation operation : Operation.values()) {
+                for (String statistic : STATISTICS) {
+                    boolean counter = statistic.equals("Count") || statistic.equals("Failures");
+                    attributes.add(new MBeanAttributeInfo(attributeName(operation, statistic),
+                            counter ? "long" : "double", operation.displayName + " " + statistic, true, false, false));
+                }
+            }
+            MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Clears every count and histogram",
+                    null, "void", MBeanOperationInfo.ACTION);
+            info = new MBeanInfo(WorkoutMetrics.class.getName(), "Fitness tracker operation metrics",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] { reset }, null);
+        }
+
+        private static String attributeName(Operation operation, String statistic) {
+            return operation.displayName.replace("model.", "model_") + statistic;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            for (Operation operation : Operation.values()) {
+                for (String statistic : STATISTICS) {
+                    if (attribute.equals(attributeName(operation, statistic))) {
+                        return valueOf(operation, statistic);
+                    }
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        private static Object valueOf(Operation operation, String statistic) {
+            LatencyHistogram latency = operation.latency;
+            switch (statistic) {
+                case "Count": return latency.getCount();
+                case "Failures": return operation.getFailures();
+                case "MeanMicros": return latency.getMean() / 1000;
+                case "P50Micros": return latency.getValueAtPercentile(50) / 1000.0;
+                case "P99Micros": return latency.getValueAtPercentile(99) / 1000.0;
+                default: return latency.getMax() / 1000.0;
+            }
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // Unknown attributes are left out, as the MBean contract allows
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Attribute is read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            if (actionName.equals("reset") && (params == null || params.length == 0)) {
+                reset();
+                return null;
+            }
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            return info;
+        }
+    }
+}
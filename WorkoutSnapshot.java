@@ -0,0 +1,324 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a workout log.
+ *
+ * Layout, all numbers little-endian:
+ * <pre>
+ * header        magic, version, string count, workout count, workout table offset (8 bytes), record offset (8 bytes),
+ *               journal generation (8 bytes)
+ * string table  per string: byte length (4 bytes), UTF-8 bytes
+ * workout table per workout: name string id, exercise count, offset of its first record (8 bytes),
+ *               session start in epoch milliseconds (8 bytes)
+ * records       per exercise: name string id, reps, sets, seconds, weight (8 bytes)
+ * </pre>
+ * Opening a snapshot maps the file and decodes only the string table; workouts are decoded when asked for.
+ * Version 2 files, which have no session start, can still be read; their workouts start when they are read.
+ * Version 1 files, which also have no journal generation and a 32-byte header, read as generation 0.
+ */
+public class WorkoutSnapshot implements Closeable {
+    static final int MAGIC = 0x574B4C47; // "WKLG"
+    static final int VERSION = 3;
+    static final int HEADER_BYTES = 40;
+    static final int WORKOUT_ENTRY_BYTES = 24;
+    private static final int VERSION_2_WORKOUT_ENTRY_BYTES = 16;
+    private static final int VERSION_1_HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 24;
+
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final String[] strings;
+    private final int workoutCount;
+    private final long workoutTableOffset;
+    private final int workoutEntryBytes;
+    private final long generation;
+
+    private WorkoutSnapshot(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < VERSION_1_HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a workout snapshot");
+        }
+        int version = buffer.getInt(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        int headerBytes = version == 1 ? VERSION_1_HEADER_BYTES : HEADER_BYTES;
+        if (buffer.limit() < headerBytes) {
+            throw new IOException("Not a workout snapshot");
+        }
+        this.workoutEntryBytes = version == VERSION ? WORKOUT_ENTRY_BYTES : VERSION_2_WORKOUT_ENTRY_BYTES;
+        int stringCount = buffer.getInt(8);
+        this.workoutCount = buffer.getInt(12);
+        this.workoutTableOffset = buffer.getLong(16);
+        this.generation = version == 1 ? 0 : buffer.getLong(32);
+
+        this.strings = new String[stringCount];
+        int position = headerBytes;
+        for (int i = 0; i < stringCount; i++) {
+            int length = buffer.getInt(position);
+            byte[] bytes = new byte[length];
+            buffer.get(position + 4, bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            position += 4 + length;
+        }
+    }
+
+    /**
+     * Maps a snapshot file for reading.
+     *
+     * @param file The snapshot file.
+     * @return The open snapshot; close it when done.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    public static WorkoutSnapshot open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2 GB: " + file);
+            }
+            return new WorkoutSnapshot(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes every logged workout to a snapshot file. The file is replaced only once it is complete.
+     *
+     * @param workoutLogger The log to save.
+     * @param file The snapshot file.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(InterfaceWorkoutLogger workoutLogger, Path file) throws IOException {
+        write(workoutLogger, file, 0);
+    }
+
+    /**
+     * Writes every logged workout to a snapshot file that records which journal generation it covers.
+     *
+     * @param workoutLogger The log to save.
+     * @param file The snapshot file.
+     * @param generation The first journal generation that is not included in the snapshot.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(InterfaceWorkoutLogger workoutLogger, Path file, long generation) throws IOException {
+        write(workoutLogger.snapshot(), file, generation);
+    }
+
+    /**
+     * Writes a log version to a snapshot file. The version does not change, so the log can keep
+     * changing while the file is written.
+     *
+     * @param logVersion The log version to save.
+     * @param file The snapshot file.
+     * @param generation The first journal generation that is not included in the snapshot.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(WorkoutLogVersion logVersion, Path file, long generation) throws IOException {
+        List<WorkoutVersion> workouts = logVersion.getWorkouts();
+
+        // Assign string ids to workout names and exercise names
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIds = new HashMap<>();
+        Map<ExerciseType, Integer> typeIds = new HashMap<>();
+        for (WorkoutVersion workout : workouts) {
+            stringIds.computeIfAbsent(workout.getWorkoutName(), name -> addString(strings, name));
+            for (AbstractExercise exercise : workout.getExercises()) {
+                typeIds.computeIfAbsent(exercise.getType(),
+                        type -> stringIds.computeIfAbsent(type.getName(), name -> addString(strings, name)));
+            }
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+            long stringBytes = 0;
+            byte[][] encoded = new byte[strings.size()][];
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                stringBytes += 4 + encoded[i].length;
+            }
+            long workoutTableOffset = HEADER_BYTES + stringBytes;
+            long recordOffset = workoutTableOffset + (long) workouts.size() * WORKOUT_ENTRY_BYTES;
+
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(strings.size()).putInt(workouts.size())
+                  .putLong(workoutTableOffset).putLong(recordOffset).putLong(generation);
+            for (byte[] bytes : encoded) {
+                ensure(out, buffer, 4 + bytes.length);
+                buffer.putInt(bytes.length);
+                if (bytes.length > buffer.remaining()) {
+                    writeFully(out, buffer);
+                    ByteBuffer large = ByteBuffer.wrap(bytes);
+                    while (large.hasRemaining()) {
+                        out.write(large);
+                    }
+                } else {
+                    buffer.put(bytes);
+                }
+            }
+
+            long nextRecord = recordOffset;
+            for (WorkoutVersion workout : workouts) {
+                ensure(out, buffer, WORKOUT_ENTRY_BYTES);
+                buffer.putInt(stringIds.get(workout.getWorkoutName()))
+                      .putInt(workout.exerciseCount())
+                      .putLong(nextRecord)
+                      .putLong(workout.getSessionStart().toEpochMilli());
+                nextRecord += (long) workout.exerciseCount() * RECORD_BYTES;
+            }
+
+            for (WorkoutVersion workout : workouts) {
+                for (AbstractExercise exercise : workout.getExercises()) {
+                    ensure(out, buffer, RECORD_BYTES);
+                    buffer.putInt(typeIds.get(exercise.getType()))
+                          .putInt(exercise.getReps())
+                          .putInt(exercise.getSets())
+                          .putInt(exercise.getSeconds())
+                          .putDouble(exercise.getWeight());
+                }
+            }
+            writeFully(out, buffer);
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the first journal generation whose changes are not part of this snapshot.
+     *
+     * @return The journal generation, 0 for snapshots written outside a journal.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the number of workouts in the snapshot.
+     *
+     * @return The workout count.
+     */
+    public int getNumberOfWorkouts() {
+        return workoutCount;
+    }
+
+    /**
+     * Returns the name of a workout without decoding its exercises.
+     *
+     * @param index The workout position, in logging order.
+     * @return The workout name.
+     */
+    public String getWorkoutName(int index) {
+        return strings[buffer.getInt(entryOffset(index))];
+    }
+
+    /**
+     * Returns when a workout's session started without decoding its exercises.
+     *
+     * @param index The workout position, in logging order.
+     * @return The session start, or null for snapshots written before session starts were saved.
+     */
+    public Instant getSessionStart(int index) {
+        int entry = entryOffset(index);
+        return workoutEntryBytes == WORKOUT_ENTRY_BYTES ? Instant.ofEpochMilli(buffer.getLong(entry + 16)) : null;
+    }
+
+    /**
+     * Returns the number of exercises of a workout without decoding them.
+     *
+     * @param index The workout position, in logging order.
+     * @return The exercise count.
+     */
+    public int getExerciseCount(int index) {
+        return buffer.getInt(entryOffset(index) + 4);
+    }
+
+    /**
+     * Decodes one workout and its exercises.
+     *
+     * @param index The workout position, in logging order.
+     * @return A new workout holding the saved exercises.
+     */
+    public AbstractWorkout readWorkout(int index) {
+        int entry = entryOffset(index);
+        Instant sessionStart = workoutEntryBytes == WORKOUT_ENTRY_BYTES
+                ? Instant.ofEpochMilli(buffer.getLong(entry + 16)) : Instant.now();
+        ConcreteWorkout workout = new ConcreteWorkout(strings[buffer.getInt(entry)], sessionStart);
+        int count = buffer.getInt(entry + 4);
+        int record = (int) buffer.getLong(entry + 8);
+        List<AbstractExercise> exercises = new ArrayList<>(count);
+        for (int i = 0; i < count; i++, record += RECORD_BYTES) {
+            exercises.add(new ConcreteExercise(strings[buffer.getInt(record)],
+                    buffer.getInt(record + 4), buffer.getInt(record + 8),
+                    buffer.getDouble(record + 16), buffer.getInt(record + 12)));
+        }
+        workout.addExercises(exercises); // One version and one totals update per workout, not per exercise
+        return workout;
+    }
+
+    /**
+     * Decodes every workout into a log, which takes them in as one batch.
+     *
+     * @param workoutLogger The log to fill.
+     */
+    public void loadInto(InterfaceWorkoutLogger workoutLogger) {
+        List<AbstractWorkout> workouts = new ArrayList<>(workoutCount);
+        for (int i = 0; i < workoutCount; i++) {
+            workouts.add(readWorkout(i));
+        }
+        workoutLogger.logWorkouts(workouts);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int entryOffset(int index) {
+        if (index < 0 || index >= workoutCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + workoutCount);
+        }
+        return (int) (workoutTableOffset + (long) index * workoutEntryBytes);
+    }
+
+    private static int addString(List<String> strings, String value) {
+        strings.add(value);
+        return strings.size() - 1;
+    }
+
+    // Makes room for the given number of bytes by writing out the buffer
+    private static void ensure(FileChannel out, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            writeFully(out, buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,303 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table of every logged workout followed by its exercises, one row each.
+ *
+ * Cells are read on demand from the version delivered with the latest event for each workout, so a table
+ * only ever reads the rows it paints, and the cells agree with the row counts reported for the same events.
+ * The number of rows per workout is kept in a {@link FenwickTree}, which finds the
+ * workout for a row in O(log n). The model subscribes to a {@link WorkoutEventBus} delivering on the
+ * event dispatch thread and turns each batch of events into row-level insert, delete and update events;
+ * consecutive inserted rows are reported as one range.
+ *
+ * The same workouts are offered as a combo box model through {@link #getWorkoutNames()}.
+ */
+public class WorkoutTableModel extends AbstractTableModel implements WorkoutEventBus.Subscriber {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = { "Workout", "Exercise", "Reps", "Sets", "Weight", "Seconds", "Volume" };
+
+    // Only used on the delivery thread of the event bus
+    private final List<WorkoutVersion> workouts = new ArrayList<>(); // Each as of its latest delivered event
+    private final Map<AbstractWorkout, Integer> positions = new IdentityHashMap<>();
+    private final FenwickTree rowCounts = new FenwickTree(); // One header row plus one row per exercise, per workout
+    private final Set<AbstractWorkout> changedHeaders = new LinkedHashSet<>();
+    private int insertedFirst = -1; // Inserted rows not yet reported
+    private int insertedLast = -1;
+    private final WorkoutNames workoutNames = new WorkoutNames();
+
+    /**
+     * Replaces the rows with the workouts of a log version. Events delivered later are applied on top of it.
+     *
+     * @param logVersion The log version to show.
+     */
+    @Override
+    public void initialState(WorkoutLogVersion logVersion) {
+        workouts.clear();
+        positions.clear();
+        rowCounts.clear();
+        changedHeaders.clear();
+        insertedFirst = -1;
+        for (WorkoutVersion version : logVersion.getWorkouts()) {
+            positions.put(version.getWorkout(), workouts.size());
+            workouts.add(version);
+            rowCounts.append(1 + version.exerciseCount());
+        }
+        fireTableDataChanged();
+        workoutNames.contentsChanged();
+    }
+
+    /**
+     * Returns a combo box model listing the names of the workouts in this table.
+     * @return The combo box model.
+     */
+    public ComboBoxModel<String> getWorkoutNames() {
+        return workoutNames;
+    }
+
+    @Override
+    public void eventsDelivered(List<WorkoutEvent> events) {
+        for (WorkoutEvent event : events) {
+            switch (event.getType()) {
+                case WORKOUT_LOGGED:
+                    workoutLogged(event.getWorkoutVersion());
+                    break;
+                case WORKOUT_REMOVED:
+                    workoutRemoved(event.getWorkout());
+                    break;
+                case EXERCISE_ADDED:
+                    exerciseAdded(event.getWorkoutVersion(), event.getIndex());
+                    break;
+                case EXERCISE_REMOVED:
+                    exerciseRemoved(event.getWorkoutVersion(), event.getIndex());
+                    break;
+                case EXERCISE_MODIFIED:
+                    exerciseModified(event.getWorkoutVersion(), event.getIndex());
+                    break;
+                case WORKOUT_MODIFIED:
+                    workoutModified(event.getWorkoutVersion());
+                    break;
+                default:
+                    break;
+            }
+        }
+        flushInserted();
+        for (AbstractWorkout workout : changedHeaders) {
+            int header = rowCounts.prefixSum(positions.get(workout));
+            fireTableRowsUpdated(header, header);
+        }
+        changedHeaders.clear();
+    }
+
+    private void workoutLogged(WorkoutVersion version) {
+        if (positions.containsKey(version.getWorkout())) {
+            return;
+        }
+        int first = rowCounts.total();
+        int exercises = version.exerciseCount();
+        positions.put(version.getWorkout(), workouts.size());
+        workouts.add(version);
+        rowCounts.append(1 + exercises); // The workout may already hold exercises when it is logged
+        inserted(first, first + exercises);
+        workoutNames.added(workouts.size() - 1);
+    }
+
+    private void workoutRemoved(AbstractWorkout workout) {
+        Integer index = positions.remove(workout);
+        if (index == null) {
+            return;
+        }
+        flushInserted();
+        int first = rowCounts.prefixSum(index);
+        int count = rowCounts.get(index);
+        String name = workouts.remove((int) index).getWorkoutName();
+        rowCounts.remove(index);
+        for (int i = index; i < workouts.size(); i++) {
+            positions.put(workouts.get(i).getWorkout(), i);
+        }
+        changedHeaders.remove(workout);
+        fireTableRowsDeleted(first, first + count - 1);
+        workoutNames.removed(index, name);
+    }
+
+    private void exerciseAdded(WorkoutVersion version, int index) {
+        AbstractWorkout workout = version.getWorkout();
+        Integer position = positions.get(workout);
+        if (position == null) {
+            return;
+        }
+        workouts.set(position, version);
+        int row = rowCounts.prefixSum(position) + 1 + index;
+        rowCounts.add(position, 1);
+        inserted(row, row);
+        changedHeaders.add(workout);
+    }
+
+    private void exerciseRemoved(WorkoutVersion version, int index) {
+        AbstractWorkout workout = version.getWorkout();
+        Integer position = positions.get(workout);
+        if (position == null) {
+            return;
+        }
+        workouts.set(position, version);
+        flushInserted();
+        int row = rowCounts.prefixSum(position) + 1 + index;
+        rowCounts.add(position, -1);
+        fireTableRowsDeleted(row, row);
+        changedHeaders.add(workout);
+    }
+
+    private void exerciseModified(WorkoutVersion version, int index) {
+        AbstractWorkout workout = version.getWorkout();
+        Integer position = positions.get(workout);
+        if (position == null) {
+            return;
+        }
+        workouts.set(position, version);
+        flushInserted();
+        int row = rowCounts.prefixSum(position) + 1 + index;
+        fireTableRowsUpdated(row, row);
+        changedHeaders.add(workout);
+    }
+
+    private void workoutModified(WorkoutVersion version) {
+        AbstractWorkout workout = version.getWorkout();
+        Integer position = positions.get(workout);
+        if (position == null) {
+            return;
+        }
+        String previousName = workouts.set(position, version).getWorkoutName();
+        changedHeaders.add(workout);
+        if (!previousName.equals(version.getWorkoutName())) {
+            workoutNames.renamed(position, previousName);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCounts.total();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int index = rowCounts.find(row);
+        int offset = row - rowCounts.prefixSum(index);
+        WorkoutVersion workout = workouts.get(index);
+        if (offset == 0) {
+            switch (column) {
+                case 0: return workout.getWorkoutName();
+                case 1: return workout.exerciseCount() + " exercises";
+                case 2: return workout.getTotalReps();
+                case 3: return workout.getTotalSets();
+                case 5: return workout.getDurationSeconds();
+                case 6: return workout.getTotalVolume();
+                default: return "";
+            }
+        }
+        if (offset > workout.exerciseCount()) {
+            return ""; // Every delivered version holds at least the rows reported for it, so this is only a guard
+        }
+        AbstractExercise exercise = workout.getExercises().get(offset - 1);
+        switch (column) {
+            case 1: return exercise.getName();
+            case 2: return exercise.getReps();
+            case 3: return exercise.getSets();
+            case 4: return exercise.getWeight();
+            case 5: return exercise.getSeconds();
+            case 6: return exercise.calculateVolume();
+            default: return "";
+        }
+    }
+
+    // Extends the pending insert range, or reports it and starts a new one
+    private void inserted(int first, int last) {
+        if (insertedFirst >= 0 && first == insertedLast + 1) {
+            insertedLast = last;
+            return;
+        }
+        flushInserted();
+        insertedFirst = first;
+        insertedLast = last;
+    }
+
+    private void flushInserted() {
+        if (insertedFirst >= 0) {
+            fireTableRowsInserted(insertedFirst, insertedLast);
+            insertedFirst = -1;
+        }
+    }
+
+    // Workout names for the workout selection, read from the same list as the table
+    private class WorkoutNames extends AbstractListModel<String> implements ComboBoxModel<String> {
+        private static final long serialVersionUID = 1L;
+        private Object selected;
+
+        @Override
+        public int getSize() {
+            return workouts.size();
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            return workouts.get(index).getWorkoutName();
+        }
+
+        @Override
+        public Object getSelectedItem() {
+            return selected;
+        }
+
+        @Override
+        public void setSelectedItem(Object item) {
+            if (selected == null ? item != null : !selected.equals(item)) {
+                selected = item;
+                fireContentsChanged(this, -1, -1);
+            }
+        }
+
+        void added(int index) {
+            fireIntervalAdded(this, index, index);
+            if (selected == null) {
+                setSelectedItem(getElementAt(index)); // Like a default combo box, select the first workout added
+            }
+        }
+
+        void removed(int index, String name) {
+            fireIntervalRemoved(this, index, index);
+            if (name.equals(selected)) {
+                setSelectedItem(workouts.isEmpty() ? null : getElementAt(Math.min(index, workouts.size() - 1)));
+            }
+        }
+
+        void renamed(int index, String previousName) {
+            fireContentsChanged(this, index, index);
+            if (previousName.equals(selected)) {
+                setSelectedItem(getElementAt(index)); // Keep the renamed workout selected under its new name
+            }
+        }
+
+        void contentsChanged() {
+            if (selected == null && !workouts.isEmpty()) {
+                selected = getElementAt(0);
+            }
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Logged workouts ordered by session start, with running totals per calendar day.
+ *
+ * Sessions are kept in a skip list, so the sessions in a time range are found in O(log n + k).
+ * Every day with sessions has a {@link SessionTotals} bucket that is updated whenever a session is
+ * added, removed or changed, so totals over whole days read one bucket per day and never the sessions.
+ * Totals over an arbitrary time range read the buckets of the days it covers completely and only the
+ * sessions of the partly covered first and last day.
+ *
+ * The index is changed only by the logger that owns it, on the thread that changes the log. Queries may
+ * run on any thread; a query running while the log changes may see that change only partly applied.
+ */
+public class WorkoutTimeIndex {
+    private final ZoneId zone;
+    private final ConcurrentSkipListMap<SessionKey, WorkoutVersion> sessions = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Long, SessionTotals> days = new ConcurrentSkipListMap<>(); // By epoch day
+    private final Map<AbstractWorkout, SessionKey> keys = new IdentityHashMap<>(); // Only used by the owner
+    private long nextSequence;
+    private volatile int size;
+
+    /**
+     * Constructs an empty index.
+     * @param zone The time zone that decides which day a session belongs to.
+     */
+    public WorkoutTimeIndex(ZoneId zone) {
+        if (zone == null) {
+            throw new IllegalArgumentException("Zone cannot be null");
+        }
+        this.zone = zone;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Returns the number of indexed sessions.
+     * @return The number of sessions.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the sessions that started in a time range, in order of their start.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to The end of the range, exclusive.
+     * @return The latest version of each session in the range.
+     */
+    public List<WorkoutVersion> getWorkoutsBetween(Instant from, Instant to) {
+        checkRange(from, to);
+        return new ArrayList<>(range(from.toEpochMilli(), to.toEpochMilli()).values());
+    }
+
+    /**
+     * Returns the totals of the sessions that started in a time range.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to The end of the range, exclusive.
+     * @return The totals.
+     */
+    public SessionTotals totalsBetween(Instant from, Instant to) {
+        checkRange(from, to);
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        long firstFullDay = dayOf(fromMillis);
+        if (startOfDay(firstFullDay) < fromMillis) {
+            firstFullDay++;
+        }
+        long endFullDay = dayOf(toMillis); // Exclusive: the day containing 'to' is at most partly covered
+        if (firstFullDay >= endFullDay) {
+            return sum(range(fromMillis, toMillis)); // Within one or two partial days
+        }
+        SessionTotals totals = sum(range(fromMillis, startOfDay(firstFullDay)));
+        totals = totals.plus(sumDays(firstFullDay, endFullDay));
+        return totals.plus(sum(range(startOfDay(endFullDay), toMillis)));
+    }
+
+    /**
+     * Returns the totals of whole days, read from the per-day buckets.
+     *
+     * @param first The first day, inclusive.
+     * @param end The last day, exclusive.
+     * @return The totals.
+     */
+    public SessionTotals totalsForDays(LocalDate first, LocalDate end) {
+        if (first == null || end == null || end.isBefore(first)) {
+            throw new IllegalArgumentException("Invalid day range");
+        }
+        return sumDays(first.toEpochDay(), end.toEpochDay());
+    }
+
+    /**
+     * Returns the totals of a number of days ending with the given day, such as the weekly volume with 7 days
+     * or the four-week average duration with 28.
+     *
+     * @param lastDay The last day of the window, inclusive.
+     * @param numberOfDays The length of the window in days.
+     * @return The totals.
+     */
+    public SessionTotals trailingDays(LocalDate lastDay, int numberOfDays) {
+        if (numberOfDays < 1) {
+            throw new IllegalArgumentException("Number of days must be positive");
+        }
+        return totalsForDays(lastDay.minusDays(numberOfDays - 1), lastDay.plusDays(1));
+    }
+
+    /**
+     * Returns the totals of a rolling window for every day of a range: entry i covers the numberOfDays days
+     * ending with day first + i. The window slides over the per-day buckets, so this takes
+     * O(days + numberOfDays) rather than O(days * numberOfDays).
+     *
+     * @param first The first day to report, inclusive.
+     * @param end The last day to report, exclusive.
+     * @param numberOfDays The length of the window in days.
+     * @return One total per day.
+     */
+    public List<SessionTotals> rollingTotals(LocalDate first, LocalDate end, int numberOfDays) {
+        if (first == null || end == null || end.isBefore(first)) {
+            throw new IllegalArgumentException("Invalid day range");
+        }
+        if (numberOfDays < 1) {
+            throw new IllegalArgumentException("Number of days must be positive");
+        }
+        long firstDay = first.toEpochDay();
+        long endDay = end.toEpochDay();
+        List<SessionTotals> rolling = new ArrayList<>((int) (endDay - firstDay));
+        SessionTotals window = sumDays(firstDay - numberOfDays + 1, firstDay);
+        for (long day = firstDay; day < endDay; day++) {
+            window = window.plus(days.getOrDefault(day, SessionTotals.EMPTY));
+            rolling.add(window);
+            window = window.minus(days.getOrDefault(day - numberOfDays + 1, SessionTotals.EMPTY));
+        }
+        return rolling;
+    }
+
+    /**
+     * Returns the per-day buckets of a range of days, leaving out days without sessions.
+     *
+     * @param first The first day, inclusive.
+     * @param end The last day, exclusive.
+     * @return The totals of each day with sessions, by day.
+     */
+    public NavigableMap<LocalDate, SessionTotals> getDays(LocalDate first, LocalDate end) {
+        if (first == null || end == null || end.isBefore(first)) {
+            throw new IllegalArgumentException("Invalid day range");
+        }
+        NavigableMap<LocalDate, SessionTotals> result = new TreeMap<>();
+        for (Map.Entry<Long, SessionTotals> day : days.subMap(first.toEpochDay(), end.toEpochDay()).entrySet()) {
+            result.put(LocalDate.ofEpochDay(day.getKey()), day.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Indexes a newly logged workout.
+     * @param workout The current version of the workout.
+     */
+    void add(WorkoutVersion workout) {
+        SessionKey key = new SessionKey(workout.getSessionStart().toEpochMilli(), nextSequence++);
+        keys.put(workout.getWorkout(), key);
+        sessions.put(key, workout);
+        size = keys.size();
+        days.merge(dayOf(key.start), SessionTotals.EMPTY.plus(workout), SessionTotals::plus);
+    }
+
+    /**
+     * Replaces the indexed version of a workout with a newer one, moving it if its session start changed.
+     * @param workout The new version of the workout.
+     */
+    void update(WorkoutVersion workout) {
+        SessionKey key = keys.get(workout.getWorkout());
+        if (key == null) {
+            return;
+        }
+        if (key.start != workout.getSessionStart().toEpochMilli()) {
+            remove(workout.getWorkout());
+            add(workout);
+            return;
+        }
+        WorkoutVersion previous = sessions.put(key, workout);
+        if (previous.getTotalVolume() != workout.getTotalVolume()
+                || previous.getDurationMinutes() != workout.getDurationMinutes()) {
+            days.computeIfPresent(dayOf(key.start), (day, totals) -> totals.minus(previous).plus(workout));
+        }
+    }
+
+    /**
+     * Takes a removed workout out of the index.
+     * @param workout The workout.
+     */
+    void remove(AbstractWorkout workout) {
+        SessionKey key = keys.remove(workout);
+        if (key == null) {
+            return;
+        }
+        WorkoutVersion previous = sessions.remove(key);
+        size = keys.size();
+        days.computeIfPresent(dayOf(key.start), (day, totals) -> {
+            SessionTotals remaining = totals.minus(previous);
+            return remaining.getNumberOfWorkouts() == 0 ? null : remaining;
+        });
+    }
+
+    private NavigableMap<SessionKey, WorkoutVersion> range(long fromMillis, long toMillis) {
+        return sessions.subMap(new SessionKey(fromMillis, Long.MIN_VALUE), true,
+                               new SessionKey(toMillis, Long.MIN_VALUE), false);
+    }
+
+    private static SessionTotals sum(NavigableMap<SessionKey, WorkoutVersion> range) {
+        SessionTotals totals = SessionTotals.EMPTY;
+        for (WorkoutVersion workout : range.values()) {
+            totals = totals.plus(workout);
+        }
+        return totals;
+    }
+
+    private SessionTotals sumDays(long firstDay, long endDay) {
+        SessionTotals totals = SessionTotals.EMPTY;
+        if (firstDay < endDay) {
+            for (SessionTotals day : days.subMap(firstDay, endDay).values()) {
+                totals = totals.plus(day);
+            }
+        }
+        return totals;
+    }
+
+    private long dayOf(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(zone).toLocalDate().toEpochDay();
+    }
+
+    private long startOfDay(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private static void checkRange(Instant from, Instant to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid time range");
+        }
+    }
+
+    /**
+     * Orders sessions by start time, then by the order they were indexed in.
+     */
+    private static final class SessionKey implements Comparable<SessionKey> {
+        final long start;
+        final long sequence;
+
+        SessionKey(long start, long sequence) {
+            this.start = start;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(SessionKey other) {
+            int byStart = Long.compare(start, other.start);
+            return byStart != 0 ? byStart : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable state of a workout at one point in time: its name, its exercises in order and its totals.
+ * A workout publishes a new version after every change, including edits of its exercises, so a version
+ * can be read from any thread while the workout keeps changing. The exercises of a version keep the
+ * values they had when it was published, so they always add up to its totals.
+ */
+public final class WorkoutVersion {
+    private final AbstractWorkout workout;
+    private final String workoutName;
+    private final Instant sessionStart;
+    private final List<AbstractExercise> exercises;
+    private final int durationMinutes;
+    private final long durationSeconds;
+    private final double totalVolume;
+    private final long totalSets;
+    private final long totalReps;
+    private String text; // Rendered on first use; a race only renders it twice
+
+    WorkoutVersion(AbstractWorkout workout, String workoutName, Instant sessionStart, List<AbstractExercise> exercises,
+                   int durationMinutes, long durationSeconds, double totalVolume, long totalSets, long totalReps) {
+        this.workout = workout;
+        this.workoutName = workoutName;
+        this.sessionStart = sessionStart;
+        this.exercises = exercises;
+        this.durationMinutes = durationMinutes;
+        this.durationSeconds = durationSeconds;
+        this.totalVolume = totalVolume;
+        this.totalSets = totalSets;
+        this.totalReps = totalReps;
+    }
+
+    /**
+     * Returns the workout this is a version of.
+     * @return The live workout.
+     */
+    public AbstractWorkout getWorkout() {
+        return workout;
+    }
+
+    public String getWorkoutName() {
+        return workoutName;
+    }
+
+    public Instant getSessionStart() {
+        return sessionStart;
+    }
+
+    /**
+     * Returns the exercises of this version.
+     * @return An immutable list; editing its exercises never changes the workout.
+     */
+    public List<AbstractExercise> getExercises() {
+        return exercises;
+    }
+
+    public int exerciseCount() {
+        return exercises.size();
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public double getTotalVolume() {
+        return totalVolume;
+    }
+
+    public long getTotalSets() {
+        return totalSets;
+    }
+
+    public long getTotalReps() {
+        return totalReps;
+    }
+
+    /**
+     * Appends the text returned by {@link #toString()}.
+     * @param sb The builder to append to.
+     * @return The builder.
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        return sb.append("Workout Name: ").append(workoutName)
+                 .append(", Duration: ").append(durationMinutes)
+                 .append(" minutes, Exercises: ").append(exercises.size());
+    }
+
+    /**
+     * Returns the version as text, rendered once and cached.
+     */
+    @Override
+    public String toString() {
+        String rendered = text;
+        if (rendered == null) {
+            rendered = appendTo(new StringBuilder(64)).toString();
+            text = rendered;
+        }
+        return rendered;
+    }
+}
@@ -0,0 +1,146 @@
+import fitness.benchmarks.Workload;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Runs the benchmarked operations against the application classes, which are only visible from the default package.
+ */
+public class Workloads implements Workload {
+    private List<AbstractWorkout> workouts = new ArrayList<>();
+    private ConcreteWorkout workout;
+    private AbstractExercise[] exercises = new AbstractExercise[0];
+    private ConcreteWorkout[] emptyWorkouts = new ConcreteWorkout[0];
+    private AbstractExercise[][] exercisesToAdd = new AbstractExercise[0][];
+    private int nextWorkout;
+    private Controller controller;
+
+    @Override
+    public void createWorkouts(int count, int exercisesPerWorkout) {
+        workouts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ConcreteWorkout created = new ConcreteWorkout("Workout " + i);
+            for (int j = 0; j < exercisesPerWorkout; j++) {
+                created.addExercise(exercise(i * exercisesPerWorkout + j));
+            }
+            workouts.add(created);
+        }
+    }
+
+    @Override
+    public int logIntoWorkoutLogger() {
+        WorkoutLogger logger = new WorkoutLogger();
+        for (AbstractWorkout logged : workouts) {
+            logger.logWorkout(logged);
+        }
+        return logger.getNumberOfWorkouts();
+    }
+
+    @Override
+    public long logIntoLinkedList() {
+        LinkedListWorkouts list = new LinkedListWorkouts();
+        for (AbstractWorkout logged : workouts) {
+            list.logWorkout(logged);
+        }
+        return list.size();
+    }
+
+    @Override
+    public void createWorkout(int count) {
+        workout = new ConcreteWorkout("Workout");
+        exercises = new AbstractExercise[count];
+        for (int i = 0; i < count; i++) {
+            exercises[i] = exercise(i);
+        }
+    }
+
+    @Override
+    public double addExercises() {
+        for (AbstractExercise exercise : exercises) {
+            workout.addExercise(exercise);
+        }
+        return workout.getTotalVolume();
+    }
+
+    @Override
+    public void createEmptyWorkouts(int count, int exercisesPerWorkout) {
+        emptyWorkouts = new ConcreteWorkout[count];
+        exercisesToAdd = new AbstractExercise[count][];
+        for (int i = 0; i < count; i++) {
+            emptyWorkouts[i] = new ConcreteWorkout("Workout " + i);
+            exercisesToAdd[i] = new AbstractExercise[exercisesPerWorkout];
+            for (int j = 0; j < exercisesPerWorkout; j++) {
+                exercisesToAdd[i][j] = exercise(j);
+            }
+        }
+        nextWorkout = 0;
+    }
+
+    @Override
+    public double addExercisesToNextWorkout() {
+        if (nextWorkout == emptyWorkouts.length) {
+            throw new IllegalStateException("All " + emptyWorkouts.length + " created workouts are used");
+        }
+        ConcreteWorkout target = emptyWorkouts[nextWorkout];
+        for (AbstractExercise exercise : exercisesToAdd[nextWorkout]) {
+            target.addExercise(exercise);
+        }
+        emptyWorkouts[nextWorkout] = null; // Let the batch be collected as it is used
+        exercisesToAdd[nextWorkout++] = null;
+        return target.getTotalVolume();
+    }
+
+    @Override
+    public double updateDuration() {
+        workout.updateDuration();
+        return workout.getTotalVolume();
+    }
+
+    @Override
+    public void startController(int count, int exercisesPerWorkout) {
+        createWorkouts(count, exercisesPerWorkout);
+        WorkoutLogger logger = new WorkoutLogger();
+        logger.logWorkouts(workouts);
+        controller = Controller.headless(logger, new HeadlessGui(new PrintStream(OutputStream.nullOutputStream())));
+    }
+
+    @Override
+    public String displayStatistics() {
+        return controller.displayStatistics().join();
+    }
+
+    @Override
+    public String workoutsDisplayText() {
+        return controller.getWorkoutsDisplayText().join();
+    }
+
+    @Override
+    public long exportWorkoutData(Path file) throws IOException {
+        try {
+            return controller.exportWorkoutData(file.toFile(), WorkoutExporter.Format.CSV, false).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void stopController() {
+        if (controller != null) {
+            controller.shutdown();
+            controller = null;
+        }
+    }
+
+    // Exercises differ in every field, so totals and exports do real work
+    private static AbstractExercise exercise(int i) {
+        return new ConcreteExercise("Exercise " + (i % 50), 5 + i % 10, 1 + i % 5, 20 + i % 80, 30 + i % 120);
+    }
+}
@@ -0,0 +1,78 @@
+package fitness.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of AbstractWorkout.addExercise, which keeps the running totals and publishes a version on every
+ * call, and of updateDuration, which recalculates the totals of a full workout.
+ *
+ * Adding exercises changes the workout, so every call needs a new one. Rather than set one up before each
+ * call, which costs more than the call itself for small workouts, addExercise runs in single-shot batches:
+ * the workouts of a batch are created before the iteration, and its score is the time for the whole batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class AddExerciseBenchmark {
+    static final int BATCH = 100;
+
+    /**
+     * A batch of empty workouts, each with its own exercises to add, created again for every iteration.
+     */
+    @State(Scope.Thread)
+    public static class EmptyWorkouts {
+        @Param({ "100", "10000" })
+        public int exercises;
+
+        final Workload workload = Workload.create();
+
+        @Setup(Level.Iteration)
+        public void create() {
+            workload.createEmptyWorkouts(BATCH, exercises);
+        }
+    }
+
+    /**
+     * A workout that already holds its exercises.
+     */
+    @State(Scope.Thread)
+    public static class FullWorkout {
+        @Param({ "100", "10000" })
+        public int exercises;
+
+        final Workload workload = Workload.create();
+
+        @Setup(Level.Trial)
+        public void create() {
+            workload.createWorkout(exercises);
+            workload.addExercises();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 10, batchSize = BATCH)
+    public double addExercise(EmptyWorkouts state) {
+        return state.workload.addExercisesToNextWorkout();
+    }
+
+    @Benchmark
+    public double updateDuration(FullWorkout state) {
+        return state.workload.updateDuration();
+    }
+}
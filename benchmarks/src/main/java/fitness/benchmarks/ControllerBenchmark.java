@@ -0,0 +1,70 @@
+package fitness.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Controller operations over a filled log, with a headless controller and GUI.
+ * Exports are written to a temporary directory that is deleted after the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class ControllerBenchmark {
+    @Param({ "1000", "100000" })
+    public int workouts;
+
+    @Param({ "5" })
+    public int exercisesPerWorkout;
+
+    private final Workload workload = Workload.create();
+    private Path directory;
+    private Path exportFile;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        directory = Files.createTempDirectory("workout-benchmark");
+        exportFile = directory.resolve("WorkoutData.csv");
+        workload.startController(workouts, exercisesPerWorkout);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        workload.stopController();
+        Files.deleteIfExists(exportFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public String displayStatistics() {
+        return workload.displayStatistics();
+    }
+
+    @Benchmark
+    public String getWorkoutsDisplayText() {
+        return workload.workoutsDisplayText();
+    }
+
+    @Benchmark
+    public long exportWorkoutData() throws IOException {
+        return workload.exportWorkoutData(exportFile);
+    }
+}
@@ -0,0 +1,52 @@
+package fitness.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to log a whole dataset of workouts, one logWorkout call at a time, into WorkoutLogger and
+ * into LinkedListWorkouts. Every invocation logs fresh workouts into an empty log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class LogWorkoutBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int workouts;
+
+    @Param({ "3" })
+    public int exercisesPerWorkout;
+
+    private final Workload workload = Workload.create();
+
+    // Workouts keep a listener per log they are in, so they are never reused. In single-shot mode every
+    // iteration is one invocation, so creating them per iteration gives each invocation fresh workouts.
+    @Setup(Level.Iteration)
+    public void createWorkouts() {
+        workload.createWorkouts(workouts, exercisesPerWorkout);
+    }
+
+    @Benchmark
+    public int workoutLogger() {
+        return workload.logIntoWorkoutLogger();
+    }
+
+    @Benchmark
+    public long linkedListWorkouts() {
+        return workload.logIntoLinkedList();
+    }
+}
@@ -0,0 +1,113 @@
+package fitness.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Operations of the fitness tracker that the benchmarks measure.
+ *
+ * The application lives in the default package, which named packages cannot import, and JMH does not
+ * accept benchmarks in the default package. The benchmarks therefore call the application through this
+ * interface, implemented by the default-package class {@code Workloads}. Calls through it are plain
+ * interface calls, so nothing reflective is measured.
+ *
+ * Every instance holds its own data, so each JMH state creates one.
+ */
+public interface Workload {
+
+    /**
+     * Creates the default-package implementation.
+     * @return A new workload with no data.
+     */
+    static Workload create() {
+        try {
+            return (Workload) Class.forName("Workloads").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Workloads is missing from the benchmark classpath", e);
+        }
+    }
+
+    /**
+     * Creates workouts that are not logged anywhere yet, replacing those created before.
+     * @param workouts Number of workouts.
+     * @param exercisesPerWorkout Number of exercises in each workout.
+     */
+    void createWorkouts(int workouts, int exercisesPerWorkout);
+
+    /**
+     * Logs the created workouts one by one into a new WorkoutLogger.
+     * @return The number of workouts in the logger.
+     */
+    int logIntoWorkoutLogger();
+
+    /**
+     * Logs the created workouts one by one into a new LinkedListWorkouts.
+     * @return The number of workouts in the list.
+     */
+    long logIntoLinkedList();
+
+    /**
+     * Creates an empty workout and the exercises that {@link #addExercises()} will add to it.
+     * @param exercises Number of exercises.
+     */
+    void createWorkout(int exercises);
+
+    /**
+     * Adds the created exercises to the created workout one at a time.
+     * @return The total volume of the workout.
+     */
+    double addExercises();
+
+    /**
+     * Creates empty workouts, each with its own exercises for {@link #addExercisesToNextWorkout()} to add,
+     * replacing those created before.
+     * @param workouts Number of workouts.
+     * @param exercises Number of exercises for each workout.
+     */
+    void createEmptyWorkouts(int workouts, int exercises);
+
+    /**
+     * Adds its exercises to the next of the workouts created by {@link #createEmptyWorkouts}, one at a time.
+     * @return The total volume of that workout.
+     * @throws IllegalStateException if every created workout has been used.
+     */
+    double addExercisesToNextWorkout();
+
+    /**
+     * Recalculates the running totals of the created workout.
+     * @return The total volume of the workout.
+     */
+    double updateDuration();
+
+    /**
+     * Starts a headless controller over a logger filled with workouts.
+     * @param workouts Number of workouts.
+     * @param exercisesPerWorkout Number of exercises in each workout.
+     */
+    void startController(int workouts, int exercisesPerWorkout);
+
+    /**
+     * Builds the statistics text through the controller.
+     * @return The text.
+     */
+    String displayStatistics();
+
+    /**
+     * Builds the text listing every workout and exercise through the controller.
+     * @return The text.
+     */
+    String workoutsDisplayText();
+
+    /**
+     * Exports the log to a CSV file through the controller and waits for the export to finish.
+     * @param file The file to write.
+     * @return The number of rows written.
+     * @throws IOException If the export fails.
+     */
+    long exportWorkoutData(Path file) throws IOException;
+
+    /**
+     * Stops the controller started by {@link #startController}.
+     */
+    void stopController();
+}
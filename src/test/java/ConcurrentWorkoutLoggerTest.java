@@ -0,0 +1,307 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Hammers a {@link ConcurrentWorkoutLogger} from several threads at once and checks that no workout is lost
+ * or logged twice, and that listeners see every change once and in order.
+ */
+class ConcurrentWorkoutLoggerTest {
+    private static final int THREADS = 8;
+    private static final int NAMES = 2_000; // Every thread tries every name, so most attempts collide
+    private static final int ROUNDS = 20;
+
+    @Test
+    void everyNameIsLoggedExactlyOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            ConcurrentWorkoutLogger logger = new ConcurrentWorkoutLogger();
+            RecordingListener listener = new RecordingListener();
+            logger.addChangeListener(listener);
+
+            runConcurrently(thread -> {
+                for (int i = 0; i < NAMES; i++) {
+                    // Threads walk the names from different starting points to spread the collisions
+                    int name = (i + thread * NAMES / THREADS) % NAMES;
+                    logger.logWorkout(new ConcreteWorkout("Workout " + name));
+                    if (thread == 0 && i % 100 == 0) {
+                        logger.getLoggedWorkouts(); // Copies under every lock while the others keep logging
+                    }
+                }
+            });
+
+            List<AbstractWorkout> workouts = logger.getLoggedWorkouts();
+            assertEquals(NAMES, logger.getNumberOfWorkouts());
+            assertEquals(NAMES, workouts.size());
+            Set<String> names = new HashSet<>();
+            for (AbstractWorkout workout : workouts) {
+                assertTrue(names.add(workout.getWorkoutName()), "Logged twice: " + workout.getWorkoutName());
+                assertSame(workout, logger.findWorkout(workout.getWorkoutName()));
+            }
+            assertEquals(NAMES, logger.snapshot().getNumberOfWorkouts());
+            assertEquals(new HashSet<>(workouts), listener.loggedOnce());
+        }
+    }
+
+    @Test
+    void batchesAndRemovalsKeepTheCountsAndTheNotificationsConsistent() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            ConcurrentWorkoutLogger logger = new ConcurrentWorkoutLogger();
+            RecordingListener listener = new RecordingListener();
+            logger.addChangeListener(listener);
+            Map<String, AbstractWorkout> survivors = new ConcurrentHashMap<>();
+
+            runConcurrently(thread -> {
+                List<AbstractWorkout> batch = new ArrayList<>();
+                for (int i = 0; i < NAMES / THREADS; i++) {
+                    batch.add(new ConcreteWorkout("Thread " + thread + " workout " + i));
+                }
+                assertEquals(batch.size(), logger.logWorkouts(batch));
+                for (int i = 0; i < batch.size(); i++) {
+                    AbstractWorkout workout = batch.get(i);
+                    if (i % 3 == 0) {
+                        assertTrue(logger.removeWorkout(workout));
+                    } else {
+                        workout.addExercise(new ConcreteExercise("Squat", 5, 3, 100, 60));
+                        survivors.put(workout.getWorkoutName(), workout);
+                    }
+                }
+            });
+
+            assertEquals(survivors.size(), logger.getNumberOfWorkouts());
+            assertEquals(new HashSet<>(survivors.values()), new HashSet<>(logger.getLoggedWorkouts()));
+            for (AbstractWorkout workout : survivors.values()) {
+                assertEquals(List.of("logged", "exerciseAdded"), listener.eventsFor(workout));
+            }
+            for (AbstractWorkout workout : listener.workouts()) {
+                if (!survivors.containsKey(workout.getWorkoutName())) {
+                    assertEquals(List.of("logged", "removed"), listener.eventsFor(workout));
+                }
+            }
+        }
+    }
+
+    @Test
+    void renamingMovesTheWorkoutToItsNewName() {
+        ConcurrentWorkoutLogger logger = new ConcurrentWorkoutLogger();
+        RecordingListener listener = new RecordingListener();
+        logger.addChangeListener(listener);
+        AbstractWorkout first = new ConcreteWorkout("First");
+        AbstractWorkout second = new ConcreteWorkout("Second");
+        logger.logWorkouts(List.of(first, second));
+
+        first.setWorkoutName("Renamed");
+        assertSame(first, logger.findWorkout("Renamed"));
+        assertNull(logger.findWorkout("First"));
+        assertThrows(IllegalArgumentException.class, () -> first.setWorkoutName("Second"));
+        assertEquals("Renamed", first.getWorkoutName());
+        assertSame(second, logger.findWorkout("Second"));
+        logger.logWorkout(new ConcreteWorkout("Renamed")); // Taken, so ignored
+        assertEquals(List.of(first, second), logger.getLoggedWorkouts());
+
+        assertTrue(logger.removeWorkout(first));
+        assertNull(logger.findWorkout("Renamed"));
+        assertEquals(1, logger.getNumberOfWorkouts());
+        assertEquals(List.of("logged", "modified", "removed"), listener.eventsFor(first));
+    }
+
+    @Test
+    void aRenameRejectedByAnotherLogKeepsTheOldName() {
+        ConcurrentWorkoutLogger logger = new ConcurrentWorkoutLogger();
+        WorkoutLogger other = new WorkoutLogger();
+        AbstractWorkout legs = new ConcreteWorkout("Legs");
+        logger.logWorkout(legs); // Checked first, so it reserves the name before the other log rejects it
+        other.logWorkout(legs);
+        other.logWorkout(new ConcreteWorkout("Push"));
+
+        assertThrows(IllegalArgumentException.class, () -> legs.setWorkoutName("Push"));
+        assertEquals("Legs", legs.getWorkoutName());
+        assertSame(legs, logger.findWorkout("Legs"));
+        assertNull(logger.findWorkout("Push"));
+        logger.logWorkout(new ConcreteWorkout("Push")); // The reservation was released
+        assertEquals(2, logger.getLoggedWorkouts().size());
+
+        legs.setWorkoutName("Squats");
+        assertSame(legs, logger.findWorkout("Squats"));
+        assertNull(logger.findWorkout("Legs"));
+        assertTrue(logger.removeWorkout(legs));
+        assertNull(logger.findWorkout("Squats"));
+        assertEquals(1, logger.getNumberOfWorkouts());
+    }
+
+    @Test
+    void notificationsCarryTheVersionOfTheirChangeEvenWhenDeliveredLater() {
+        ConcurrentWorkoutLogger logger = new ConcurrentWorkoutLogger();
+        AbstractWorkout later = new ConcreteWorkout("Later");
+        List<String> counts = new ArrayList<>();
+        logger.addChangeListener(new RecordingListener() {
+            @Override
+            public void workoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+                counts.add(workout.getWorkoutName() + " logged with " + workoutVersion.exerciseCount());
+                if (workout != later) {
+                    // Changed during delivery, so both notifications arrive after the exercise was added
+                    logger.logWorkout(later);
+                    later.addExercise(new ConcreteExercise("Squat", 5, 3, 100, 60));
+                }
+            }
+
+            @Override
+            public void exerciseAdded(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                      AbstractExercise exercise, int index) {
+                counts.add(workout.getWorkoutName() + " exercise " + index + " with " + workoutVersion.exerciseCount());
+            }
+        });
+
+        logger.logWorkout(new ConcreteWorkout("First"));
+        assertEquals(List.of("First logged with 0", "Later logged with 0", "Later exercise 0 with 1"), counts);
+    }
+
+    @Test
+    void concurrentRenamesAndLogsNeverShareAName() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            ConcurrentWorkoutLogger logger = new ConcurrentWorkoutLogger();
+            AtomicInteger rejected = new AtomicInteger();
+
+            runConcurrently(thread -> {
+                for (int i = 0; i < NAMES / THREADS; i++) {
+                    // Every thread races for the same target names, half by renaming and half by logging
+                    String target = "Target " + i;
+                    if (thread % 2 == 0) {
+                        AbstractWorkout workout = new ConcreteWorkout("Thread " + thread + " workout " + i);
+                        logger.logWorkout(workout);
+                        try {
+                            workout.setWorkoutName(target);
+                        } catch (IllegalArgumentException e) {
+                            rejected.incrementAndGet();
+                        }
+                    } else {
+                        logger.logWorkout(new ConcreteWorkout(target));
+                    }
+                }
+            });
+
+            List<AbstractWorkout> workouts = logger.getLoggedWorkouts();
+            assertEquals(workouts.size(), logger.getNumberOfWorkouts());
+            Set<String> names = new HashSet<>();
+            for (AbstractWorkout workout : workouts) {
+                assertTrue(names.add(workout.getWorkoutName()), "Logged twice: " + workout.getWorkoutName());
+                assertSame(workout, logger.findWorkout(workout.getWorkoutName()));
+            }
+            for (int i = 0; i < NAMES / THREADS; i++) {
+                assertTrue(names.contains("Target " + i));
+            }
+            // One workout holds each target; the others are the renamed-too-late workouts under their own names
+            assertEquals(NAMES / THREADS, workouts.size() - rejected.get());
+            for (AbstractWorkout workout : workouts) {
+                assertTrue(logger.removeWorkout(workout));
+            }
+            assertEquals(0, logger.getNumberOfWorkouts());
+        }
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    // Starts every worker at once and rethrows the first failure
+    private static void runConcurrently(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int id = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    worker.run(id);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Records every notification per workout; the logger delivers them one at a time
+    private static class RecordingListener implements WorkoutChangeListener {
+        private final Map<AbstractWorkout, List<String>> events = new HashMap<>();
+        private final AtomicInteger active = new AtomicInteger();
+
+        Set<AbstractWorkout> loggedOnce() {
+            Set<AbstractWorkout> logged = new HashSet<>();
+            for (Map.Entry<AbstractWorkout, List<String>> entry : events.entrySet()) {
+                assertEquals(List.of("logged"), entry.getValue());
+                logged.add(entry.getKey());
+            }
+            return logged;
+        }
+
+        Set<AbstractWorkout> workouts() {
+            return Collections.unmodifiableSet(events.keySet());
+        }
+
+        List<String> eventsFor(AbstractWorkout workout) {
+            return events.getOrDefault(workout, List.of());
+        }
+
+        private void record(AbstractWorkout workout, String event) {
+            assertEquals(1, active.incrementAndGet(), "Notifications overlapped");
+            events.computeIfAbsent(workout, key -> new ArrayList<>()).add(event);
+            active.decrementAndGet();
+        }
+
+        @Override
+        public void workoutLogged(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+            record(workout, "logged");
+        }
+
+        @Override
+        public void workoutRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion) {
+            record(workout, "removed");
+        }
+
+        @Override
+        public void exerciseAdded(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                  AbstractExercise exercise, int index) {
+            record(workout, "exerciseAdded");
+        }
+
+        @Override
+        public void exerciseRemoved(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                    AbstractExercise exercise, int index) {
+            record(workout, "exerciseRemoved");
+        }
+
+        @Override
+        public void exerciseModified(AbstractWorkout workout, WorkoutVersion workoutVersion,
+                                     AbstractExercise exercise, int index) {
+            record(workout, "exerciseModified");
+        }
+
+        @Override
+        public void workoutModified(AbstractWorkout workout, WorkoutVersion workoutVersion, String previousName) {
+            record(workout, "modified");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Logs workouts into a {@link DiskWorkoutLogger} with a cache too small to hold them all and checks that
+ * evicted exercises come back as they were, edits survive eviction, snapshots keep reading evicted rows,
+ * and the exercise file reuses the space of rows nothing reads any more.
+ */
+class DiskWorkoutLoggerTest {
+    private static final Instant START = Instant.parse("2025-05-05T10:11:12.345Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loggingCountsNoCacheUse() throws IOException {
+        try (DiskWorkoutLogger logger = new DiskWorkoutLogger(directory, 4)) {
+            logger.logWorkout(workout("Legs", 3));
+            logger.logWorkout(workout("Arms", 3)); // Evicts Legs
+
+            DiskWorkoutLogger.CacheStats stats = logger.getCacheStats();
+            assertEquals(0, stats.getHits());
+            assertEquals(0, stats.getMisses());
+            assertEquals(1, stats.getEvictions());
+            assertEquals(3, stats.getCachedExercises());
+        }
+    }
+
+    @Test
+    void editsAreWrittenBackWhenEvicted() throws IOException {
+        try (DiskWorkoutLogger logger = new DiskWorkoutLogger(directory, 4)) {
+            logger.logWorkout(workout("Legs", 3));
+            logger.logWorkout(workout("Arms", 3));
+            AbstractWorkout legs = logger.findWorkout("Legs");
+            AbstractWorkout arms = logger.findWorkout("Arms");
+
+            assertEquals(1, logger.getCacheStats().getWriteBacks()); // Legs had never been written
+            legs.getExercises().get(1).setReps(12); // Loads Legs and evicts Arms, written for the first time
+            assertEquals(1, logger.getCacheStats().getMisses());
+            assertEquals(2, logger.getCacheStats().getWriteBacks());
+            assertEquals("Arms 1", arms.getExercises().get(0).getName()); // Evicts the edited Legs
+            assertEquals(3, logger.getCacheStats().getWriteBacks());
+
+            assertEquals(12, legs.getExercises().get(1).getReps()); // Evicts Arms, which was only read
+            assertEquals(3, logger.getCacheStats().getMisses());
+            assertEquals(3, logger.getCacheStats().getWriteBacks());
+            assertEquals(5 + 12 + 5, legs.getTotalReps());
+        }
+    }
+
+    @Test
+    void snapshotsReadEvictedRowsFromTheFile() throws IOException {
+        try (DiskWorkoutLogger logger = new DiskWorkoutLogger(directory, 4)) {
+            logger.logWorkout(workout("Legs", 3));
+            AbstractWorkout legs = logger.findWorkout("Legs");
+            legs.getExercises().get(0).setWeight(120);
+            WorkoutVersion before = legs.snapshot(); // Shares the cached rows
+            logger.logWorkout(workout("Arms", 3)); // Spills the snapshot to the file
+
+            List<AbstractExercise> exercises = before.getExercises();
+            assertEquals(3, exercises.size());
+            assertEquals(120, exercises.get(0).getWeight());
+            assertEquals("Legs 3", exercises.get(2).getName());
+            assertThrows(UnsupportedOperationException.class, () -> exercises.get(0).setWeight(0));
+
+            legs.getExercises().get(0).setWeight(130);
+            assertEquals(120, before.getExercises().get(0).getWeight());
+            assertEquals(130, legs.snapshot().getExercises().get(0).getWeight());
+        }
+    }
+
+    @Test
+    void aViewOfEvictedRowsRejectsEdits() throws IOException {
+        try (DiskWorkoutLogger logger = new DiskWorkoutLogger(directory, 4)) {
+            logger.logWorkout(workout("Legs", 3));
+            AbstractExercise squat = logger.findWorkout("Legs").getExercises().get(0);
+            logger.logWorkout(workout("Arms", 3));
+
+            assertThrows(IllegalStateException.class, () -> squat.setReps(8));
+            assertEquals(5, logger.findWorkout("Legs").getExercises().get(0).getReps());
+        }
+    }
+
+    @Test
+    void writeBacksReuseTheSpaceOfReleasedRuns() throws Exception {
+        int rounds = 1_000;
+        try (DiskWorkoutLogger logger = new DiskWorkoutLogger(directory, 4)) {
+            logger.logWorkout(workout("Legs", 3));
+            logger.logWorkout(workout("Arms", 3));
+            AbstractWorkout legs = logger.findWorkout("Legs");
+            AbstractWorkout arms = logger.findWorkout("Arms");
+            for (int i = 0; i < rounds; i++) {
+                // Each edit evicts the other workout, which was edited too, so every round writes a run
+                (i % 2 == 0 ? legs : arms).getExercises().get(0).setReps(i);
+                if (i % 50 == 0) {
+                    System.gc(); // Collects old snapshots, which lets go of the runs they read
+                    Thread.sleep(5);
+                }
+            }
+            assertEquals(rounds + 1, logger.getCacheStats().getWriteBacks()); // And the first write of each
+            long unreused = rounds * 3L * ExerciseFile.ROW_BYTES;
+            long fileBytes = logger.getCacheStats().getFileBytes();
+            assertTrue(fileBytes < unreused / 4, "File grew to " + fileBytes + " bytes");
+            assertEquals(rounds - 2, legs.getExercises().get(0).getReps());
+            assertEquals(rounds - 1, arms.getExercises().get(0).getReps());
+        }
+    }
+
+    private static AbstractWorkout workout(String name, int exercises) {
+        ConcreteWorkout workout = new ConcreteWorkout(name, START);
+        for (int i = 1; i <= exercises; i++) {
+            workout.addExercise(new ConcreteExercise(name + " " + i, 5, 3, 100, 60));
+        }
+        return workout;
+    }
+}
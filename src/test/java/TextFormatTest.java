@@ -0,0 +1,64 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link TextFormat#appendFixed} writes what "%.Nf" writes, including values at and next to a
+ * decimal tie.
+ */
+class TextFormatTest {
+
+    @Test
+    void roundsTiesLikeFormatter() {
+        double[] values = {
+            1.005, 5.244999999999999, 5.245, 2.675, 0.125, 1.0049999999999999, 123.455,
+            -0.001, -0.005, -0.004999999999999999, -0.0, 0.0, 0.5, 1.5, 2.5
+        };
+        for (double value : values) {
+            for (int decimals = 0; decimals <= 6; decimals++) {
+                assertFormattedLikeFormatter(value, decimals);
+            }
+        }
+    }
+
+    @Test
+    void formatsLargeValuesExactly() {
+        double[] values = { 1e13, 1e13 + 0.125, 123_456_789_012_345.67, -9.87654321e14, 1e15, 1e300, Double.MAX_VALUE };
+        for (double value : values) {
+            assertFormattedLikeFormatter(value, 2);
+            assertFormattedLikeFormatter(value, 6);
+        }
+    }
+
+    @Test
+    void matchesFormatterOnRandomValues() {
+        Random random = new Random(19);
+        for (int i = 0; i < 200_000; i++) {
+            int decimals = random.nextInt(4);
+            // Decimal values with one digit more than shown, nudged by an ulp, land on and next to ties
+            double value = (random.nextInt(2_000_000) - 1_000_000) / Math.pow(10, decimals + 1);
+            int nudge = random.nextInt(3);
+            if (nudge == 1) {
+                value = Math.nextUp(value);
+            } else if (nudge == 2) {
+                value = Math.nextDown(value);
+            }
+            assertFormattedLikeFormatter(value, decimals);
+            assertFormattedLikeFormatter(random.nextDouble() * 1_000, random.nextInt(7));
+        }
+    }
+
+    @Test
+    void writesNonFiniteValuesAsDoubleDoes() {
+        assertEquals("NaN", TextFormat.appendFixed(new StringBuilder(), Double.NaN, 2).toString());
+        assertEquals("-Infinity", TextFormat.appendFixed(new StringBuilder(), Double.NEGATIVE_INFINITY, 2).toString());
+    }
+
+    private static void assertFormattedLikeFormatter(double value, int decimals) {
+        String expected = String.format(Locale.ROOT, "%." + decimals + "f", value);
+        String actual = TextFormat.appendFixed(new StringBuilder(), value, decimals).toString();
+        assertEquals(expected, actual, () -> value + " with " + decimals + " decimals");
+    }
+}
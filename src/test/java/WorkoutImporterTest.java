@@ -0,0 +1,149 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Exports logs with {@link WorkoutExporter}, imports them back with {@link WorkoutImporter} and checks that
+ * nothing changed on the way, also when the file is cut into many chunks. Covers files written before
+ * exports carried session starts and a malformed row that must not reach the log.
+ */
+class WorkoutImporterTest {
+    private static final Instant START = Instant.parse("2025-05-05T10:11:12.345Z");
+    private static final String[] AWKWARD_NAMES = {
+        "Plain", "Comma, separated", "Quote \"this\"", "Line\nbreak", "\"Quoted, with\nall of it\"", "Ünïcode ✓"
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void csvAndJsonLinesRoundTripAwkwardNames() throws IOException {
+        WorkoutLogger logger = new WorkoutLogger();
+        for (int i = 0; i < AWKWARD_NAMES.length; i++) {
+            ConcreteWorkout workout = new ConcreteWorkout(AWKWARD_NAMES[i], START.plusSeconds(i * 3600L));
+            workout.addExercise(new ConcreteExercise(AWKWARD_NAMES[(i + 1) % AWKWARD_NAMES.length], 5, 3, 102.5, 60));
+            workout.addExercise(new ConcreteExercise("Squat", 8, 4, 0.25, 90));
+            logger.logWorkout(workout);
+        }
+        logger.logWorkout(new ConcreteWorkout("Empty, but \"logged\"", START)); // Exported as a row without an exercise
+
+        for (WorkoutExporter.Format format : WorkoutExporter.Format.values()) {
+            for (boolean gzip : new boolean[] { false, true }) {
+                Path file = directory.resolve("export" + format.getExtension() + (gzip ? ".gz" : ""));
+                new WorkoutExporter().export(logger.snapshot(), file, format, gzip, null);
+                WorkoutLogger imported = new WorkoutLogger();
+                long rows = new WorkoutImporter().importFile(file, imported);
+                assertEquals(2L * AWKWARD_NAMES.length, rows, file.getFileName().toString());
+                assertEquals(describe(logger), describe(imported), file.getFileName().toString());
+            }
+        }
+    }
+
+    @Test
+    void filesCutIntoManyChunksImportLikeOneChunk() throws IOException {
+        WorkoutLogger logger = new WorkoutLogger();
+        for (int i = 0; i < 300; i++) {
+            // Names with line breaks and quotes make some chunks start inside a quoted field
+            ConcreteWorkout workout = new ConcreteWorkout(AWKWARD_NAMES[i % AWKWARD_NAMES.length] + " " + i,
+                    START.plusSeconds(i * 60L));
+            for (int j = 0; j < i % 4; j++) {
+                workout.addExercise(new ConcreteExercise(AWKWARD_NAMES[(i + j) % AWKWARD_NAMES.length], j + 1, 3,
+                        20 + i * 0.5, 30 + j));
+            }
+            logger.logWorkout(workout);
+        }
+
+        for (WorkoutExporter.Format format : WorkoutExporter.Format.values()) {
+            Path file = directory.resolve("chunked" + format.getExtension());
+            new WorkoutExporter().export(logger.snapshot(), file, format, false, null);
+            for (int chunkBytes : new int[] { 1, 7, 64, 1000 }) {
+                WorkoutImporter importer = new WorkoutImporter(ForkJoinPool.commonPool(), chunkBytes);
+                WorkoutLogger imported = new WorkoutLogger();
+                importer.importFile(file, imported);
+                assertEquals(describe(logger), describe(imported), format + " in chunks of " + chunkBytes);
+            }
+        }
+    }
+
+    @Test
+    void filesWithoutSessionStartsStartAtTheImport() throws IOException {
+        Path csv = directory.resolve("legacy.csv");
+        Files.writeString(csv, "workout,exercise,reps,sets,weight,seconds\n"
+                + "Legs,Squat,5,3,100.0,60\n"
+                + "\"Arms, old\",Curl,12,3,15.5,40\n"
+                + "Legs,Lunge,10,2,20.0,45\n", StandardCharsets.UTF_8);
+        Path jsonLines = directory.resolve("legacy.jsonl");
+        Files.writeString(jsonLines, "{\"workout\":\"Push\",\"exercise\":\"Bench\",\"reps\":5,\"sets\":5,\"weight\":80.0,\"seconds\":120}\n",
+                StandardCharsets.UTF_8);
+
+        Instant before = Instant.now();
+        WorkoutLogger logger = new WorkoutLogger();
+        assertEquals(3, new WorkoutImporter().importFile(csv, logger));
+        assertEquals(1, new WorkoutImporter().importFile(jsonLines, logger));
+        Instant after = Instant.now();
+
+        assertEquals(List.of(
+                "Legs", "  Squat 5x3 100.0 60s", "  Lunge 10x2 20.0 45s",
+                "Arms, old", "  Curl 12x3 15.5 40s",
+                "Push", "  Bench 5x5 80.0 120s"), describe(logger, false));
+        for (AbstractWorkout workout : logger.getLoggedWorkouts()) {
+            Instant sessionStart = workout.getSessionStart();
+            assertFalse(sessionStart.isBefore(before.minusMillis(1)), workout.getWorkoutName());
+            assertFalse(sessionStart.isAfter(after), workout.getWorkoutName());
+        }
+    }
+
+    @Test
+    void aMalformedRowLeavesTheLogUntouched() throws IOException {
+        WorkoutLogger logger = new WorkoutLogger();
+        ConcreteWorkout legs = new ConcreteWorkout("Legs", START);
+        legs.addExercise(new ConcreteExercise("Squat", 5, 3, 100, 60));
+        logger.logWorkout(legs);
+        List<String> before = describe(logger);
+
+        Path file = directory.resolve("malformed.csv");
+        StringBuilder text = new StringBuilder(WorkoutExporter.CSV_HEADER).append('\n');
+        for (int i = 0; i < 200; i++) {
+            text.append(i % 2 == 0 ? "Legs" : "New " + i).append(',').append(START).append(",Lunge,10,2,20.0,45\n");
+        }
+        text.append("Legs,").append(START).append(",Squat,five,3,100.0,60\n"); // Reps are not a number
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+
+        for (int chunkBytes : new int[] { 64, 1 << 20 }) {
+            WorkoutImporter importer = new WorkoutImporter(ForkJoinPool.commonPool(), chunkBytes);
+            assertThrows(IllegalArgumentException.class, () -> importer.importFile(file, logger));
+            assertEquals(before, describe(logger));
+            assertEquals(1, logger.getNumberOfWorkouts());
+            assertNull(logger.findWorkout("New 1"));
+        }
+    }
+
+    private static List<String> describe(InterfaceWorkoutLogger logger) {
+        return describe(logger, true);
+    }
+
+    // One line per workout and per exercise, in logging order
+    private static List<String> describe(InterfaceWorkoutLogger logger, boolean sessionStarts) {
+        List<String> lines = new ArrayList<>();
+        for (AbstractWorkout workout : logger.getLoggedWorkouts()) {
+            lines.add(workout.getWorkoutName() + (sessionStarts ? " at " + workout.getSessionStart() : ""));
+            for (AbstractExercise exercise : workout.getExercises()) {
+                lines.add("  " + exercise.getName() + " " + exercise.getReps() + "x" + exercise.getSets() + " "
+                        + exercise.getWeight() + " " + exercise.getSeconds() + "s");
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,253 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Records changes through a {@link WorkoutJournal}, reopens the directory into a new log and checks that the
+ * log comes back as it was, including after a torn write, after a compaction and past a journal that does
+ * not belong to the log.
+ */
+class WorkoutJournalTest {
+    private static final Instant START = Instant.parse("2025-05-05T10:11:12.345Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopeningReplaysEveryChange() throws IOException {
+        WorkoutLogger logger = new WorkoutLogger();
+        try (WorkoutJournal journal = WorkoutJournal.open(directory, logger, 0)) {
+            ConcreteWorkout legs = new ConcreteWorkout("Legs", START);
+            legs.addExercise(new ConcreteExercise("Squat", 5, 3, 100, 60)); // Recorded with the workout
+            logger.logWorkout(legs);
+            legs.addExercise(new ConcreteExercise("Lunge", 10, 2, 20, 45));
+            legs.addExercise(new ConcreteExercise("Calf raise", 15, 3, 40, 30));
+            legs.removeExercise(legs.getExercises().get(1));
+            legs.getExercises().get(0).setWeight(105);
+            legs.getExercises().get(1).setName("Seated calf raise");
+            legs.setWorkoutName("Leg day"); // Later records are written under the new name
+
+            legs.addExercise(new ConcreteExercise("Leg press", 8, 3, 180, 90));
+            ConcreteWorkout arms = new ConcreteWorkout("Arms", START.plusSeconds(3600));
+            logger.logWorkout(arms);
+            arms.addExercise(new ConcreteExercise("Curl", 12, 3, 15, 40));
+            ConcreteWorkout removed = new ConcreteWorkout("Removed", START);
+            logger.logWorkout(removed);
+            logger.removeWorkout(removed);
+        }
+        List<String> expected = describe(logger);
+
+        WorkoutLogger reopened = new WorkoutLogger();
+        WorkoutJournal.open(directory, reopened, 0).close();
+        assertEquals(expected, describe(reopened));
+        assertEquals(3, reopened.findWorkout("Leg day").getExercises().size());
+    }
+
+    @Test
+    void reopeningKeepsAnEditedSessionStart() throws IOException {
+        Instant moved = Instant.parse("2025-06-01T08:00:00Z");
+        WorkoutLogger logger = new WorkoutLogger();
+        try (WorkoutJournal journal = WorkoutJournal.open(directory, logger, 0)) {
+            ConcreteWorkout workout = new ConcreteWorkout("Morning run", START);
+            logger.logWorkout(workout);
+            workout.setSessionStart(moved);
+            workout.addExercise(new ConcreteExercise("Run", 1, 1, 0, 1800));
+        }
+
+        WorkoutLogger reopened = new WorkoutLogger();
+        WorkoutJournal.open(directory, reopened, 0).close();
+        assertEquals(moved, reopened.findWorkout("Morning run").getSessionStart());
+        assertEquals(describe(logger), describe(reopened));
+    }
+
+    @Test
+    void replayStopsAtATornRecord() throws IOException {
+        WorkoutLogger logger = new WorkoutLogger();
+        try (WorkoutJournal journal = WorkoutJournal.open(directory, logger, 0)) {
+            ConcreteWorkout workout = new ConcreteWorkout("Push", START);
+            logger.logWorkout(workout);
+            workout.addExercise(new ConcreteExercise("Bench", 5, 5, 80, 120));
+        }
+        List<String> expected = describe(logger);
+        Path journalFile = onlyJournal();
+        try (RandomAccessFile file = new RandomAccessFile(journalFile.toFile(), "rw")) {
+            file.seek(file.length());
+            file.write(new byte[] { 64, 0, 0, 0, 3, 4 }); // A record cut off after its length and type
+        }
+
+        WorkoutLogger reopened = new WorkoutLogger();
+        WorkoutJournal.open(directory, reopened, 0).close();
+        assertEquals(expected, describe(reopened));
+    }
+
+    @Test
+    void replayDropsARecordWithABadChecksum() throws IOException {
+        WorkoutLogger logger = new WorkoutLogger();
+        try (WorkoutJournal journal = WorkoutJournal.open(directory, logger, 0)) {
+            ConcreteWorkout workout = new ConcreteWorkout("Pull", START);
+            logger.logWorkout(workout);
+            workout.addExercise(new ConcreteExercise("Row", 8, 4, 70, 90));
+            workout.addExercise(new ConcreteExercise("Chin-up", 6, 4, 0, 90));
+        }
+        Path journalFile = onlyJournal();
+        try (RandomAccessFile file = new RandomAccessFile(journalFile.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xFF); // The checksum of the last record no longer matches
+        }
+
+        WorkoutLogger reopened = new WorkoutLogger();
+        WorkoutJournal.open(directory, reopened, 0).close();
+        List<AbstractExercise> exercises = reopened.findWorkout("Pull").getExercises();
+        assertEquals(1, exercises.size());
+        assertEquals("Row", exercises.get(0).getName());
+    }
+
+    @Test
+    void compactionIsReplayedOnTopOfTheSnapshot() throws IOException {
+        WorkoutLogger logger = new WorkoutLogger();
+        try (WorkoutJournal journal = WorkoutJournal.open(directory, logger, 0)) {
+            ConcreteWorkout workout = new ConcreteWorkout("Full body", START);
+            logger.logWorkout(workout);
+            workout.addExercise(new ConcreteExercise("Deadlift", 3, 5, 160, 150));
+            workout.addExercise(new ConcreteExercise("Press", 5, 5, 50, 90));
+            journal.compact();
+            // Changed after the snapshot was taken, so only the new journal has these
+            workout.getExercises().get(1).setReps(6);
+            workout.setWorkoutName("Full body A");
+            logger.logWorkout(new ConcreteWorkout("Rest", START.plusSeconds(86_400)));
+        }
+        assertTrue(Files.exists(directory.resolve(WorkoutJournal.SNAPSHOT_FILE)));
+        try (WorkoutSnapshot snapshot = WorkoutSnapshot.open(directory.resolve(WorkoutJournal.SNAPSHOT_FILE))) {
+            assertEquals(1, snapshot.getNumberOfWorkouts());
+            assertEquals("Full body", snapshot.getWorkoutName(0));
+            assertEquals(List.of(journalFile(snapshot.getGeneration())), journals()); // Older journals are gone
+        }
+        List<String> expected = describe(logger);
+
+        WorkoutLogger reopened = new WorkoutLogger();
+        WorkoutJournal.open(directory, reopened, 0).close();
+        assertEquals(expected, describe(reopened));
+
+        WorkoutLogger again = new WorkoutLogger(); // Reopening compacted the replayed journal into the snapshot
+        WorkoutJournal.open(directory, again, 0).close();
+        assertEquals(expected, describe(again));
+    }
+
+    @Test
+    void compactionDueInsideABatchWaitsForTheWholeBatch() throws IOException {
+        WorkoutLogger logger = new WorkoutLogger();
+        try (WorkoutJournal journal = WorkoutJournal.open(directory, logger, 0, 2000)) {
+            ConcreteWorkout workout = new ConcreteWorkout("Volume", START);
+            logger.logWorkout(workout);
+            List<AbstractExercise> exercises = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                exercises.add(new ConcreteExercise("Set " + i, 10, 1, 20, 30));
+            }
+            workout.addExercises(exercises); // Crosses the compaction size long before its last record
+        }
+        assertTrue(Files.exists(directory.resolve(WorkoutJournal.SNAPSHOT_FILE)));
+
+        WorkoutLogger reopened = new WorkoutLogger();
+        try (WorkoutJournal journal = WorkoutJournal.open(directory, reopened, 0, 2000)) {
+            assertEquals(1, reopened.getNumberOfWorkouts());
+            assertEquals(100, reopened.findWorkout("Volume").exerciseCount());
+            List<AbstractWorkout> workouts = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                ConcreteWorkout logged = new ConcreteWorkout("Session " + i, START.plusSeconds(i));
+                logged.addExercise(new ConcreteExercise("Row", 8, 3, 60, 90));
+                workouts.add(logged);
+            }
+            assertEquals(100, reopened.logWorkouts(workouts));
+        }
+        List<String> expected = describe(reopened);
+
+        WorkoutLogger again = new WorkoutLogger();
+        WorkoutJournal.open(directory, again, 0).close();
+        assertEquals(101, again.getNumberOfWorkouts());
+        assertEquals(100, again.findWorkout("Volume").exerciseCount());
+        assertEquals(1, again.findWorkout("Session 0").exerciseCount());
+        assertEquals(expected, describe(again));
+    }
+
+    @Test
+    void aJournalThatDoesNotMatchTheLogIsSetAside(@TempDir Path elsewhere) throws IOException {
+        WorkoutLogger logger = new WorkoutLogger();
+        try (WorkoutJournal journal = WorkoutJournal.open(directory, logger, 0)) {
+            ConcreteWorkout legs = new ConcreteWorkout("Legs", START);
+            logger.logWorkout(legs);
+            legs.addExercise(new ConcreteExercise("Squat", 5, 3, 100, 60));
+        }
+        List<String> expected = describe(logger);
+        WorkoutLogger other = new WorkoutLogger();
+        try (WorkoutJournal journal = WorkoutJournal.open(elsewhere, other, 0)) {
+            ConcreteWorkout arms = new ConcreteWorkout("Arms", START);
+            other.logWorkout(arms);
+            journal.compact(); // The next journal only adds to Arms, which the first log does not have
+            arms.addExercise(new ConcreteExercise("Curl", 12, 3, 15, 40));
+        }
+        Path foreign = journalFile(1);
+        Files.copy(elsewhere.resolve(foreign.getFileName()), foreign);
+
+        WorkoutLogger reopened = new WorkoutLogger();
+        try (WorkoutJournal journal = WorkoutJournal.open(directory, reopened, 0)) {
+            assertEquals(expected, describe(reopened));
+            reopened.findWorkout("Legs").addExercise(new ConcreteExercise("Lunge", 10, 2, 20, 45));
+        }
+        assertTrue(Files.exists(foreign.resolveSibling(foreign.getFileName() + WorkoutJournal.CORRUPT_SUFFIX)));
+        assertFalse(journals().contains(foreign));
+
+        WorkoutLogger again = new WorkoutLogger();
+        WorkoutJournal.open(directory, again, 0).close();
+        assertEquals(describe(reopened), describe(again));
+        assertEquals(2, again.findWorkout("Legs").exerciseCount());
+    }
+
+    // One line per workout and per exercise, in logging order
+    private static List<String> describe(InterfaceWorkoutLogger logger) {
+        List<String> lines = new ArrayList<>();
+        for (AbstractWorkout workout : logger.getLoggedWorkouts()) {
+            lines.add(workout.getWorkoutName() + " at " + workout.getSessionStart());
+            for (AbstractExercise exercise : workout.getExercises()) {
+                lines.add("  " + exercise.getName() + " " + exercise.getReps() + "x" + exercise.getSets() + " "
+                        + exercise.getWeight() + " " + exercise.getSeconds() + "s");
+            }
+        }
+        return lines;
+    }
+
+    private Path onlyJournal() throws IOException {
+        List<Path> journals = journals();
+        assertEquals(1, journals.size(), "Nothing was replayed, so nothing was compacted");
+        return journals.get(0);
+    }
+
+    private List<Path> journals() throws IOException {
+        List<Path> journals = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                WorkoutJournal.JOURNAL_PREFIX + "*" + WorkoutJournal.JOURNAL_SUFFIX)) {
+            for (Path file : files) {
+                journals.add(file);
+            }
+        }
+        journals.sort(null);
+        return journals;
+    }
+
+    private Path journalFile(long generation) {
+        return directory.resolve(String.format("%s%012d%s", WorkoutJournal.JOURNAL_PREFIX, generation,
+                WorkoutJournal.JOURNAL_SUFFIX));
+    }
+}